@@ -0,0 +1,119 @@
+package bench;
+
+import core.GameBoard;
+
+import java.io.*;
+import java.util.Random;
+
+import static core.Constants.*;
+
+/**
+ * Measures what sending the GameBoard every turn costs on the wire: bytes written per turn and time to decode
+ * a board, for the compact Externalizable format against the default serialization of the int[][] board
+ * GameBoard used to have.  Both are written the way HandleASession writes them, writeObject followed by reset.
+ * @author Kevin Somers
+ */
+public class BoardSerializationBenchmark {
+    private static final int POSITIONS = 1000;
+    private static final int ROUNDS = 20;
+
+    /**
+     * The fields of GameBoard before it was backed by bitboards, serialized with default serialization.
+     */
+    static class LegacyGameBoard implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private int[][] board;
+        private int colLength;
+        private int rowLength;
+        private int totalSpots;
+
+        LegacyGameBoard(GameBoard gameBoard){
+            this.rowLength = gameBoard.getRowLength();
+            this.colLength = gameBoard.getColLength();
+            this.board = new int[rowLength][colLength];
+            for (int i = 0; i < rowLength; i++)
+                for (int j = 0; j < colLength; j++)
+                    this.board[i][j] = gameBoard.getPos(i, j);
+            this.totalSpots = gameBoard.getSpots();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Random rand = new Random(42);
+        Object[] compact = new Object[POSITIONS];
+        Object[] legacy = new Object[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++){
+            GameBoard gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+            int moves = rand.nextInt(NUMROWS * NUMCOLUMNS);
+            for (int m = 0; m < moves; m++){
+                int col = rand.nextInt(NUMCOLUMNS);
+                if (gameBoard.putPiece(col, m % 2) != -1)
+                    gameBoard.decrementSpot();
+            }
+            compact[i] = gameBoard;
+            legacy[i] = new LegacyGameBoard(gameBoard);
+        }
+        byte[] compactBytes = encode(compact);
+        byte[] legacyBytes = encode(legacy);
+        for (int i = 0; i < ROUNDS; i++){ //warm up
+            decode(compactBytes);
+            decode(legacyBytes);
+        }
+        long compactNanos = Long.MAX_VALUE;
+        long legacyNanos = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++){
+            compactNanos = Math.min(compactNanos, decode(compactBytes));
+            legacyNanos = Math.min(legacyNanos, decode(legacyBytes));
+        }
+        report("int[][] default serialization", legacyBytes.length, legacyNanos);
+        report("compact Externalizable", compactBytes.length, compactNanos);
+        System.out.printf("%.1fx fewer bytes, %.1fx faster decode%n",
+                (double) legacyBytes.length / compactBytes.length, (double) legacyNanos / compactNanos);
+    }
+
+    /**
+     * writes every board to one stream the way the server does, resetting after each board
+     * @param boards the boards to write
+     * @return the bytes of the stream
+     * @throws IOException never, the stream is in memory
+     */
+    private static byte[] encode(Object[] boards) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        for (Object board : boards){
+            out.writeInt(CONTINUE);
+            out.writeObject(board);
+            out.flush();
+            out.reset();
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * reads every board back the way Connect4Client does
+     * @param bytes a stream written by encode
+     * @return the nanoseconds taken to decode every board
+     * @throws Exception never, the stream is in memory
+     */
+    private static long decode(byte[] bytes) throws Exception {
+        long start = System.nanoTime();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        for (int i = 0; i < POSITIONS; i++){
+            in.readInt();
+            in.readObject();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * prints one line of results
+     * @param format name of the format measured
+     * @param totalBytes bytes written for every board
+     * @param nanos nanoseconds taken to decode every board
+     */
+    private static void report(String format, int totalBytes, long nanos){
+        System.out.printf("%-32s %6.1f bytes/turn %8.2f us/decode%n",
+                format, (double) totalBytes / POSITIONS, nanos / 1000.0 / POSITIONS);
+    }
+}
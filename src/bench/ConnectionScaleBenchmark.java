@@ -0,0 +1,130 @@
+package bench;
+
+import core.Connect4Client;
+import core.Connect4Server;
+import core.Connect4Server.Transport;
+import core.Constants;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures what connections cost a server in each transport: a server is started in this process, players are
+ * connected a step at a time, and after every step the live threads, the heap in use after a collection and the
+ * resident size of the process are reported, with what each connection added to them.  In idle mode the players
+ * only send the stream header, so each holds a SocketServicer waiting for a game type; in games mode they ask
+ * for player vs player games and are paired into sessions that wait for player 0's first move.  The time from
+ * connecting a fresh player to it holding its first prompt, the median of PROMPTSAMPLES player vs computer
+ * openings, is measured at each step too, which shows whether the other players slow anyone down.  Client and
+ * server share the process, so every connection takes two file descriptors, the limit on open files has to be
+ * raised for the larger runs.  Usage: ConnectionScaleBenchmark [blocking|virtual|selector] [connections] [step]
+ * [idle|games]
+ * @author Kevin Somers
+ */
+public class ConnectionScaleBenchmark {
+    private static final int PROMPTSAMPLES = 5;
+    private static long baseHeap;
+    private static long baseResident;
+
+    public static void main(String[] args) throws Exception {
+        Transport transport = (args.length > 0) ? Transport.valueOf(args[0].toUpperCase()) : Transport.SELECTOR;
+        int connections = (args.length > 1) ? Integer.parseInt(args[1]) : 5000;
+        int step = (args.length > 2) ? Integer.parseInt(args[2]) : 1000;
+        boolean games = args.length > 3 && args[3].equalsIgnoreCase("games");
+        Constants.IDLEMILLIS = 0; //the players are left idle or waiting for their move on purpose
+        Constants.MOVEMILLIS = 0;
+        Connect4Server server = new Connect4Server(transport);
+        Thread serverThread = new Thread(() -> server.start(server.getServerSocket()));
+        serverThread.setDaemon(true);
+        serverThread.start();
+        Thread.sleep(500);
+
+        System.out.println(transport + " transport, " + (games ? "players in games" : "idle players"));
+        firstPromptMillis(); //the first computer player allocates the shared tables, leave them out of the baseline
+        baseHeap = baseline();
+        baseResident = residentBytes();
+        report(0, baseHeap, firstPromptMillis());
+        List<Socket> players = new ArrayList<>();
+        try {
+            while (players.size() < connections){
+                int target = Math.min(connections, players.size() + step);
+                while (players.size() < target){
+                    Socket socket = new Socket(Constants.HOST, Constants.PORT);
+                    ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+                    if (games)
+                        out.writeChar(Constants.PLAYERVSPLAYER);
+                    out.flush();
+                    players.add(socket);
+                }
+                Thread.sleep(1000); //let the server take the last of them on
+                report(players.size(), baseline(), firstPromptMillis());
+            }
+        } finally {
+            for (Socket socket : players)
+                socket.close();
+            server.close();
+        }
+    }
+
+    /**
+     * @return the heap in use after a collection, in bytes
+     */
+    private static long baseline(){
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * plays the openings of player vs computer games
+     * @return the median milliseconds from connecting to reading the first prompt
+     */
+    private static double firstPromptMillis() throws IOException {
+        double[] millis = new double[PROMPTSAMPLES];
+        for (int i = 0; i < PROMPTSAMPLES; i++){
+            long start = System.nanoTime();
+            Connect4Client client = new Connect4Client();
+            client.sendGameType(Constants.PLAYERVSCOMP);
+            client.getGameStatus(); //players number
+            client.getGameStatus(); //continue
+            client.getGameBoard();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+            client.close();
+        }
+        Arrays.sort(millis);
+        return millis[PROMPTSAMPLES / 2];
+    }
+
+    private static void report(int connections, long heapBytes, double promptMillis){
+        long resident = residentBytes();
+        System.out.printf("%7d connections %6d threads %8.1f MB heap %8.1f MB resident %6.1f KB heap "
+                        + "%6.1f KB resident per connection %8.2f ms to first prompt%n",
+                connections, Thread.activeCount(), heapBytes / 1048576.0, resident / 1048576.0,
+                perConnection(heapBytes - baseHeap, connections), perConnection(resident - baseResident, connections),
+                promptMillis);
+    }
+
+    private static double perConnection(long bytes, int connections){
+        return (connections == 0) ? 0 : bytes / 1024.0 / connections;
+    }
+
+    /**
+     * @return the resident size of the process, thread stacks included, or 0 where /proc is not available
+     */
+    private static long residentBytes(){
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status")))
+                if (line.startsWith("VmRSS:"))
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+        } catch (IOException | NumberFormatException ignored) {
+        }
+        return 0;
+    }
+}
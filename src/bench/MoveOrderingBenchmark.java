@@ -0,0 +1,51 @@
+package bench;
+
+import core.AlphaBetaSearch;
+import core.GameBoard;
+import core.MoveOrdering;
+import core.MoveOrdering.Layer;
+import core.ScoreChecker;
+import core.TranspositionTable;
+
+import java.util.EnumSet;
+
+/**
+ * Measures what each layer of MoveOrdering contributes: the positions of ParallelSearchBenchmark are searched to a
+ * fixed depth with different layers switched on, and the nodes visited and time taken are totalled.  Every
+ * configuration starts with a fresh transposition table.  Usage: MoveOrderingBenchmark [depth]
+ * @author Kevin Somers
+ */
+public class MoveOrderingBenchmark {
+
+    public static void main(String[] args){
+        int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 14;
+        GameBoard[] positions = ParallelSearchBenchmark.positions();
+        ScoreChecker scoreChecker = new ScoreChecker();
+        System.out.println("depth " + depth + ", " + positions.length + " positions");
+        run("none", EnumSet.noneOf(Layer.class), positions, scoreChecker, depth);
+        run("center", EnumSet.of(Layer.CENTER), positions, scoreChecker, depth);
+        run("center+table", EnumSet.of(Layer.CENTER, Layer.TABLEMOVE), positions, scoreChecker, depth);
+        run("center+table+killers", EnumSet.of(Layer.CENTER, Layer.TABLEMOVE, Layer.KILLERS),
+                positions, scoreChecker, depth);
+        run("center+table+history", EnumSet.of(Layer.CENTER, Layer.TABLEMOVE, Layer.HISTORY),
+                positions, scoreChecker, depth);
+        run("all", EnumSet.allOf(Layer.class), positions, scoreChecker, depth);
+    }
+
+    private static void run(String name, EnumSet<Layer> layers, GameBoard[] positions, ScoreChecker scoreChecker,
+                            int depth){
+        AlphaBetaSearch search = new AlphaBetaSearch(Long.MAX_VALUE / 2000000, new TranspositionTable(64));
+        search.setMaxDepth(depth);
+        MoveOrdering ordering = search.getOrdering();
+        for (Layer layer : Layer.values())
+            ordering.setEnabled(layer, layers.contains(layer));
+        long nodes = 0;
+        long start = System.nanoTime();
+        for (GameBoard position : positions){
+            search.selectMove(position, scoreChecker, position.getMoveCount() % 2);
+            nodes += search.getNodes();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-22s %12d nodes %8.3f s %10.0f nodes/s%n", name, nodes, seconds, nodes / seconds);
+    }
+}
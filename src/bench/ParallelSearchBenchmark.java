@@ -0,0 +1,73 @@
+package bench;
+
+import core.GameBoard;
+import core.ParallelSearch;
+import core.ScoreChecker;
+import core.TranspositionTable;
+
+import java.util.Random;
+
+import static core.Constants.*;
+
+/**
+ * Measures how ParallelSearch scales with the number of workers: the time to search a fixed set of positions to
+ * a fixed depth, from one worker up to the number given (default: the number of cores).  Each run starts with a
+ * fresh transposition table.  Usage: ParallelSearchBenchmark [maxThreads] [depth]
+ * @author Kevin Somers
+ */
+public class ParallelSearchBenchmark {
+    private static final int POSITIONS = 8;
+    private static final int OPENINGPLIES = 8;
+
+    public static void main(String[] args){
+        int maxThreads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 16;
+        GameBoard[] positions = positions();
+        ScoreChecker scoreChecker = new ScoreChecker();
+        System.out.println(Runtime.getRuntime().availableProcessors() + " cores, depth " + depth);
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads++){
+            ParallelSearch search = new ParallelSearch(threads, Long.MAX_VALUE / 2000000, new TranspositionTable(64));
+            search.setMaxDepth(depth);
+            long nodes = 0;
+            long start = System.nanoTime();
+            for (GameBoard position : positions){
+                search.selectMove(position, scoreChecker, position.getMoveCount() % 2);
+                nodes += search.getNodes();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (threads == 1)
+                baseline = seconds;
+            System.out.printf("%2d threads %8.3f s %12d nodes %5.2fx speedup%n",
+                    threads, seconds, nodes, baseline / seconds);
+            search.close();
+        }
+    }
+
+    /**
+     * @return a fixed set of positions a few plies into a game, none of them already won
+     */
+    static GameBoard[] positions(){
+        Random rand = new Random(216);
+        GameBoard[] positions = new GameBoard[POSITIONS];
+        ScoreChecker scoreChecker = new ScoreChecker();
+        for (int i = 0; i < POSITIONS; i++){
+            GameBoard gameBoard;
+            boolean won;
+            do {
+                gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+                won = false;
+                for (int ply = 0; ply < OPENINGPLIES && !won; ply++){
+                    int col = rand.nextInt(NUMCOLUMNS);
+                    int row = gameBoard.putPiece(col, ply % 2);
+                    if (row == -1)
+                        ply--;
+                    else
+                        won = scoreChecker.gameHasWinner(gameBoard, row, col);
+                }
+            } while (won);
+            positions[i] = gameBoard;
+        }
+        return positions;
+    }
+}
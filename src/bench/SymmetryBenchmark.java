@@ -0,0 +1,127 @@
+package bench;
+
+import core.AlphaBetaSearch;
+import core.EvaluationCache;
+import core.GameBoard;
+import core.ScoreChecker;
+import core.TranspositionTable;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static core.Constants.*;
+
+/**
+ * Measures what folding mirror images together gains, three ways.  First, the positions of the first plies are
+ * counted once by Board.hashKey and once by Board.canonicalHashKey, the entries and bytes a table of all of them,
+ * such as the opening book, needs either way.  Second, the positions of ParallelSearchBenchmark are searched to a
+ * fixed depth with the transposition table keyed each way, at a small and a large table size, and the nodes, time
+ * and table hit rate are totalled.  Third, a small EvaluationCache is fed the positions of random games, their
+ * columns weighted towards the center like a human's, and its hit rate is compared keyed each way.
+ * Usage: SymmetryBenchmark [plies] [depth] [games]
+ * @author Kevin Somers
+ */
+public class SymmetryBenchmark {
+    private static final int BOOKENTRYBYTES = 16;
+    private static final int[] TABLEMEGABYTES = {1, 16};
+    private static final int CACHEENTRIES = 4096;
+    private static final int GAMEPLIES = 16;
+    private static final int[] COLUMNWEIGHTS = {1, 2, 3, 4, 3, 2, 1};
+
+    public static void main(String[] args){
+        int plies = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+        int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 14;
+        int games = (args.length > 2) ? Integer.parseInt(args[2]) : 100000;
+        ScoreChecker scoreChecker = new ScoreChecker();
+
+        Set<Long> keys = new HashSet<>();
+        Set<Long> canonicalKeys = new HashSet<>();
+        enumerate(new GameBoard(NUMROWS, NUMCOLUMNS), scoreChecker, plies, keys, canonicalKeys);
+        System.out.println("positions up to " + plies + " plies");
+        System.out.printf("%-10s %10d entries %12d bytes%n", "hashKey", keys.size(),
+                keys.size() * (long) BOOKENTRYBYTES);
+        System.out.printf("%-10s %10d entries %12d bytes %5.1f%% of hashKey%n", "canonical", canonicalKeys.size(),
+                canonicalKeys.size() * (long) BOOKENTRYBYTES, 100.0 * canonicalKeys.size() / keys.size());
+
+        GameBoard[] positions = ParallelSearchBenchmark.positions();
+        System.out.println("transposition table, depth " + depth + ", " + positions.length + " positions");
+        AlphaBetaSearch warmUp = new AlphaBetaSearch(Long.MAX_VALUE / 2000000, new TranspositionTable(1));
+        warmUp.setMaxDepth(depth);
+        for (GameBoard position : positions) //so the first configuration measured is not the one the JIT compiles
+            warmUp.selectMove(position, scoreChecker, position.getMoveCount() % 2);
+        for (int megabytes : TABLEMEGABYTES){
+            search("hashKey", false, megabytes, positions, scoreChecker, depth);
+            search("canonical", true, megabytes, positions, scoreChecker, depth);
+        }
+
+        System.out.println("evaluation cache of " + CACHEENTRIES + " entries, " + games + " games of "
+                + GAMEPLIES + " plies");
+        cache("hashKey", false, games);
+        cache("canonical", true, games);
+    }
+
+    /**
+     * adds the keys of a position and of every position reachable from it within plies, won positions end a line
+     */
+    private static void enumerate(GameBoard gameBoard, ScoreChecker scoreChecker, int plies, Set<Long> keys,
+                                  Set<Long> canonicalKeys){
+        if (!keys.add(gameBoard.hashKey()))
+            return;
+        canonicalKeys.add(gameBoard.canonicalHashKey());
+        if (plies == 0)
+            return;
+        int playerID = gameBoard.getMoveCount() % 2;
+        for (int col = 0; col < gameBoard.getColLength(); col++){
+            int row = gameBoard.putPiece(col, playerID);
+            if (row < 0)
+                continue;
+            if (!scoreChecker.gameHasWinner(gameBoard, row, col))
+                enumerate(gameBoard, scoreChecker, plies - 1, keys, canonicalKeys);
+            gameBoard.undoPiece(col);
+        }
+    }
+
+    private static void search(String name, boolean foldMirrors, int megabytes, GameBoard[] positions,
+                               ScoreChecker scoreChecker, int depth){
+        TranspositionTable table = new TranspositionTable(megabytes);
+        AlphaBetaSearch search = new AlphaBetaSearch(Long.MAX_VALUE / 2000000, table);
+        search.setMaxDepth(depth);
+        search.setMirrorFolding(foldMirrors);
+        long nodes = 0;
+        long start = System.nanoTime();
+        for (GameBoard position : positions){
+            search.selectMove(position, scoreChecker, position.getMoveCount() % 2);
+            nodes += search.getNodes();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-10s %3d MB %8d entries %8.3f s %12d nodes %5.1f%% hits%n",
+                name, megabytes, table.getCapacity(), seconds, nodes, 100 * table.getHitRate());
+    }
+
+    private static void cache(String name, boolean foldMirrors, int games){
+        EvaluationCache cache = new EvaluationCache(CACHEENTRIES);
+        Random rand = new Random(216);
+        int weights = 0;
+        for (int weight : COLUMNWEIGHTS)
+            weights += weight;
+        for (int game = 0; game < games; game++){
+            GameBoard gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+            for (int ply = 0; ply < GAMEPLIES; ply++){
+                long key = foldMirrors ? gameBoard.canonicalHashKey() : gameBoard.hashKey();
+                if (cache.probe(key) == 0)
+                    cache.store(key, 0, 0, 1);
+                int col;
+                do {
+                    int pick = rand.nextInt(weights);
+                    col = 0;
+                    while (pick >= COLUMNWEIGHTS[col])
+                        pick -= COLUMNWEIGHTS[col++];
+                } while (gameBoard.colIsFull(col));
+                gameBoard.putPiece(col, ply % 2);
+            }
+        }
+        System.out.printf("%-10s %5.1f%% hits %8d evictions%n", name, 100 * cache.getHitRate(),
+                cache.getEvictions());
+    }
+}
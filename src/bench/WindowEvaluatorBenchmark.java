@@ -0,0 +1,120 @@
+package bench;
+
+import core.Board;
+import core.GameBoard;
+import core.WindowEvaluator;
+
+import java.util.Random;
+
+import static core.Constants.*;
+
+/**
+ * Measures how many positions per second WindowEvaluator scores, three ways: walking the slots of every window
+ * with getPos the way ScoreChecker walks lines, evaluating from scratch with the window masks, and keeping the
+ * running score up to date as a checker is added and removed, which is what a search pays per node.  The same
+ * fixed set of random positions is used for all three.  Usage: WindowEvaluatorBenchmark [positions] [rounds]
+ * @author Kevin Somers
+ */
+public class WindowEvaluatorBenchmark {
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {-1, 1}};
+
+    public static void main(String[] args){
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+        WindowEvaluator evaluator = new WindowEvaluator(NUMROWS, NUMCOLUMNS, WINLENGTH);
+        GameBoard[] positions = positions(count);
+        System.out.println(evaluator.getWindowCount() + " windows, " + count + " positions x " + rounds + " rounds");
+        for (int pass = 0; pass < 2; pass++){ //the first pass warms up the JIT
+            long sum = 0;
+            long start = System.nanoTime();
+            for (int round = 0; round < rounds; round++)
+                for (GameBoard position : positions)
+                    sum += walk(position, 0);
+            report("grid walk", count * (long) rounds, System.nanoTime() - start, sum, pass);
+
+            sum = 0;
+            start = System.nanoTime();
+            for (int round = 0; round < rounds; round++)
+                for (GameBoard position : positions)
+                    sum += evaluator.evaluate(position, 0);
+            report("window masks", count * (long) rounds, System.nanoTime() - start, sum, pass);
+
+            //one add and remove of the last checker per position, the running score of the rest set up beforehand
+            sum = 0;
+            long nanos = 0;
+            for (GameBoard position : positions){
+                int col = position.getLastMove();
+                int player = (position.getMoveCount() - 1) % 2;
+                int row = position.undoPiece(col);
+                evaluator.reset(position);
+                position.putPiece(col, player);
+                start = System.nanoTime();
+                for (int round = 0; round < rounds; round++){
+                    evaluator.add(row, col, player);
+                    sum += evaluator.getScore(0);
+                    evaluator.remove(row, col, player);
+                }
+                nanos += System.nanoTime() - start;
+            }
+            report("incremental", count * (long) rounds, nanos, sum, pass);
+        }
+    }
+
+    private static void report(String name, long evaluations, long nanos, long checksum, int pass){
+        double seconds = nanos / 1e9;
+        if (pass > 0)
+            System.out.printf("%-14s %8.3f s %14.0f positions/s (checksum %d)%n",
+                    name, seconds, evaluations / seconds, checksum);
+    }
+
+    /**
+     * the evaluation WindowEvaluator replaces: every window visited slot by slot
+     */
+    private static int walk(Board gameBoard, int playerID){
+        int total = 0;
+        for (int[] direction : DIRECTIONS){
+            for (int r = 0; r < gameBoard.getRowLength(); r++){
+                for (int c = 0; c < gameBoard.getColLength(); c++){
+                    int endRow = r + (WINLENGTH - 1) * direction[0];
+                    if (gameBoard.isOutOfBounds(endRow, c + (WINLENGTH - 1) * direction[1]))
+                        continue;
+                    int mine = 0;
+                    int theirs = 0;
+                    for (int i = 0; i < WINLENGTH; i++){
+                        int owner = gameBoard.getPos(r + i * direction[0], c + i * direction[1]);
+                        if (owner == playerID)
+                            mine++;
+                        else if (owner != -1)
+                            theirs++;
+                    }
+                    if (theirs == 0 && mine > 0)
+                        total += 1 << (2 * (mine - 1));
+                    else if (mine == 0 && theirs > 0)
+                        total -= 1 << (2 * (theirs - 1));
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return random positions of between one checker and a full board
+     */
+    private static GameBoard[] positions(int count){
+        Random rand = new Random(69);
+        GameBoard[] positions = new GameBoard[count];
+        for (int i = 0; i < count; i++){
+            GameBoard gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+            int moves = 1 + rand.nextInt(NUMROWS * NUMCOLUMNS);
+            for (int ply = 0; ply < moves; ply++){
+                int col;
+                do {
+                    col = rand.nextInt(NUMCOLUMNS);
+                } while (gameBoard.colIsFull(col));
+                gameBoard.putPiece(col, ply % 2);
+            }
+            positions[i] = gameBoard;
+        }
+        return positions;
+    }
+}
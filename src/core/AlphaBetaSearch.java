@@ -0,0 +1,421 @@
+package core;
+
+/**
+ * AlphaBetaSearch is a MoveStrategy that searches the game tree with negamax and alpha-beta pruning.  The search
+ * is iteratively deepened until a per-move time budget runs out, so a move is always ready by the deadline and
+ * the best move of the deepest completed depth is played.  Moves are made and undone on the board itself, nothing
+ * is allocated per node.  Leaves that are neither won nor drawn are scored by how central each player's checkers
+ * are, or given a WindowEvaluator by the lines each player can still make, either way a running total kept up to
+ * date as moves are made and undone.  Given a TranspositionTable, positions
+ * reached again through another move order are answered from the table, and so are their mirror images, which
+ * share a canonical key and an entry.  The order moves are tried in is up to the search's MoveOrdering.
+ * @author Kevin Somers
+ */
+public class AlphaBetaSearch implements MoveStrategy {
+    public static final int WIN = 1000000;
+    private static final int CHECKINTERVAL = 1024;
+    private static final int MATETHRESHOLD = WIN / 2;
+
+    private long timeBudgetMillis;
+    private long deadline;
+    private int maxDepth = Integer.MAX_VALUE;
+    private long maxNodes = Long.MAX_VALUE;
+    private boolean aborted;
+    private boolean stopped;
+    private volatile boolean stopRequested;
+    private int startDepth = 1;
+    private int orderRotation;
+    private boolean helper;
+    private boolean foldMirrors = true;
+    private long nodes;
+    private long elapsedNanos;
+    private int depthReached;
+    private int score;
+    private MoveOrdering ordering = new MoveOrdering();
+    private int[][] plyMoves; //the ordered moves of the position at each ply
+    private int[] centrality;
+    private int[] positional;
+    private WindowEvaluator evaluator;
+    private Board board;
+    private ScoreChecker scoreChecker;
+    private TranspositionTable table;
+
+    /**
+     * creates a search that answers within the time budget without a transposition table
+     * @param timeBudgetMillis milliseconds the search may take per move
+     */
+    public AlphaBetaSearch(long timeBudgetMillis){
+        this(timeBudgetMillis, null);
+    }
+
+    /**
+     * creates a search that answers within the time budget
+     * @param timeBudgetMillis milliseconds the search may take per move
+     * @param table the transposition table to use, may be shared with other searches, or null for none
+     */
+    public AlphaBetaSearch(long timeBudgetMillis, TranspositionTable table){
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.table = table;
+    }
+
+    /**
+     * searches one ply deeper at a time until the time budget runs out or the result of the game is known.
+     * @param gameBoard the board in its current state, left unchanged when the search returns
+     * @param scoreChecker the ScoreChecker used to detect wins
+     * @param playerID the player the move is for
+     * @return the best column found
+     */
+    public int selectMove(Board gameBoard, ScoreChecker scoreChecker, int playerID){
+        long start = System.nanoTime();
+        this.deadline = start + this.timeBudgetMillis * 1000000L;
+        this.aborted = false;
+        this.stopped = false;
+        this.nodes = 0;
+        this.depthReached = 0;
+        this.score = 0;
+        this.board = gameBoard;
+        this.scoreChecker = scoreChecker;
+        setupOrdering(gameBoard);
+        if (this.evaluator != null)
+            this.evaluator.reset(gameBoard);
+        if (this.table != null && !this.helper)
+            this.table.newSearch();
+
+        int bestMove = -1;
+        int[] order = this.ordering.getBaseOrder();
+        for (int col : order){
+            if (!gameBoard.colIsFull(col)){
+                bestMove = col;
+                break;
+            }
+        }
+        int emptySlots = gameBoard.getRowLength() * gameBoard.getColLength() - gameBoard.getMoveCount();
+        int lastDepth = Math.min(emptySlots, this.maxDepth);
+        for (int depth = Math.min(this.startDepth, lastDepth); depth <= lastDepth && !this.aborted; depth++){
+            int alpha = -WIN - 1;
+            int iterationBest = -1;
+            //search the best move so far first, so even an unfinished iteration has a usable answer
+            for (int i = -1; i < order.length; i++){
+                int col = (i == -1) ? bestMove : order[i];
+                if ((i != -1 && col == bestMove) || gameBoard.colIsFull(col))
+                    continue;
+                int score = -searchChild(col, depth, -WIN - 1, -alpha, playerID, 0);
+                if (this.aborted)
+                    break;
+                if (score > alpha){
+                    alpha = score;
+                    iterationBest = col;
+                }
+            }
+            if (iterationBest != -1)
+                bestMove = iterationBest;
+            if (!this.aborted){
+                this.depthReached = depth;
+                this.score = alpha;
+            }
+            if (Math.abs(alpha) >= WIN - emptySlots)
+                break; //the result of the game is known, searching deeper will not change it
+        }
+        this.elapsedNanos = System.nanoTime() - start;
+        this.stopRequested = false;
+        this.board = null;
+        this.scoreChecker = null;
+        return bestMove;
+    }
+
+    /**
+     * negamax with alpha-beta pruning for the player to move
+     * @param depth plies left to search
+     * @param alpha lower bound of the window
+     * @param beta upper bound of the window
+     * @param playerID the player to move
+     * @param ply plies from the root, used to prefer quicker wins
+     * @return the score of the position for the player to move
+     */
+    private int negamax(int depth, int alpha, int beta, int playerID, int ply){
+        int alphaOrig = alpha;
+        int tableMove = -1;
+        long hashKey = this.board.hashKey();
+        boolean mirrored = false;
+        if (this.table != null){
+            long mirrorKey = this.board.mirrorHashKey();
+            if (this.foldMirrors && mirrorKey < hashKey){
+                hashKey = mirrorKey; //the table holds the canonical orientation, its move is mirrored both ways
+                mirrored = true;
+            }
+            long entry = this.table.probe(hashKey);
+            if (entry != 0){
+                tableMove = TranspositionTable.move(entry);
+                if (mirrored && tableMove != -1)
+                    tableMove = this.board.mirrorColumn(tableMove);
+                if (TranspositionTable.depth(entry) >= depth){
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int flag = TranspositionTable.flag(entry);
+                    if (flag == TranspositionTable.EXACT)
+                        return Math.max(alpha, Math.min(beta, score));
+                    if (flag == TranspositionTable.LOWERBOUND && score > alpha)
+                        alpha = score;
+                    else if (flag == TranspositionTable.UPPERBOUND && score < beta)
+                        beta = score;
+                    if (alpha >= beta)
+                        return alpha;
+                }
+            }
+        }
+        int bestMove = -1;
+        int[] moves = this.plyMoves[ply];
+        int first = this.ordering.first(this.board, tableMove);
+        int count = 0;
+        //the table move is searched before the rest are ordered, a cutoff on it makes ordering them unnecessary
+        for (int i = -1; i < count; i++){
+            int col = (i == -1) ? first : moves[i];
+            if (col != -1){
+                int score = -searchChild(col, depth, -beta, -alpha, playerID, ply);
+                if (this.aborted)
+                    return 0;
+                if (score > alpha){
+                    alpha = score;
+                    bestMove = col;
+                    if (alpha >= beta){
+                        this.ordering.cutoff(this.board, ply, playerID, col, depth);
+                        break;
+                    }
+                }
+            }
+            if (i == -1)
+                count = this.ordering.order(this.board, ply, playerID, first, moves);
+        }
+        if (this.table != null){
+            int flag = (alpha <= alphaOrig) ? TranspositionTable.UPPERBOUND
+                    : (alpha >= beta) ? TranspositionTable.LOWERBOUND : TranspositionTable.EXACT;
+            int move = (bestMove == -1) ? tableMove : bestMove;
+            this.table.store(hashKey, toTable(alpha, ply), depth, flag,
+                    (mirrored && move != -1) ? this.board.mirrorColumn(move) : move);
+        }
+        return alpha;
+    }
+
+    /**
+     * win and loss scores count plies from the root, the table stores them counted from the position itself so
+     * they stay correct when the position is reached at a different ply
+     * @param score the score relative to the root
+     * @param ply plies from the root to the position
+     * @return the score relative to the position
+     */
+    private static int toTable(int score, int ply){
+        if (score > MATETHRESHOLD)
+            return score + ply;
+        if (score < -MATETHRESHOLD)
+            return score - ply;
+        return score;
+    }
+
+    /**
+     * the inverse of toTable
+     * @param score the score relative to the position
+     * @param ply plies from the root to the position
+     * @return the score relative to the root
+     */
+    private static int fromTable(int score, int ply){
+        if (score > MATETHRESHOLD)
+            return score - ply;
+        if (score < -MATETHRESHOLD)
+            return score + ply;
+        return score;
+    }
+
+    /**
+     * makes a move, scores the resulting position from the opponent's point of view and undoes the move
+     * @param col the column to play
+     * @param depth plies left to search, including this move
+     * @param alpha lower bound of the window for the opponent
+     * @param beta upper bound of the window for the opponent
+     * @param playerID the player making the move
+     * @param ply plies from the root before the move
+     * @return the score of the position after the move for the opponent
+     */
+    private int searchChild(int col, int depth, int alpha, int beta, int playerID, int ply){
+        if (++this.nodes >= this.maxNodes){
+            this.aborted = true;
+        } else if (this.nodes % CHECKINTERVAL == 0){
+            if (this.stopRequested || Thread.currentThread().isInterrupted())
+                this.aborted = this.stopped = true;
+            else if (System.nanoTime() > this.deadline)
+                this.aborted = true;
+        }
+        int row = this.board.putPiece(col, playerID);
+        this.board.decrementSpot();
+        this.positional[playerID] += this.centrality[col];
+        if (this.evaluator != null)
+            this.evaluator.add(row, col, playerID);
+        int score;
+        if (this.scoreChecker.gameHasWinner(this.board, row, col))
+            score = -(WIN - ply - 1);
+        else if (this.board.getMoveCount() == this.board.getRowLength() * this.board.getColLength())
+            score = 0;
+        else if (depth == 1 && this.evaluator != null)
+            score = this.evaluator.getScore(1 - playerID);
+        else if (depth == 1)
+            score = this.positional[1 - playerID] - this.positional[playerID];
+        else
+            score = negamax(depth - 1, alpha, beta, 1 - playerID, ply + 1);
+        this.positional[playerID] -= this.centrality[col];
+        if (this.evaluator != null)
+            this.evaluator.remove(row, col, playerID);
+        this.board.undoPiece(col);
+        return score;
+    }
+
+    /**
+     * prepares the move ordering for the board and totals how central each player's checkers already are.
+     * @param gameBoard the board being searched
+     */
+    private void setupOrdering(Board gameBoard){
+        int cols = gameBoard.getColLength();
+        this.ordering.newSearch(gameBoard, this.orderRotation); //helpers of a parallel search rotate the order
+        this.plyMoves = new int[gameBoard.getRowLength() * cols + 1][cols];
+        this.centrality = new int[cols];
+        for (int col = 0; col < cols; col++)
+            this.centrality[col] = cols / 2 - Math.abs(col - (cols - 1) / 2);
+        this.positional = new int[2];
+        for (int row = 0; row < gameBoard.getRowLength(); row++){
+            for (int col = 0; col < cols; col++){
+                int owner = gameBoard.getPos(row, col);
+                if (owner != -1)
+                    this.positional[owner] += this.centrality[col];
+            }
+        }
+    }
+
+    /**
+     * limits how deep the search goes regardless of the time budget, mainly so benchmarks are repeatable
+     * @param maxDepth the deepest iteration to search
+     */
+    public void setMaxDepth(int maxDepth){
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * limits how many positions the search may visit per move, on top of the time budget.  Unlike the time
+     * budget a node budget ends the search at the same point on any machine under any load, so a search without
+     * a shared transposition table always answers a position the same way.  The search may go over by the moves
+     * it is in the middle of, one per ply.
+     * @param maxNodes positions the search may visit per move
+     */
+    public void setMaxNodes(long maxNodes){
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * accessor
+     * @return positions the search may visit per move, Long.MAX_VALUE if only the time budget applies
+     */
+    public long getMaxNodes(){
+        return this.maxNodes;
+    }
+
+    /**
+     * chooses whether a position and its mirror image share a table entry, which they do by default.  Turning it
+     * off is for measuring what the folding gains, searches sharing a table should all fold or all not fold.
+     * @param foldMirrors true to key the table by Board.canonicalHashKey, false to key it by Board.hashKey
+     */
+    public void setMirrorFolding(boolean foldMirrors){
+        this.foldMirrors = foldMirrors;
+    }
+
+    /**
+     * scores leaves by their windows instead of by how central the checkers are
+     * @param evaluator an evaluator the size of the boards searched, used by this search only, or null to go back
+     * to scoring by centrality
+     */
+    public void setEvaluator(WindowEvaluator evaluator){
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * asks a running search, possibly on another thread, to stop as soon as possible.  The search returns the
+     * best move it has completed, just as if its time budget had run out.  Interrupting the thread running the
+     * search stops it the same way, and leaves the thread interrupted.
+     */
+    public void stop(){
+        this.stopRequested = true;
+    }
+
+    /**
+     * configures the search as a helper of a ParallelSearch: it starts at a different depth and tries the
+     * columns in a rotated order so the helpers explore different parts of the tree, and it leaves ageing the
+     * shared table to the main search.
+     * @param startDepth the first iteration to search
+     * @param orderRotation how many places to rotate the column order
+     */
+    void makeHelper(int startDepth, int orderRotation){
+        this.helper = true;
+        this.startDepth = startDepth;
+        this.orderRotation = orderRotation;
+    }
+
+    /**
+     * accessor for the last search
+     * @return the number of positions visited
+     */
+    public long getNodes(){
+        return this.nodes;
+    }
+
+    /**
+     * accessor for the last search
+     * @return the deepest iteration that was searched completely
+     */
+    public int getDepthReached(){
+        return this.depthReached;
+    }
+
+    /**
+     * accessor for the last search
+     * @return true if stop or an interrupt ended the search, rather than its budgets or the result being known
+     */
+    public boolean wasStopped(){
+        return this.stopped;
+    }
+
+    /**
+     * accessor for the last search
+     * @return the score of the best move at the deepest completed iteration, from the searching player's point
+     * of view.  Scores beyond WIN minus the number of empty slots are proven wins, or losses when negative.
+     */
+    public int getScore(){
+        return this.score;
+    }
+
+    /**
+     * accessor for the last search
+     * @return positions visited per second, useful for sizing how many PvC games a server can host
+     */
+    public long getNodesPerSecond(){
+        return (this.elapsedNanos == 0) ? 0 : this.nodes * 1000000000L / this.elapsedNanos;
+    }
+
+    /**
+     * accessor, the layers of the ordering can be switched on and off between searches
+     * @return the move ordering of the search
+     */
+    public MoveOrdering getOrdering(){
+        return this.ordering;
+    }
+
+    /**
+     * accessor
+     * @return the transposition table used by the search, null if none
+     */
+    public TranspositionTable getTable(){
+        return this.table;
+    }
+
+    /**
+     * accessor
+     * @return milliseconds the search may take per move
+     */
+    public long getTimeBudgetMillis(){
+        return this.timeBudgetMillis;
+    }
+}
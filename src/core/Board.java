@@ -0,0 +1,166 @@
+package core;
+
+/**
+ * Board is the game board API shared by the server, the UIs and the computer player.  Rows are numbered
+ * from the top (row 0) down and columns from the left (column 0) right.  Empty slots read as -1, taken
+ * slots read as the ID of the player that owns them.
+ * @author Kevin Somers
+ */
+public interface Board {
+    //directions a line of checkers can run in
+    int VERTICAL = 0;
+    int HORIZONTAL = 1;
+    int DIAGONAL_DOWN = 2;
+    int DIAGONAL_UP = 3;
+
+    /**
+     * accessor method
+     * @param row row of interest
+     * @param col column of interest
+     * @return returns the integer value at the position (row,col), -1 if the slot is empty
+     */
+    int getPos(int row, int col);
+
+    /**
+     * places the players piece in the requested column by 'dropping' the checker to the bottom.
+     * @param col the column the player has requested to place a checker at
+     * @param playerID the current player requesting to put the checker on the board
+     * @return the integer value of the row the checker was placed at, or -1 if the column is full or out of bounds
+     */
+    int putPiece(int col, int playerID);
+
+    /**
+     * removes the top checker of the requested column, undoing a putPiece followed by decrementSpot
+     * @param col the column to take the top checker from
+     * @return the row the checker was removed from, or -1 if the column is empty or out of bounds
+     */
+    int undoPiece(int col);
+
+    /**
+     * accessor
+     * @return the number of checkers currently on the board
+     */
+    int getMoveCount();
+
+    /**
+     * accessor for the move stack
+     * @param index position in the move stack, 0 is the first checker dropped
+     * @return the column the checker at that position of the move stack was dropped in
+     */
+    int getMove(int index);
+
+    /**
+     * accessor for the number of checkers in a column
+     * @param col column of interest
+     * @return the number of checkers already dropped in the column
+     */
+    int getHeight(int col);
+
+    /**
+     * creates an independent board in the same state, for searches that run on several threads at once
+     * @return a copy of the board
+     */
+    Board copy();
+
+    /**
+     * accessor for the incrementally maintained Zobrist key of the position
+     * @return a 64-bit key that only depends on which player owns which slots
+     */
+    long hashKey();
+
+    /**
+     * accessor for the incrementally maintained Zobrist key of the position mirrored left to right
+     * @return the key hashKey would have if every checker in column c were in column getColLength() - 1 - c
+     */
+    long mirrorHashKey();
+
+    /**
+     * the key a position and its mirror image share, so a table keyed by it holds one entry for both.  Columns
+     * stored under it are stored for the canonical orientation, see canonicalColumn.
+     * @return the smaller of hashKey and mirrorHashKey
+     */
+    default long canonicalHashKey(){
+        return Math.min(hashKey(), mirrorHashKey());
+    }
+
+    /**
+     * checks which orientation canonicalHashKey belongs to
+     * @return true if canonicalHashKey is the key of the mirror image, so columns have to be mirrored
+     */
+    default boolean isCanonicalMirrored(){
+        return mirrorHashKey() < hashKey();
+    }
+
+    /**
+     * maps a column between the position and its canonical orientation.  The mapping is its own inverse, it
+     * turns a column about to be stored under canonicalHashKey into the one to store and a column read back
+     * into the one to play.
+     * @param col the column, -1 is passed through for no column
+     * @return the column in the other orientation
+     */
+    default int canonicalColumn(int col){
+        return (col < 0 || !isCanonicalMirrored()) ? col : mirrorColumn(col);
+    }
+
+    /**
+     * mirrors a column left to right
+     * @param col column of interest
+     * @return the column the same distance from the other side of the board
+     */
+    default int mirrorColumn(int col){
+        return getColLength() - 1 - col;
+    }
+
+    /**
+     * checks to see if the slot requested is already taken
+     * @param row row of interest
+     * @param col column of interest
+     * @return boolean of whether or not the specific (row,col) is taken by a Player
+     */
+    boolean slotIsTaken(int row, int col);
+
+    /**
+     * checks to see if the column is full (and therefore not accepting anymore checkers)
+     * @param col column of interest
+     * @return boolean indicating whether the entire column is already full
+     */
+    boolean colIsFull(int col);
+
+    /**
+     * accessor method for the board's column length
+     * @return integer of the total number of columns
+     */
+    int getColLength();
+
+    /**
+     * accessor method for the board's row length
+     * @return integer of the total number of rows
+     */
+    int getRowLength();
+
+    /**
+     * checks whether the row,col pair is within bounds of the board
+     * @param row row of interest
+     * @param col column of interest
+     * @return boolean indicating whether the (row,col) slot is out of bounds or not
+     */
+    boolean isOutOfBounds(int row, int col);
+
+    /**
+     * checks whether the column is within bounds of the board
+     * @param col column of interest
+     * @return boolean indicating whether the column is out of bounds or not
+     */
+    boolean isOutOfBounds(int col);
+
+    /**
+     * accessor
+     * @return the number of spots remaining on the board
+     */
+    int getSpots();
+
+    /**
+     * reduces the number of remaining spots by one
+     */
+    void decrementSpot();
+}
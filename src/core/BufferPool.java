@@ -0,0 +1,95 @@
+package core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * BufferPool hands out direct ByteBuffers of one size and takes them back for reuse, so the selector transport
+ * reads and writes sockets without allocating, and without the copy the JDK makes through a temporary direct
+ * buffer when a heap buffer is written to a channel.  A connection only holds buffers while it has bytes in
+ * flight: an idle connection holds none, which keeps memory flat however many are open.  Buffers released
+ * while the pool already keeps its maximum are left to the garbage collector.  Safe to use from any thread.
+ * @author Kevin Somers
+ */
+public class BufferPool {
+    private final int bufferBytes;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder acquired = new LongAdder();
+
+    /**
+     * creates an empty pool, buffers are allocated as they are first needed
+     * @param bufferBytes the capacity of every buffer
+     * @param maxPooled how many released buffers the pool keeps for reuse
+     * @throws IllegalArgumentException if bufferBytes is less than one or maxPooled is negative
+     */
+    public BufferPool(int bufferBytes, int maxPooled){
+        if (bufferBytes < 1 || maxPooled < 0)
+            throw new IllegalArgumentException("a buffer pool needs buffers of at least one byte");
+        this.bufferBytes = bufferBytes;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * takes a buffer from the pool, or allocates one if the pool is empty
+     * @return a cleared buffer of getBufferBytes capacity
+     */
+    public ByteBuffer acquire(){
+        this.acquired.increment();
+        ByteBuffer buffer = this.free.poll();
+        if (buffer == null){
+            this.allocated.increment();
+            return ByteBuffer.allocateDirect(this.bufferBytes);
+        }
+        this.pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * gives a buffer back, it must not be used afterwards
+     * @param buffer a buffer acquired from this pool
+     */
+    public void release(ByteBuffer buffer){
+        if (this.pooled.incrementAndGet() <= this.maxPooled)
+            this.free.offer(buffer);
+        else
+            this.pooled.decrementAndGet();
+    }
+
+    /**
+     * accessor
+     * @return the capacity of every buffer
+     */
+    public int getBufferBytes(){
+        return this.bufferBytes;
+    }
+
+    /**
+     * accessor
+     * @return buffers allocated so far, a steady number once the pool has warmed up
+     */
+    public long getAllocated(){
+        return this.allocated.sum();
+    }
+
+    /**
+     * accessor
+     * @return buffers handed out so far, new or reused
+     */
+    public long getAcquired(){
+        return this.acquired.sum();
+    }
+
+    /**
+     * accessor
+     * @return buffers waiting in the pool to be reused
+     */
+    public int getPooled(){
+        return this.pooled.get();
+    }
+}
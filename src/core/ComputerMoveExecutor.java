@@ -0,0 +1,385 @@
+package core;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ComputerMoveExecutor runs the computer's moves for every player vs computer session of a server on one small
+ * pool of threads, so a burst of PvC games can not take every core away from the threads moving checkers for
+ * the other sessions.  Requests wait in a queue of limited length and each has a deadline counted from when it
+ * was made:
+ * <ul>
+ *     <li>a request finding the queue full is answered by the player's quick fallback search on the session's
+ *     own thread</li>
+ *     <li>a request still waiting in the queue at its deadline is withdrawn and answered the same way</li>
+ *     <li>a request still being searched at its deadline has its search stopped and gets the best move found
+ *     so far</li>
+ *     <li>a search that does not return within a grace period of being stopped, such as a perfect-play solve,
+ *     is left to finish on its own and the request is answered by the fallback search, and so are the player's
+ *     requests until it has finished</li>
+ * </ul>
+ * A search is stopped by interrupting the thread searching it, which only ever reaches the request's own
+ * search: once the search has returned the thread is no longer interrupted, so a stop arriving late can not cut
+ * short the player's next search.  The strategies searching on ForkJoin workers, ParallelSearch and
+ * MonteCarloTreeSearch, pass the interrupt on to their workers, so stopping them frees the workers too.
+ * The time requests spend waiting in the queue and being searched is measured separately, so an overloaded
+ * pool (long waits) can be told apart from a slow search (long compute).
+ * @author Kevin Somers
+ */
+public class ComputerMoveExecutor {
+    private final ThreadPoolExecutor pool;
+    private final long deadlineMillis;
+    private final long stopWaitMillis;
+    private final Set<Connect4ComputerPlayer> searching = ConcurrentHashMap.newKeySet();
+    private final Set<Runnable> spareStops = ConcurrentHashMap.newKeySet(); //of the spare work running
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder computed = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder computeNanos = new LongAdder();
+    private final LongAdder saturated = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder stopped = new LongAdder();
+    private final LongAdder overrun = new LongAdder();
+    private final LongAdder ponderHits = new LongAdder();
+    private final LongAdder ponderMisses = new LongAdder();
+    private final LongAdder preempted = new LongAdder();
+
+    /**
+     * creates the pool, its threads are daemons so they never keep the server's process alive.  A search stopped
+     * at its deadline has Constants.COMPUTESTOPMILLIS to return.
+     * @param threads the number of moves searched at once
+     * @param queueLimit how many requests may wait for a thread before new ones fall back
+     * @param deadlineMillis milliseconds from a request being made to its answer, waiting included
+     * @throws IllegalArgumentException if threads or queueLimit is less than one
+     */
+    public ComputerMoveExecutor(int threads, int queueLimit, long deadlineMillis){
+        this(threads, queueLimit, deadlineMillis, Constants.COMPUTESTOPMILLIS);
+    }
+
+    /**
+     * creates the pool, its threads are daemons so they never keep the server's process alive
+     * @param threads the number of moves searched at once
+     * @param queueLimit how many requests may wait for a thread before new ones fall back
+     * @param deadlineMillis milliseconds from a request being made to its answer, waiting included
+     * @param stopWaitMillis milliseconds a search stopped at the deadline has to return before the fallback
+     *                       search answers instead
+     * @throws IllegalArgumentException if threads or queueLimit is less than one
+     */
+    public ComputerMoveExecutor(int threads, int queueLimit, long deadlineMillis, long stopWaitMillis){
+        if (threads < 1 || queueLimit < 1)
+            throw new IllegalArgumentException("a computer move executor needs at least one thread and queue slot");
+        AtomicInteger threadNo = new AtomicInteger(1);
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "computer-move-" + threadNo.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueLimit), factory, new ThreadPoolExecutor.AbortPolicy());
+        this.deadlineMillis = deadlineMillis;
+        this.stopWaitMillis = stopWaitMillis;
+    }
+
+    /**
+     * the pool thread searching one request, so the request's search and no other can be stopped
+     */
+    private static final class Searcher {
+        private Thread thread; //guarded by this
+
+        synchronized void started(){
+            this.thread = Thread.currentThread();
+        }
+
+        /**
+         * clears an interrupt that arrived too late to stop the search, before the thread moves on
+         */
+        synchronized void finished(){
+            this.thread = null;
+            Thread.interrupted();
+        }
+
+        /**
+         * @return true if the search was still running and has been told to stop
+         */
+        synchronized boolean stop(){
+            if (this.thread == null)
+                return false;
+            this.thread.interrupt();
+            return true;
+        }
+    }
+
+    /**
+     * creates the pool a server shares between its sessions: one thread per core but one, left for the threads
+     * serving the players, Constants.COMPUTEQUEUELIMIT requests deep with a deadline of
+     * Constants.COMPUTEDEADLINEMILLIS
+     * @return the new executor
+     */
+    public static ComputerMoveExecutor forServer(){
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        return new ComputerMoveExecutor(threads, Constants.COMPUTEQUEUELIMIT, Constants.COMPUTEDEADLINEMILLIS);
+    }
+
+    /**
+     * gets the computer's move from the pool, blocking the calling session until it is known.  The search runs
+     * on a copy of the board, so a search still winding down after its deadline never touches the game.
+     * @param player the computer player to move
+     * @param gameBoard the board in its current state
+     * @param scoreChecker the ScoreChecker used to detect wins
+     * @return the column of the computer's choosing
+     */
+    public int selectMove(Connect4ComputerPlayer player, GameBoard gameBoard, ScoreChecker scoreChecker){
+        this.requests.increment();
+        if (this.searching.contains(player)){ //the player's last search overran and is still running
+            this.overrun.increment();
+            return player.getFallbackMove(gameBoard, scoreChecker);
+        }
+        long submitted = System.nanoTime();
+        long deadline = submitted + this.deadlineMillis * 1000000L;
+        GameBoard copy = gameBoard.copy();
+        AtomicBoolean claimed = new AtomicBoolean(); //taken by whichever of the pool and the deadline comes first
+        Searcher searcher = new Searcher();
+        FutureTask<Integer> task = new FutureTask<>(() -> {
+            if (!claimed.compareAndSet(false, true))
+                return -1; //withdrawn at its deadline
+            long started = System.nanoTime();
+            this.queueWaitNanos.add(started - submitted);
+            this.searching.add(player);
+            searcher.started();
+            try {
+                return player.getMove(copy, scoreChecker);
+            } finally {
+                searcher.finished();
+                this.searching.remove(player);
+                this.computeNanos.add(System.nanoTime() - started);
+                this.computed.increment();
+            }
+        });
+        try {
+            this.pool.execute(task);
+        } catch (RejectedExecutionException ex){
+            this.saturated.increment();
+            return player.getFallbackMove(gameBoard, scoreChecker);
+        }
+        if (hasWaitingRequests())
+            preemptSpare();
+        try {
+            return task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex){
+            if (claimed.compareAndSet(false, true)){ //never started, withdraw it from the queue
+                this.pool.remove(task);
+                this.expired.increment();
+                return player.getFallbackMove(gameBoard, scoreChecker);
+            }
+            if (searcher.stop())
+                this.stopped.increment();
+            return awaitStopped(task, player, gameBoard, scoreChecker);
+        } catch (InterruptedException ex){
+            if (!claimed.compareAndSet(false, true))
+                searcher.stop();
+            Thread.currentThread().interrupt();
+            return player.getFallbackMove(gameBoard, scoreChecker);
+        } catch (ExecutionException ex){
+            return player.getFallbackMove(gameBoard, scoreChecker);
+        }
+    }
+
+    /**
+     * waits for a search that has been told to stop, for no longer than the grace period.  A search that does not
+     * notice being stopped is left to finish, the player is answered by the fallback search until it has.
+     */
+    private int awaitStopped(FutureTask<Integer> task, Connect4ComputerPlayer player, GameBoard gameBoard,
+                             ScoreChecker scoreChecker){
+        try {
+            return task.get(this.stopWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex){
+            this.overrun.increment();
+            return player.getFallbackMove(gameBoard, scoreChecker);
+        } catch (InterruptedException ex){
+            Thread.currentThread().interrupt();
+            return player.getFallbackMove(gameBoard, scoreChecker);
+        } catch (ExecutionException ex){
+            return player.getFallbackMove(gameBoard, scoreChecker);
+        }
+    }
+
+    /**
+     * runs speculative work such as pondering on a thread that would otherwise be idle.  It is never queued:
+     * it only starts if a thread is free and no request is waiting.  As soon as a request has to wait for a
+     * thread the work is told to stop and should give its thread back quickly.
+     * @param work the work to run
+     * @param stop tells the work to stop, called from whichever thread made the request, at most once
+     * @return the work's future, or null if there is no spare thread
+     */
+    public Future<?> submitSpare(Runnable work, Runnable stop){
+        if (this.pool.getActiveCount() >= this.pool.getMaximumPoolSize() || hasWaitingRequests())
+            return null;
+        this.spareStops.add(stop);
+        try {
+            return this.pool.submit(() -> {
+                try {
+                    work.run();
+                } finally {
+                    this.spareStops.remove(stop);
+                }
+            });
+        } catch (RejectedExecutionException ex){
+            this.spareStops.remove(stop);
+            return null;
+        }
+    }
+
+    /**
+     * stops every piece of spare work running, so the requests waiting get their threads
+     */
+    private void preemptSpare(){
+        for (Runnable stop : this.spareStops){
+            if (this.spareStops.remove(stop)){ //whoever removes it stops it
+                this.preempted.increment();
+                stop.run();
+            }
+        }
+    }
+
+    /**
+     * accessor
+     * @return true if a request is waiting for a thread
+     */
+    public boolean hasWaitingRequests(){
+        return !this.pool.getQueue().isEmpty();
+    }
+
+    /**
+     * counts whether a Ponderer had already searched the move the human went on to make
+     * @param hit true if the pondered answer was played
+     */
+    public void recordPonder(boolean hit){
+        if (hit)
+            this.ponderHits.increment();
+        else
+            this.ponderMisses.increment();
+    }
+
+    /**
+     * accessor
+     * @return the number of computer moves answered from pondering
+     */
+    public long getPonderHits(){
+        return this.ponderHits.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of turns pondered without the human's move being searched to the end
+     */
+    public long getPonderMisses(){
+        return this.ponderMisses.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of times spare work was stopped to make way for a request
+     */
+    public long getSparePreemptions(){
+        return this.preempted.sum();
+    }
+
+    /**
+     * stops taking requests, searches already running finish
+     */
+    public void shutdown(){
+        this.pool.shutdown();
+    }
+
+    /**
+     * accessor
+     * @return the number of requests waiting for a thread right now
+     */
+    public int getQueueDepth(){
+        return this.pool.getQueue().size();
+    }
+
+    /**
+     * accessor
+     * @return the number of moves requested
+     */
+    public long getRequests(){
+        return this.requests.sum();
+    }
+
+    /**
+     * accessor
+     * @return mean milliseconds a searched request waited in the queue before a thread picked it up
+     */
+    public double getMeanQueueWaitMillis(){
+        long count = this.computed.sum();
+        return (count == 0) ? 0 : this.queueWaitNanos.sum() / 1e6 / count;
+    }
+
+    /**
+     * accessor
+     * @return mean milliseconds a thread spent searching a request
+     */
+    public double getMeanComputeMillis(){
+        long count = this.computed.sum();
+        return (count == 0) ? 0 : this.computeNanos.sum() / 1e6 / count;
+    }
+
+    /**
+     * accessor
+     * @return the number of requests answered by the fallback search because the queue was full
+     */
+    public long getSaturatedFallbacks(){
+        return this.saturated.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of requests answered by the fallback search because they waited past their deadline
+     */
+    public long getExpiredFallbacks(){
+        return this.expired.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of searches stopped at their deadline
+     */
+    public long getDeadlineStops(){
+        return this.stopped.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of requests answered by the fallback search because the player's search did not return
+     * in time after being stopped, or was still running from an earlier request
+     */
+    public long getOverrunFallbacks(){
+        return this.overrun.sum();
+    }
+
+    /**
+     * summarizes the metrics in one line for the server's log
+     * @return the summary
+     */
+    public String getStatistics(){
+        return String.format("%d computer moves: wait %.1f ms, compute %.1f ms, queued %d,"
+                        + " fallbacks %d saturated %d expired %d overrun, %d stopped at deadline,"
+                        + " pondered %d hit %d missed %d preempted",
+                getRequests(), getMeanQueueWaitMillis(), getMeanComputeMillis(), getQueueDepth(),
+                getSaturatedFallbacks(), getExpiredFallbacks(), getOverrunFallbacks(), getDeadlineStops(),
+                getPonderHits(), getPonderMisses(), getSparePreemptions());
+    }
+}
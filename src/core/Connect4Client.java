@@ -4,13 +4,13 @@ package core;
 import java.io.*;
 import java.net.Socket;
 
-import static core.Constants.NUMCOLUMNS;
-import static core.Constants.NUMROWS;
+import static core.Constants.*;
 
 /**
  * Connect4Client is what all clients use to connect to the Connect4 Server.
  * This class creates ObjectInput and ObjectOutput streams for the clients to
- * use for communication with the server.
+ * use for communication with the server.  In delta mode the client keeps its own GameBoard, the server only
+ * sends the opponent's last move, and the whole board is only asked for when the local copy stops matching.
  * @author Kevin Somers
  */
 public class Connect4Client {
@@ -18,6 +18,10 @@ public class Connect4Client {
     // Input and output streams from/to server
     private ObjectOutputStream toServer;
     private ObjectInputStream fromServer;
+    private boolean deltaMode;
+    private GameBoard localBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+    private int lastStatus;
+    private int resyncs;
 
     /**
      * initialize object or exit if failure to connect to the server.
@@ -35,6 +39,26 @@ public class Connect4Client {
         }
     }
 
+    /**
+     * asks the server to send moves instead of whole boards each turn, must be sent before the game type.
+     * @throws IOException throws if there is a failure to communicate with server.
+     */
+    public void requestDeltaMode() throws IOException {
+        toServer.writeChar(DELTAMODE);
+        toServer.flush();
+        deltaMode = true;
+    }
+
+    /**
+     * asks the server for a computer player of the given strength, must be sent before the game type.
+     * @param difficulty how strong the computer should play
+     * @throws IOException throws if there is a failure to communicate with server.
+     */
+    public void requestDifficulty(Difficulty difficulty) throws IOException {
+        toServer.writeChar(difficulty.getCode());
+        toServer.flush();
+    }
+
     /**
      * sends the game type, either player vs player or player vs computer
      * @param gameType either 'P' or 'C' to indicate PvP or PvC, respectively.
@@ -52,7 +76,8 @@ public class Connect4Client {
      * @throws IOException throws if there is a failure to communicate with server.
      */
     public int getGameStatus() throws IOException {
-        return fromServer.readInt();
+        lastStatus = fromServer.readInt();
+        return lastStatus;
     }
 
     /**
@@ -68,11 +93,45 @@ public class Connect4Client {
     }
 
     /**
-     * receive the updated game board from the server
+     * receive the updated game board from the server.  In delta mode during a game the opponent's last move is
+     * applied to the local board, whoever made move number n is worked out from n since player 0 always moves
+     * first.  If the local board then does not have the server's number of checkers and Zobrist key the whole
+     * board is requested.  The board returned in delta mode is the local board, the caller is expected to put
+     * its own accepted moves on it just like with a board recvd in full.
      * @return returns the gameboard recvd over the socket
      * @throws IOException in the event of socket failure
      */
     public GameBoard getGameBoard() throws IOException {
+        if (!deltaMode || lastStatus != CONTINUE)
+            return localBoard = readGameBoard();
+        int lastMove = fromServer.readInt();
+        int moveCount = fromServer.readInt();
+        long hashKey = fromServer.readLong();
+        if (lastMove != -1 && localBoard.getMoveCount() == moveCount - 1)
+            localBoard.putPiece(lastMove, (moveCount - 1) % 2);
+        if (localBoard.getMoveCount() != moveCount || localBoard.hashKey() != hashKey){
+            resyncs++;
+            toServer.writeInt(RESYNC);
+            toServer.flush();
+            localBoard = readGameBoard();
+        }
+        return localBoard;
+    }
+
+    /**
+     * accessor
+     * @return the number of times the whole board had to be requested in delta mode
+     */
+    public int getResyncs(){
+        return resyncs;
+    }
+
+    /**
+     * receive a whole game board from the server
+     * @return returns the gameboard recvd over the socket
+     * @throws IOException in the event of socket failure
+     */
+    private GameBoard readGameBoard() throws IOException {
         try {
             return (GameBoard) fromServer.readObject();
         } catch (ClassNotFoundException e) {
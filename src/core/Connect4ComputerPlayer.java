@@ -1,12 +1,31 @@
 package core;
 
 import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Connect4ComputerPlayer is a specialization of the Player class, this represents a computer player.
+ * The computer's moves are chosen by a MoveStrategy, by default the HARD Difficulty: an AlphaBetaSearch that
+ * answers within Constants.COMPUTERMOVEMILLIS using the transposition table shared by every computer player in
+ * the process.  The weaker tiers also play a random column now and then, decided by the seed of the game and
+ * the position alone, so the same seed and the same moves always get the same replies.
+ * Positions found in the opening book are answered from the book without searching, and so are positions found
+ * in the EvaluationCache, which every default computer player in the process shares and adds its searches to.
+ * Like the book the cache is keyed by Board.canonicalHashKey, so a search also answers the mirrored position.
+ * Only searches that ran their course to at least Constants.EVALCACHEMINDEPTH are added to the cache, and a
+ * cached answer is only played if it was searched as deep as the player's own last search went, so a shallow
+ * answer never stands in for the search the player would have made.
  * @author Kevin Somers
  */
 public class Connect4ComputerPlayer extends Player{
+    private MoveStrategy strategy;
+    private OpeningBook book;
+    private EvaluationCache cache;
+    private MoveStrategy fallback;
+    private Difficulty difficulty;
+    private long seed;
+    private volatile int searchDepth; //reached by the player's last search that was not stopped
+    private Random random = new Random();
 
     /**
      * player constructor, initializes the player
@@ -15,18 +34,221 @@ public class Connect4ComputerPlayer extends Player{
      * @param isHuman for the computer player this is always false
      */
     public Connect4ComputerPlayer(int id, boolean isHuman) {
+        this(id, isHuman, Difficulty.HARD, System.nanoTime());
+    }
+
+    /**
+     * player constructor, initializes the player to play at a difficulty
+     *
+     * @param id     integer identification number for the player, this is what is used on the backend for the board.
+     * @param isHuman for the computer player this is always false
+     * @param difficulty how strong the computer plays
+     * @param seed decides the random columns the computer plays, the same seed gives the same game
+     */
+    public Connect4ComputerPlayer(int id, boolean isHuman, Difficulty difficulty, long seed) {
+        this(id, isHuman, difficulty.createStrategy(), difficulty.usesBook() ? OpeningBook.shared() : null,
+                difficulty.usesCache() ? EvaluationCache.shared() : null);
+        this.difficulty = difficulty;
+        this.seed = seed;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * player constructor, initializes the player with the strategy used to choose its moves
+     *
+     * @param id     integer identification number for the player, this is what is used on the backend for the board.
+     * @param isHuman for the computer player this is always false
+     * @param strategy decides the computer's moves
+     */
+    public Connect4ComputerPlayer(int id, boolean isHuman, MoveStrategy strategy) {
+        this(id, isHuman, strategy, null);
+    }
+
+    /**
+     * player constructor, initializes the player with the strategy used to choose its moves and a book of openings
+     *
+     * @param id     integer identification number for the player, this is what is used on the backend for the board.
+     * @param isHuman for the computer player this is always false
+     * @param strategy decides the computer's moves outside the book
+     * @param book the opening book consulted before the strategy, or null to always use the strategy
+     */
+    public Connect4ComputerPlayer(int id, boolean isHuman, MoveStrategy strategy, OpeningBook book) {
+        this(id, isHuman, strategy, book, null);
+    }
+
+    /**
+     * player constructor, initializes the player with the strategy used to choose its moves, a book of openings
+     * and a cache of positions already searched
+     *
+     * @param id     integer identification number for the player, this is what is used on the backend for the board.
+     * @param isHuman for the computer player this is always false
+     * @param strategy decides the computer's moves outside the book and the cache
+     * @param book the opening book consulted before the strategy, or null to always use the strategy
+     * @param cache the cache consulted after the book and given the strategy's results, or null for none
+     */
+    public Connect4ComputerPlayer(int id, boolean isHuman, MoveStrategy strategy, OpeningBook book,
+                                  EvaluationCache cache) {
         super(id, isHuman);
+        this.strategy = strategy;
+        this.book = book;
+        this.cache = cache;
     }
 
     /**
-     * currently use the naive algorithm of random guesses to generate a random number
-     * for the computers choice.
+     * plays the book move if the position is in the opening book, or the cached move if the position was already
+     * searched.  Otherwise the difficulty may call for a random column, and if not the strategy is asked for the
+     * computer's choice, falling back on a random column should the strategy come back with a column that can
+     * not be played.
      * @param gameBoard the gameboard in use for the game
-     * @param scoreChecker currently does not use the scorechecker but a more intelligent algorithm would use this.
+     * @param scoreChecker used by the strategy to detect wins
      * @return returns int representing the column of the computers choosing
      */
     public int getMove(GameBoard gameBoard, ScoreChecker scoreChecker){
-        return getRandMove(gameBoard);
+        return getMove(gameBoard, scoreChecker, strategy);
+    }
+
+    /**
+     * getMove with a strategy other than the player's own, used by a Ponderer searching with a copy of it
+     * @param gameBoard the gameboard in use for the game
+     * @param scoreChecker used by the strategy to detect wins
+     * @param searchStrategy the strategy to ask when the position is not in the book
+     * @return returns int representing the column of the computers choosing
+     */
+    int getMove(GameBoard gameBoard, ScoreChecker scoreChecker, MoveStrategy searchStrategy){
+        int bookCol = getBookMove(gameBoard);
+        if (bookCol >= 0)
+            return bookCol;
+        int cachedCol = getCachedMove(gameBoard);
+        if (cachedCol >= 0)
+            return cachedCol;
+        int mistakeCol = getMistakeMove(gameBoard);
+        if (mistakeCol >= 0)
+            return mistakeCol;
+        int col = searchStrategy.selectMove(gameBoard, scoreChecker, getID());
+        if (gameBoard.isOutOfBounds(col) || gameBoard.colIsFull(col))
+            return getRandMove(gameBoard);
+        int depth = searchStrategy.getDepthReached();
+        if (!searchStrategy.wasStopped() && depth > 0){
+            searchDepth = depth;
+            if (cache != null && depth >= Constants.EVALCACHEMINDEPTH)
+                cache.store(gameBoard.canonicalHashKey(), gameBoard.canonicalColumn(col), searchStrategy.getScore(),
+                        depth);
+        }
+        return col;
+    }
+
+    /**
+     * answers quickly with a shallow search when the strategy can not be run, such as when the server's
+     * ComputerMoveExecutor is saturated.  The book and the cache are still consulted first, the shallow search
+     * is not added to the cache.
+     * @param gameBoard the gameboard in use for the game
+     * @param scoreChecker used by the search to detect wins
+     * @return returns int representing the column of the computers choosing
+     */
+    public int getFallbackMove(GameBoard gameBoard, ScoreChecker scoreChecker){
+        int bookCol = getBookMove(gameBoard);
+        if (bookCol >= 0)
+            return bookCol;
+        int cachedCol = getCachedMove(gameBoard);
+        if (cachedCol >= 0)
+            return cachedCol;
+        if (fallback == null)
+            fallback = new AlphaBetaSearch(Constants.FALLBACKMOVEMILLIS);
+        int col = fallback.selectMove(gameBoard, scoreChecker, getID());
+        if (gameBoard.isOutOfBounds(col) || gameBoard.colIsFull(col))
+            return getRandMove(gameBoard);
+        return col;
+    }
+
+    /**
+     * creates a fresh strategy searching like the player's own, for pondering on another thread.  Only an
+     * AlphaBetaSearch can be copied, it keeps the time and node budgets and shares the transposition table so the
+     * positions pondered are found again by the real search.
+     * @return the copy, or null if the player's strategy can not ponder
+     */
+    public MoveStrategy createPonderStrategy(){
+        if (!(strategy instanceof AlphaBetaSearch))
+            return null;
+        AlphaBetaSearch search = (AlphaBetaSearch) strategy;
+        AlphaBetaSearch copy = new AlphaBetaSearch(search.getTimeBudgetMillis(), search.getTable());
+        copy.setMaxNodes(search.getMaxNodes());
+        return copy;
+    }
+
+    /**
+     * accessor
+     * @return the strategy deciding the computer's moves
+     */
+    public MoveStrategy getStrategy(){
+        return strategy;
+    }
+
+    /**
+     * accessor
+     * @return how strong the computer plays, null if the player was given its strategy directly
+     */
+    public Difficulty getDifficulty(){
+        return difficulty;
+    }
+
+    /**
+     * accessor
+     * @return the seed the random columns are decided by, 0 if the player was given its strategy directly
+     */
+    public long getSeed(){
+        return seed;
+    }
+
+    /**
+     * looks the position up in the opening book
+     * @param gameBoard the gameboard in use for the game
+     * @return the book's column, or -1 if there is no book or the position is not in it
+     */
+    private int getBookMove(GameBoard gameBoard){
+        if (book == null)
+            return -1;
+        int bookCol = book.lookup(gameBoard);
+        return (bookCol >= 0 && !gameBoard.colIsFull(bookCol)) ? bookCol : -1;
+    }
+
+    /**
+     * looks the position up in the evaluation cache
+     * @param gameBoard the gameboard in use for the game
+     * @return the cached column, or -1 if there is no cache, the position is not in it or was searched less deep
+     * than the player searches
+     */
+    private int getCachedMove(GameBoard gameBoard){
+        if (cache == null)
+            return -1;
+        long entry = cache.probe(gameBoard.canonicalHashKey());
+        if (entry == 0 || EvaluationCache.depth(entry) < Math.max(Constants.EVALCACHEMINDEPTH, searchDepth))
+            return -1;
+        int cachedCol = gameBoard.canonicalColumn(EvaluationCache.move(entry));
+        return (!gameBoard.isOutOfBounds(cachedCol) && !gameBoard.colIsFull(cachedCol)) ? cachedCol : -1;
+    }
+
+    /**
+     * decides whether the difficulty calls for a random column in this position.  The decision and the column
+     * only depend on the seed and the position, not on how many moves were asked for before, so pondering a
+     * position or asking for it again makes no difference.
+     * @param gameBoard the gameboard in use for the game
+     * @return a random column that is not full, or -1 to play the strategy's move
+     */
+    private int getMistakeMove(GameBoard gameBoard){
+        if (difficulty == null || difficulty.getMistakeRate() == 0)
+            return -1;
+        SplittableRandom rand = new SplittableRandom(seed ^ gameBoard.hashKey());
+        if (rand.nextDouble() >= difficulty.getMistakeRate())
+            return -1;
+        int open = 0;
+        for (int col = 0; col < gameBoard.getColLength(); col++)
+            if (!gameBoard.colIsFull(col))
+                open++;
+        int choice = rand.nextInt(open);
+        for (int col = 0; col < gameBoard.getColLength(); col++)
+            if (!gameBoard.colIsFull(col) && choice-- == 0)
+                return col;
+        return -1;
     }
 
     /**
@@ -37,9 +259,8 @@ public class Connect4ComputerPlayer extends Player{
      * @return an integer representing the column of choice
      */
     private int getRandMove(GameBoard gameBoard){
-        Random rand = new Random();
         while(true){
-            int randomNum = rand.nextInt((gameBoard.getColLength() - 1) + 1);
+            int randomNum = random.nextInt((gameBoard.getColLength() - 1) + 1);
             if (randomNum >= 0
                     && (randomNum <= gameBoard.getColLength() - 1)
                     && !gameBoard.colIsFull(randomNum))
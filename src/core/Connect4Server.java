@@ -1,52 +1,101 @@
 package core;
 
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static core.Constants.*;
 
 /**
  * Connect4Server is the class that creates a server ready to accept socket connections
- * and pair players up to play games of connect 4.
+ * and pair players up to play games of connect 4.  The BLOCKING transport gives every connection a thread that
+ * waits on its socket and every game another; VIRTUAL does the same on virtual threads where the JVM has them,
+ * see SessionThreads; the SELECTOR transport serves every connection from a few event-loop threads, see
+ * SelectorTransport.  VIRTUAL and SELECTOR both scale to far more idle or slow players than BLOCKING.
  * @author Kevin Somers
  */
 public class Connect4Server {
 
+    /**
+     * how the server waits on its players' sockets
+     */
+    public enum Transport { BLOCKING, VIRTUAL, SELECTOR }
+
     private ServerSocket serverSocket = null;
     private AtomicInteger sessionNo = new AtomicInteger(1);
-    private ArrayList<Thread> connectedThreads;
+    private SessionRegistry sessions;
+    private HashedWheelTimer timer;
     private boolean continueRunning;
-    private ConcurrentLinkedQueue<Streams> pvpSocketStreamsQ;
-    private ConcurrentLinkedQueue<Streams> pvcSocketStreamsQ;
+    private MatchQueue pvpSocketStreamsQ;
+    private MatchQueue pvcSocketStreamsQ;
     private Thread pvpSockThread;
     private Thread pvcSockThread;
+    private ComputerMoveExecutor computeExecutor;
+    private Transport transport;
+    private SelectorTransport selectorTransport;
+    private SessionThreads servicerThreads;
+    private SessionThreads sessionThreads;
 
 
     /**
      * Entry point for the class
-     * @param args not used here.
+     * @param args optionally the transport, blocking (the default), virtual or selector
      */
     public static void main(String[] args){
-        Connect4Server server = new Connect4Server();
+        Transport transport = (args.length > 0) ? Transport.valueOf(args[0].toUpperCase()) : Transport.BLOCKING;
+        Connect4Server server = new Connect4Server(transport);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> { //on ctrl-c let the games being played finish
+            try {
+                server.drain(DRAINMILLIS);
+            } catch (InterruptedException ignored) {
+            }
+            server.close();
+        }));
         ServerSocket socket = server.getServerSocket();
         server.start(socket);
     }
 
     public Connect4Server(){
-        connectedThreads = new ArrayList<>();
+        this(Transport.BLOCKING);
+    }
+
+    /**
+     * creates the server and binds its socket
+     * @param transport how the server waits on its players' sockets
+     */
+    public Connect4Server(Transport transport){
+        this.transport = transport;
+        sessions = new SessionRegistry();
+        timer = new HashedWheelTimer("timer", TIMERTICKMILLIS, TIMERWHEELTICKS);
         continueRunning = true;
-        pvpSocketStreamsQ = new ConcurrentLinkedQueue<>();
-        pvcSocketStreamsQ = new ConcurrentLinkedQueue<>();
+        pvpSocketStreamsQ = new MatchQueue(MATCHBATCH);
+        pvcSocketStreamsQ = new MatchQueue(MATCHBATCH);
+        computeExecutor = ComputerMoveExecutor.forServer();
+        servicerThreads = new SessionThreads("servicer-", transport == Transport.VIRTUAL);
+        sessionThreads = new SessionThreads("session-", transport == Transport.VIRTUAL);
+        if (transport == Transport.VIRTUAL && !sessionThreads.isVirtual())
+            System.out.println(new Date() + ": virtual threads need Java 21, serving players on platform threads");
 
         // Create a server socket
         try {
-            serverSocket = new ServerSocket(Constants.PORT);
-            System.out.println(new Date() + ": Server started at socket " + Constants.PORT);
+            if (transport == Transport.SELECTOR){
+                ServerSocketChannel channel = ServerSocketChannel.open();
+                channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                channel.bind(new InetSocketAddress(Constants.PORT), SELECTORBACKLOG);
+                serverSocket = channel.socket();
+            } else {
+                serverSocket = new ServerSocket(Constants.PORT);
+            }
+            System.out.println(new Date() + ": Server started at socket " + Constants.PORT + " (" + transport + ")");
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -57,11 +106,53 @@ public class Connect4Server {
     }
 
     /**
-     * Represents a players collective in and out object streams.
+     * accessor
+     * @return the games being played
+     */
+    public SessionRegistry getSessions(){
+        return sessions;
+    }
+
+    /**
+     * stops starting games, players matched from now on are turned away, and waits for the games being played to
+     * end.  The server still has to be closed afterwards.
+     * @param timeoutMillis the longest to wait
+     * @return true if every game ended in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean drain(long timeoutMillis) throws InterruptedException {
+        System.out.println(new Date() + ": draining, waiting up to " + timeoutMillis + " ms for "
+                + sessions.getLive() + " sessions");
+        boolean drained = sessions.drain(timeoutMillis);
+        if (!drained)
+            System.out.println(new Date() + ": " + sessions.getLive() + " sessions still playing, closing them");
+        return drained;
+    }
+
+    /**
+     * Represents a players collective in and out object streams.  A player in delta mode is sent the
+     * opponent's last move each turn instead of the whole GameBoard.  A player going up against the computer
+     * may have asked for a difficulty, null means the default.  A player served by the selector transport has no
+     * input stream, what they send is read from their connection instead.
      */
     public static class Streams{
         public ObjectOutputStream out;
         public ObjectInputStream in;
+        public boolean deltaMode;
+        public Difficulty difficulty;
+        SelectorTransport.Connection connection; //null in the blocking transport
+        long queuedNanos; //when the player was queued for matchmaking
+        long acceptNo; //the order the player connected in, the earlier of two pvp players is player 0
+
+        /**
+         * checks whether the player is known to have left, only the selector transport can tell without
+         * trying to read or write
+         * @return true if the player's connection has closed
+         */
+        boolean isDisconnected(){
+            return connection != null && !connection.isOpen();
+        }
+
         public void setInStream(ObjectInputStream in){
             this.in = in;
         }
@@ -77,22 +168,29 @@ public class Connect4Server {
      */
     public void start(ServerSocket server) {
         //start threads to check the pvpSocketStreamsQ and pvcSocketStreamsQ
-        pvpSockThread = new Thread(new PlayerMatchMaker(pvpSocketStreamsQ, true));
-        pvcSockThread = new Thread(new PlayerMatchMaker(pvcSocketStreamsQ, false));
-        connectedThreads.add(pvpSockThread);
-        connectedThreads.add(pvcSockThread);
+        pvpSockThread = new Thread(new PlayerMatchMaker(pvpSocketStreamsQ, true), "matchmaker-pvp");
+        pvcSockThread = new Thread(new PlayerMatchMaker(pvcSocketStreamsQ, false), "matchmaker-pvc");
         pvpSockThread.start();
         pvcSockThread.start();
+        if (transport == Transport.SELECTOR && server != null){
+            try {
+                selectorTransport = new SelectorTransport(server.getChannel(), pvpSocketStreamsQ, pvcSocketStreamsQ,
+                        SELECTORTHREADS, new BufferPool(SELECTORBUFFERBYTES, SELECTORPOOLEDBUFFERS), timer);
+                selectorTransport.run(); //returns once closed
+            } catch (IOException ex){
+                ex.printStackTrace();
+            }
+            continueRunning = false;
+        }
         //main loop
+        long acceptNo = 0;
         while (continueRunning){
             if (server == null)
                 break;
             try {
                 Socket player = server.accept();
                 System.out.println(new Date() + ":player connected");
-                Thread thread = new Thread(new SocketServicer(player));
-                connectedThreads.add(thread);
-                thread.start();
+                servicerThreads.newThread(new SocketServicer(player, acceptNo++)).start();
             } catch(IOException | NullPointerException ex){
                 System.out.println("Player has disconnected in match making");
             }
@@ -103,16 +201,21 @@ public class Connect4Server {
 
     /**
      * Uses the accepted socket, determines the players game type and puts them
-     * in the appropriate queue (based on game type selection)
+     * in the appropriate queue (based on game type selection).  A player that has not chosen a game type within
+     * IDLEMILLIS is disconnected.
      */
     public class SocketServicer implements Runnable {
         Socket playerSock;
-        SocketServicer(Socket playerSock) {
+        long acceptNo;
+        SocketServicer(Socket playerSock, long acceptNo) {
             this.playerSock = playerSock;
+            this.acceptNo = acceptNo;
         }
         public void run(){
+            HashedWheelTimer.Timeout idle = (IDLEMILLIS > 0) ? timer.newTimeout(this::evictIdle, IDLEMILLIS) : null;
             try{
                 Streams playerStreams = new Streams();
+                playerStreams.acceptNo = acceptNo;
                 //setup object streams for tcp communication
                 ObjectOutputStream out = new ObjectOutputStream(playerSock.getOutputStream());
                 ObjectInputStream in = new ObjectInputStream(playerSock.getInputStream());
@@ -121,7 +224,11 @@ public class Connect4Server {
 
                 while(true) {
                     Character gameType = in.readChar();
-                    if (gameType == PLAYERVSCOMP) {
+                    if (gameType == DELTAMODE) { //option sent ahead of the game type, no reply expected
+                        playerStreams.deltaMode = true;
+                    } else if (Difficulty.forCode(gameType) != null) { //likewise
+                        playerStreams.difficulty = Difficulty.forCode(gameType);
+                    } else if (gameType == PLAYERVSCOMP) {
                         pvcSocketStreamsQ.add(playerStreams);
                         break;
                     } else if (gameType == PLAYERVSPLAYER) {
@@ -134,77 +241,181 @@ public class Connect4Server {
                 }
             } catch(IOException ex){
                 System.out.println("player disconnected in matchmaking: trying to get game type");
+            } finally {
+                if (idle != null)
+                    idle.cancel();
+            }
+        }
+
+        /**
+         * closes the socket of a player that has not chosen a game type in time, on the timer's thread
+         */
+        private void evictIdle(){
+            System.out.println(new Date() + ": player did not ask for a game in time, disconnecting");
+            try {
+                playerSock.close(); //the servicer's read fails and its thread ends
+            } catch (IOException ignored) {
             }
         }
     }
     /**
-     * Pulls streams from the queue passed in and creates a new session
-     * allowing gameplay to begin.
+     * Takes players from the queue passed in as they arrive, pairs them and creates a new session
+     * allowing gameplay to begin.  The thread sleeps in the queue while nobody is waiting and ends when interrupted.
      */
     public class PlayerMatchMaker implements Runnable{
-        private ConcurrentLinkedQueue<Streams> streamsQ;
+        private MatchQueue streamsQ;
         private boolean isPVP;
-        PlayerMatchMaker(ConcurrentLinkedQueue<Streams> streamsQ, boolean isPVP){
+        PlayerMatchMaker(MatchQueue streamsQ, boolean isPVP){
             this.streamsQ = streamsQ;
             this.isPVP = isPVP;
         }
         public void run(){
+            List<Streams> batch = new ArrayList<>();
+            Streams unpaired = null; //a pvp player still waiting for an opponent
             while(true){
-                Streams player1 = null;
-                Streams player2 = null;
-                while(player1 == null){
-                    player1 = streamsQ.poll();
+                try {
+                    streamsQ.takeBatch(batch);
+                } catch (InterruptedException ex){ //the server is closing
+                    return;
                 }
-                if(isPVP){
-                    while(player2 == null){
-                        player2 = streamsQ.poll();
+                for (Streams player : batch){
+                    if (player.isDisconnected())
+                        continue;
+                    if (!isPVP){ //pvc, so just generate an empty stream
+                        launch(player, new Streams());
+                    } else if (unpaired == null || unpaired.isDisconnected()){
+                        unpaired = player;
+                    } else if (unpaired.acceptNo < player.acceptNo){
+                        launch(unpaired, player);
+                        unpaired = null;
+                    } else { //servicers and event loops queue players in no set order, the first to connect starts
+                        launch(player, unpaired);
+                        unpaired = null;
                     }
-                } else { //pvc, so just generate an empty stream
-                    player2 = new Streams();
                 }
-                String gameType = (isPVP) ? " player vs player " : " player vs computer ";
-                System.out.println((new Date() + ":launching" + gameType + "session "
-                        + sessionNo.getAndIncrement()));
-                Thread thread = new Thread(new HandleASession(player1, player2, isPVP));
-                connectedThreads.add(thread);
-                thread.start();
+                batch.clear();
+                streamsQ.setHeld((unpaired == null) ? 0 : 1);
+            }
+        }
+
+        private void launch(Streams player1, Streams player2){
+            streamsQ.matched(player1);
+            if (isPVP)
+                streamsQ.matched(player2);
+            String gameType = (isPVP) ? " player vs player " : " player vs computer ";
+            long seed = System.nanoTime();
+            //selector transport sessions run on the event loops
+            HandleASession session = (player1.connection != null)
+                    ? new SelectorSession(player1, player2, isPVP, computeExecutor, seed,
+                            selectorTransport.getTurnExecutor())
+                    : new HandleASession(player1, player2, isPVP, computeExecutor, seed);
+            session.setTimer(timer);
+            if (!session.register(sessions)){
+                System.out.println(new Date() + ": draining, turning away a" + gameType + "game");
+                session.abort();
+                return;
             }
+            String level = (isPVP) ? "" : " (" + ((player1.difficulty == null) ? Difficulty.HARD
+                    : player1.difficulty) + ", seed " + seed + ")";
+            System.out.println((new Date() + ":launching" + gameType + "session "
+                    + sessionNo.getAndIncrement() + level));
+            if (session instanceof SelectorSession)
+                session.run();
+            else
+                sessionThreads.newThread(session).start();
         }
     }
     /**
-     * stop main server thread, stop all threads dedicated to handling a session.
+     * stop main server thread and the matchmakers, and end the games still being played by closing their
+     * players' connections.  The accept loop calls it again once it notices, possibly while the first call is
+     * still running.
      */
-    public void close(){
+    public synchronized void close(){
         continueRunning = false;
         try {
             serverSocket.close();
         } catch (IOException | NullPointerException ignored) {
         }
-        for(Thread thread: connectedThreads){
-            thread = null;
-        }
         serverSocket = null;
+        if (pvpSockThread != null){
+            pvpSockThread.interrupt();
+            pvcSockThread.interrupt();
+            System.out.println(new Date() + ": player vs player matchmaking: " + pvpSocketStreamsQ.getStatistics());
+            System.out.println(new Date() + ": player vs computer matchmaking: " + pvcSocketStreamsQ.getStatistics());
+            sessions.abortAll();
+            System.out.println(new Date() + ": " + sessions.getStatistics());
+            timer.stop();
+            System.out.println(new Date() + ": " + timer.getStatistics());
+            pvpSockThread = null;
+            pvcSockThread = null;
+        }
+        if (selectorTransport != null){
+            selectorTransport.close();
+            System.out.println(new Date() + ": " + selectorTransport.getStatistics());
+            selectorTransport = null;
+        }
+        if (computeExecutor != null){ //close runs again once the accept loop notices
+            computeExecutor.shutdown();
+            System.out.println(new Date() + ": " + computeExecutor.getStatistics());
+            System.out.println(new Date() + ": " + EvaluationCache.shared().getStatistics());
+            computeExecutor = null;
+        }
     }
 
     /**
      * Handles a single session of Connect4.  This class is used for both player vs player and
      * player vs computer.
      */
-    public static class HandleASession implements Runnable {
-        private Streams player0Stream;
-        private Streams player1Stream;
-        private GameBoard gameBoard;
-        private GameManager gameManager;
-        private ScoreChecker scoreChecker;
+    public static class HandleASession implements Runnable, SessionRegistry.Session {
+        protected Streams player0Stream;
+        protected Streams player1Stream;
+        protected GameBoard gameBoard;
+        protected GameManager gameManager;
+        protected ScoreChecker scoreChecker;
         private boolean continueToPlay = true;
+        protected ComputerMoveExecutor computeExecutor;
+        protected Ponderer ponderer;
+        private SessionRegistry registry;
+        private HashedWheelTimer timer;
+        private volatile HashedWheelTimer.Timeout clock; //the move clock of the player whose turn it is
+        protected volatile int timedOut = -1; //the player whose clock ran out
 
         /**
-         * Setup the game session
+         * Setup the game session, the computer's moves are searched on the session's own thread
          * @param player0Stream first players socket information
          * @param player1Stream second players socket information
          * @param playerVsPlayer true if this is a player vs player game, false otherwise
          */
         public HandleASession(Streams player0Stream, Streams player1Stream, boolean playerVsPlayer) {
+            this(player0Stream, player1Stream, playerVsPlayer, null);
+        }
+
+        /**
+         * Setup the game session
+         * @param player0Stream first players socket information
+         * @param player1Stream second players socket information
+         * @param playerVsPlayer true if this is a player vs player game, false otherwise
+         * @param computeExecutor the pool the server searches computer moves on, or null to search them on the
+         *                        session's own thread.  With a pool the computer also ponders on its spare
+         *                        threads while the human is deciding, if Constants.PONDER is set.
+         */
+        public HandleASession(Streams player0Stream, Streams player1Stream, boolean playerVsPlayer,
+                              ComputerMoveExecutor computeExecutor) {
+            this(player0Stream, player1Stream, playerVsPlayer, computeExecutor, System.nanoTime());
+        }
+
+        /**
+         * Setup the game session, the computer plays at the difficulty player 0 asked for, HARD if none
+         * @param player0Stream first players socket information
+         * @param player1Stream second players socket information
+         * @param playerVsPlayer true if this is a player vs player game, false otherwise
+         * @param computeExecutor the pool the server searches computer moves on, or null to search them on the
+         *                        session's own thread
+         * @param seed decides the computer's random columns, logged so the game can be replayed
+         */
+        public HandleASession(Streams player0Stream, Streams player1Stream, boolean playerVsPlayer,
+                              ComputerMoveExecutor computeExecutor, long seed) {
+            this.computeExecutor = computeExecutor;
             this.player0Stream = player0Stream;
             this.player1Stream = player1Stream;
 
@@ -215,7 +426,11 @@ public class Connect4Server {
             if (playerVsPlayer){
                 gameManager.setupPvP();
             } else{
-                gameManager.setupPvC();
+                gameManager.setupPvC((player0Stream.difficulty == null) ? Difficulty.HARD : player0Stream.difficulty,
+                        seed);
+                if (computeExecutor != null && PONDER)
+                    ponderer = new Ponderer((Connect4ComputerPlayer) gameManager.getPlayers().get(1),
+                            gameManager.getPlayers().get(0).getID(), scoreChecker, computeExecutor);
             }
             gameManager.setPlayerTurn(0);
         }
@@ -246,13 +461,20 @@ public class Connect4Server {
                     int row = 0;
                     Player curPlayer = gameManager.getPlayers().get(0);
                     player0Stream.out.writeInt(CONTINUE);
-                    player0Stream.out.writeObject(gameBoard);
+                    sendBoard(player0Stream);
                     player0Stream.out.flush();
+                    if (ponderer != null)
+                        ponderer.start(gameBoard);
 
                     //loop until valid input is provided
                     boolean moveIsGood = false;
+                    startClock(0);
                     while(!moveIsGood){
                         column = player0Stream.in.readInt();
+                        if (column == RESYNC){
+                            resendBoard(player0Stream);
+                            continue;
+                        }
                         if( (gameBoard.isOutOfBounds(column)) || (gameBoard.colIsFull(column)) ){
                             player0Stream.out.writeChar(BADINPUT);
                             player0Stream.out.flush();
@@ -264,6 +486,7 @@ public class Connect4Server {
                             moveIsGood =true;
                         }
                     }
+                    stopClock();
                     gameBoard.decrementSpot();
                     player0Stream.out.flush();
                     player0Stream.out.reset(); //very important for ensuring the GameBoard is not cached.
@@ -284,18 +507,29 @@ public class Connect4Server {
                     //get player input handling both computer and human players
                     if(!curPlayer.playerIsHuman()){
                         //get the computers input and update the board
-                        column = ((Connect4ComputerPlayer) curPlayer).getMove(gameBoard, scoreChecker);
+                        Connect4ComputerPlayer computer = (Connect4ComputerPlayer) curPlayer;
+                        int pondered = (ponderer == null) ? -1 : ponderer.getReply(column);
+                        if (pondered >= 0 && !gameBoard.colIsFull(pondered))
+                            column = pondered;
+                        else
+                            column = (computeExecutor == null) ? computer.getMove(gameBoard, scoreChecker)
+                                    : computeExecutor.selectMove(computer, gameBoard, scoreChecker);
                         row = gameBoard.putPiece(column, curPlayer.getID());
                     } else { //human player
                         curPlayer = gameManager.getPlayers().get(1);
                         player1Stream.out.writeInt(CONTINUE);
-                        player1Stream.out.writeObject(gameBoard);
+                        sendBoard(player1Stream);
                         player1Stream.out.flush();
 
                         //loop until valid input is provided
                         moveIsGood = false;
+                        startClock(1);
                         while(!moveIsGood){
                             column = player1Stream.in.readInt();
+                            if (column == RESYNC){
+                                resendBoard(player1Stream);
+                                continue;
+                            }
                             if( (gameBoard.isOutOfBounds(column)) || (gameBoard.colIsFull(column)) ){
                                 player1Stream.out.writeChar(BADINPUT);
                                 player1Stream.out.flush();
@@ -307,6 +541,7 @@ public class Connect4Server {
                                 moveIsGood = true;
                             }
                         }
+                        stopClock();
                         player1Stream.out.flush();
                         player1Stream.out.reset();
                     }
@@ -326,13 +561,149 @@ public class Connect4Server {
                 }
 
             } catch (IOException | NullPointerException ex) {
-                System.out.println("player disconnected while match was in progress");
+                if (timedOut >= 0)
+                    forfeit(timedOut);
+                else
+                    System.out.println("player disconnected while match was in progress");
+            } finally {
+                stopClock();
+                if (ponderer != null)
+                    ponderer.stop();
+                unregister();
+            }
+        }
+
+        /**
+         * registers the session before it starts, it removes itself when the game ends
+         * @param registry the server's sessions
+         * @return false if the server is draining and the game must not start
+         */
+        public boolean register(SessionRegistry registry){
+            this.registry = registry;
+            return registry.register(this);
+        }
+
+        /**
+         * takes the session out of the registry it was registered with, if any
+         */
+        protected void unregister(){
+            if (registry != null)
+                registry.remove(this);
+        }
+
+        /**
+         * puts every move a player makes on a clock of MOVEMILLIS, a player whose clock runs out forfeits
+         * @param timer the timer the clocks run on, or null to let players take as long as they like
+         */
+        public void setTimer(HashedWheelTimer timer){
+            this.timer = timer;
+        }
+
+        /**
+         * @param player 0 or 1
+         * @return the player's streams
+         */
+        protected Streams stream(int player){
+            return (player == 0) ? player0Stream : player1Stream;
+        }
+
+        /**
+         * starts the clock of the player whose turn it is
+         * @param player 0 or 1
+         */
+        protected void startClock(int player){
+            if (timer != null && MOVEMILLIS > 0)
+                clock = timer.newTimeout(() -> expire(player), MOVEMILLIS);
+        }
+
+        /**
+         * stops the clock, the player has moved or the game is over
+         */
+        protected void stopClock(){
+            HashedWheelTimer.Timeout running = clock;
+            if (running != null)
+                running.cancel();
+            clock = null;
+        }
+
+        /**
+         * runs out a player's clock, on the timer's thread.  Their socket is closed, so the session's thread
+         * fails its read and the player forfeits.
+         * @param player 0 or 1
+         */
+        protected void expire(int player){
+            timedOut = player;
+            closeQuietly(stream(player));
+        }
+
+        /**
+         * ends the game with a player whose clock ran out losing it, their opponent is told they won and sent the
+         * final board, the computer wins without being told
+         * @param player 0 or 1
+         */
+        protected void forfeit(int player){
+            System.out.println(new Date() + ": player " + player + " ran out of time and forfeits");
+            if (!gameManager.isPlayerVsPlayer())
+                return;
+            Streams winner = stream(1 - player);
+            try {
+                winner.out.writeInt((player == 0) ? PLAYER1_WON : PLAYER0_WON);
+                winner.out.writeObject(gameBoard);
+                winner.out.flush();
+            } catch (IOException ignored) { //they left too
+            }
+        }
+
+        /**
+         * closes both players' sockets, the session's thread fails its next read or write and ends
+         */
+        public void abort(){
+            closeQuietly(player0Stream);
+            closeQuietly(player1Stream);
+        }
+
+        private static void closeQuietly(Streams player){
+            try {
+                if (player.in != null)
+                    player.in.close(); //closes the socket, so closing out below can not block on a full buffer
+                if (player.out != null)
+                    player.out.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        /**
+         * Sends the board to a player whose turn it is.  Players in delta mode already hold the board, so they
+         * are only sent the last move played, the number of checkers on the board and the board's Zobrist key to
+         * check their copy against.  Everyone else gets the whole GameBoard.
+         * @param player the socket connections for the player about to move
+         * @throws IOException if player disconnects
+         */
+        protected void sendBoard(Streams player) throws IOException {
+            if (player.deltaMode){
+                player.out.writeInt(gameBoard.getLastMove());
+                player.out.writeInt(gameBoard.getMoveCount());
+                player.out.writeLong(gameBoard.hashKey());
+            } else {
+                player.out.writeObject(gameBoard);
             }
         }
 
+        /**
+         * Sends the whole board to a player in delta mode whose copy no longer matches the server's.
+         * @param player the socket connections for the player that asked for the board
+         * @throws IOException if player disconnects
+         */
+        protected void resendBoard(Streams player) throws IOException {
+            player.out.writeObject(gameBoard);
+            player.out.flush();
+            player.out.reset();
+        }
+
         /**
          * For a winner or tie situation this method will write out who the winner was (or announce both players
-         * have tied), in both scenarios it will send out the game board after the announcement.
+         * have tied), in both scenarios it will send out the whole game board after the announcement, players in
+         * delta mode included since the game is over and they can no longer ask for it.
          * @param currentPlayer player that is going to be announced as the winner (if there's a winner)
          * @param player0 the socket connections for the first player
          * @param player1 the socket connections for the second player
@@ -358,4 +729,219 @@ public class Connect4Server {
                 }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A session of the selector transport.  It plays by the same rules and sends the same bytes as HandleASession,
+     * but never blocks: run sends the players their IDs and the first prompt and returns, and every column a
+     * player sends is played when their connection's event loop hands it over.  The computer's moves are
+     * searched on a turn thread.  Events from the two players' loops and the turn thread are serialized on the
+     * session.  When the game ends, or a player leaves, both connections are closed once their last bytes are
+     * sent.
+     */
+    public static class SelectorSession extends HandleASession implements SelectorTransport.Handler {
+        private Executor turns;
+        private int awaiting = -1; //the player whose column is expected, -1 while the computer moves
+        private boolean over;
+
+        /**
+         * Setup the game session
+         * @param player0Stream first players socket information
+         * @param player1Stream second players socket information, the computer's is empty
+         * @param playerVsPlayer true if this is a player vs player game, false otherwise
+         * @param computeExecutor the pool the server searches computer moves on, or null to search them on the
+         *                        turn thread
+         * @param seed decides the computer's random columns, logged so the game can be replayed
+         * @param turns the threads the computer's moves are waited for on
+         */
+        public SelectorSession(Streams player0Stream, Streams player1Stream, boolean playerVsPlayer,
+                               ComputerMoveExecutor computeExecutor, long seed, Executor turns) {
+            super(player0Stream, player1Stream, playerVsPlayer, computeExecutor, seed);
+            this.turns = turns;
+        }
+
+        /**
+         * starts the game and returns at once, the rest of it is played as the players' columns arrive
+         */
+        @Override
+        public synchronized void run() {
+            try {
+                player0Stream.connection.attach(this);
+                player0Stream.connection.output();
+                if (gameManager.isPlayerVsPlayer()){
+                    player1Stream.connection.attach(this);
+                    player1Stream.connection.output();
+                }
+                player0Stream.out.writeInt(gameManager.getPlayers().get(0).getID());
+                player0Stream.out.flush();
+                if (gameManager.isPlayerVsPlayer()){
+                    player1Stream.out.writeInt(gameManager.getPlayers().get(1).getID());
+                    player1Stream.out.flush();
+                }
+                prompt(0);
+            } catch (IOException ex){
+                disconnected();
+            }
+        }
+
+        /**
+         * plays the columns the player whose turn it is has sent, anything sent out of turn waits
+         * @param connection the connection with data waiting
+         */
+        public synchronized void onReadable(SelectorTransport.Connection connection) {
+            try {
+                while (!over && awaiting >= 0 && connection == stream(awaiting).connection
+                        && connection.available() >= 4)
+                    play(awaiting, connection.readInt());
+            } catch (IOException ex){
+                disconnected();
+            }
+        }
+
+        /**
+         * ends the game if it was still on
+         * @param connection the connection that closed
+         */
+        public synchronized void onClosed(SelectorTransport.Connection connection) {
+            if (!over)
+                disconnected();
+        }
+
+        /**
+         * tells a player it is their turn and sends the board, then waits for their column
+         */
+        private void prompt(int player) throws IOException {
+            Streams stream = stream(player);
+            stream.out.writeInt(CONTINUE);
+            sendBoard(stream);
+            stream.out.flush();
+            if (player == 0 && ponderer != null)
+                ponderer.start(gameBoard);
+            awaiting = player;
+            startClock(player);
+            stream.connection.poll(); //a column sent ahead of the prompt is already waiting
+        }
+
+        /**
+         * handles a column from the player whose turn it is, the same way HandleASession does
+         */
+        private void play(int player, int column) throws IOException {
+            Streams stream = stream(player);
+            if (column == RESYNC){
+                resendBoard(stream);
+                return;
+            }
+            if( (gameBoard.isOutOfBounds(column)) || (gameBoard.colIsFull(column)) ){
+                stream.out.writeChar(BADINPUT);
+                stream.out.flush();
+                return;
+            }
+            stopClock();
+            stream.out.writeChar(GOODINPUT);
+            stream.out.flush();
+            Player curPlayer = gameManager.getPlayers().get(player);
+            int row = gameBoard.putPiece(column, curPlayer.getID());
+            gameBoard.decrementSpot();
+            stream.out.flush();
+            stream.out.reset(); //very important for ensuring the GameBoard is not cached.
+            if (finish(curPlayer, row, column))
+                return;
+            if (player == 0 && !gameManager.isPlayerVsPlayer()){
+                awaiting = -1;
+                turns.execute(() -> computerTurn(column));
+            } else {
+                prompt(1 - player);
+            }
+        }
+
+        /**
+         * searches and plays the computer's reply on a turn thread, the board does not change meanwhile since no
+         * column is expected from anyone
+         */
+        private void computerTurn(int humanColumn){
+            Connect4ComputerPlayer computer = (Connect4ComputerPlayer) gameManager.getPlayers().get(1);
+            int pondered = (ponderer == null) ? -1 : ponderer.getReply(humanColumn);
+            int column;
+            if (pondered >= 0 && !gameBoard.colIsFull(pondered))
+                column = pondered;
+            else
+                column = (computeExecutor == null) ? computer.getMove(gameBoard, scoreChecker)
+                        : computeExecutor.selectMove(computer, gameBoard, scoreChecker);
+            synchronized (this){
+                if (over)
+                    return;
+                try {
+                    int row = gameBoard.putPiece(column, computer.getID());
+                    gameBoard.decrementSpot();
+                    if (!finish(computer, row, column))
+                        prompt(0);
+                } catch (IOException ex){
+                    disconnected();
+                }
+            }
+        }
+
+        /**
+         * announces the result if the last checker won or filled the board
+         * @return true if the game is over
+         */
+        private boolean finish(Player curPlayer, int row, int column) throws IOException {
+            boolean won = scoreChecker.gameHasWinner(gameBoard, row, column);
+            if (!won && gameBoard.getSpots() != 0)
+                return false;
+            handleWinnerOrTie(curPlayer, player0Stream, player1Stream, won);
+            end();
+            return true;
+        }
+
+        /**
+         * closes both players' connections at once, what has not been sent is dropped
+         */
+        @Override
+        public void abort(){
+            player0Stream.connection.abort();
+            if (player1Stream.connection != null)
+                player1Stream.connection.abort();
+        }
+
+        /**
+         * runs out a player's clock, on the timer's thread, unless they moved in the meantime.  Their connection
+         * is closed at once and their opponent is sent the result.
+         * @param player 0 or 1
+         */
+        @Override
+        protected synchronized void expire(int player){
+            if (over || awaiting != player)
+                return;
+            timedOut = player;
+            forfeit(player);
+            stream(player).connection.abort();
+            end();
+        }
+
+        private void disconnected(){
+            System.out.println("player disconnected while match was in progress");
+            end();
+        }
+
+        /**
+         * closes both players' connections once their last bytes are sent and stops pondering
+         */
+        private void end(){
+            if (over)
+                return;
+            over = true;
+            stopClock();
+            player0Stream.connection.closeWhenFlushed();
+            if (gameManager.isPlayerVsPlayer())
+                player1Stream.connection.closeWhenFlushed();
+            if (ponderer != null){
+                try {
+                    turns.execute(ponderer::stop); //waits for the pondering thread, which the loop must not
+                } catch (RejectedExecutionException ex){ //the transport has closed, stop it on this thread
+                    ponderer.stop();
+                }
+            }
+            unregister();
+        }
+    }
+}
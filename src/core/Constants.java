@@ -15,8 +15,36 @@ public class Constants {
         public static int CONTINUE = 3; // Indicate to continue
         public static int NUMROWS = 6;
         public static int NUMCOLUMNS = 7;
+        public static int WINLENGTH = 4; // Number of consecutive pieces needed to win
+        public static long COMPUTERMOVEMILLIS = 500; // Time the computer player may think per move
+        public static long FALLBACKMOVEMILLIS = 20; // Time the computer may think when the server is saturated
+        public static int COMPUTEQUEUELIMIT = 32; // Computer moves that may wait for a thread before falling back
+        public static boolean PONDER = false; // Let the computer think on spare threads while the human decides
+        public static long COMPUTEDEADLINEMILLIS = 2000; // Time from asking for a computer move to playing it
+        public static long COMPUTESTOPMILLIS = 250; // Time a computer search stopped at its deadline has to return
+        public static int TTMEGABYTES = 32; // Size of the transposition table shared by computer players
+        public static long TTGENERATIONMILLIS = 1000; // How often the shared table lets older entries be replaced
+        public static int EVALCACHEENTRIES = 1 << 18; // Searched positions remembered across all PvC games
+        public static int EVALCACHEMINDEPTH = 8; // Shallowest search a computer player adds to the evaluation cache
+        public static int PERFECTSOLVEFROM = 14; // Checkers down from which the PERFECT computer plays solved moves
+        public static int SOLVERMEGABYTES = 256; // Size of the transposition table of a perfect-play Solver
+        public static int EXPERTTHREADS = 2; // Workers the EXPERT computer spreads each move over
+        public static int SEARCHPOOLTHREADS = 4; // Workers of the pool shared by every EXPERT computer's searches
+        public static int SELECTORTHREADS = 2; // Event-loop threads of the selector transport
+        public static int SELECTORBACKLOG = 1024; // Connections the selector transport lets wait to be accepted
+        public static int SELECTORBUFFERBYTES = 4096; // Size of the selector transport's pooled direct buffers
+        public static int SELECTORPOOLEDBUFFERS = 1024; // Buffers the selector transport keeps for reuse
+        public static long MOVEMILLIS = 120000; // Time a player has for a move before forfeiting, 0 for no clock
+        public static long IDLEMILLIS = 30000; // Time a new connection has to ask for a game, 0 to wait forever
+        public static long TIMERTICKMILLIS = 100; // How often the server's timer looks for clocks run out
+        public static int TIMERWHEELTICKS = 512; // Buckets in the server's timer wheel, one turn of it in ticks
+        public static long DRAINMILLIS = 30000; // Time a stopping server gives the games being played to finish
+        public static int MATCHBATCH = 64; // Most queued players a matchmaker pairs in one pass
+        public static String OPENINGBOOK = "connect4.book"; // Opening book file, the computer searches without one
         public static Character PLAYERVSPLAYER = 'P';
         public static Character PLAYERVSCOMP = 'C';
         public static Character GOODINPUT = 'G';
         public static Character BADINPUT = 'B';
+        public static Character DELTAMODE = 'D'; // Sent before the game type to receive moves instead of boards
+        public static int RESYNC = -2; // Sent instead of a column to ask for the full board
 }
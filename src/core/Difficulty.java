@@ -0,0 +1,123 @@
+package core;
+
+/**
+ * Difficulty is how strong a computer player is, chosen by the client ahead of the game type during the
+ * handshake.  Each tier is a budget, so the CPU a PvC game costs is known in advance:
+ * <ul>
+ *     <li>EASY searches 2,000 positions per move and plays a random column one move in four.</li>
+ *     <li>MEDIUM searches 50,000 positions per move and plays a random column one move in twenty.</li>
+ *     <li>HARD searches for Constants.COMPUTERMOVEMILLIS per move with the shared transposition table, the
+ *     opening book and the evaluation cache, the computer player a client gets without asking for a tier.</li>
+ *     <li>EXPERT spreads each move over Constants.EXPERTTHREADS workers of a ParallelSearch for
+ *     Constants.COMPUTERMOVEMILLIS, with the shared transposition table and the opening book.  The workers of
+ *     every EXPERT game run on one pool of Constants.SEARCHPOOLTHREADS, so however many are played at once they
+ *     never take more cores than that.</li>
+ *     <li>PERFECT searches like HARD until Constants.PERFECTSOLVEFROM checkers are down and from then on plays
+ *     the Solver's move, which can not be improved on, whenever the solve finishes within half the move's time.
+ *     The rest of the time goes to a search if it does not.</li>
+ * </ul>
+ * The node budgets of EASY and MEDIUM end a search at the same point whatever the machine or its load, and
+ * their random columns come from the game's seed, so replaying a game against them with the same seed and the
+ * same moves gives the same replies.
+ * @author Kevin Somers
+ */
+public enum Difficulty {
+    EASY('1', 2000, 0.25),
+    MEDIUM('2', 50000, 0.05),
+    HARD('3', 0, 0),
+    PERFECT('4', 0, 0),
+    EXPERT('5', 0, 0);
+
+    private final char code;
+    private final long maxNodes;
+    private final double mistakeRate;
+
+    Difficulty(char code, long maxNodes, double mistakeRate){
+        this.code = code;
+        this.maxNodes = maxNodes;
+        this.mistakeRate = mistakeRate;
+    }
+
+    /**
+     * looks a tier up by the character the client sends for it
+     * @param code the character read from the client
+     * @return the tier, or null if the character is not a tier
+     */
+    public static Difficulty forCode(char code){
+        for (Difficulty difficulty : values())
+            if (difficulty.code == code)
+                return difficulty;
+        return null;
+    }
+
+    /**
+     * creates a fresh strategy playing at this tier, each computer player needs its own
+     * @return the strategy
+     */
+    public MoveStrategy createStrategy(){
+        switch (this){
+            case EASY:
+            case MEDIUM:
+                AlphaBetaSearch search = new AlphaBetaSearch(Constants.COMPUTERMOVEMILLIS);
+                search.setMaxNodes(this.maxNodes);
+                return search;
+            case EXPERT:
+                return new ParallelSearch(Constants.EXPERTTHREADS, Constants.COMPUTERMOVEMILLIS,
+                        TranspositionTable.shared(), ParallelSearch.sharedPool());
+            case PERFECT:
+                return new PerfectPlay(new AlphaBetaSearch(Constants.COMPUTERMOVEMILLIS, TranspositionTable.shared()),
+                        Constants.PERFECTSOLVEFROM);
+            default:
+                return new AlphaBetaSearch(Constants.COMPUTERMOVEMILLIS, TranspositionTable.shared());
+        }
+    }
+
+    /**
+     * accessor
+     * @return true if the tier plays from the opening book, which holds the moves of deep searches of the first
+     * plies, by default 14 plies deep, made ahead of time by tools.OpeningBookGenerator
+     */
+    public boolean usesBook(){
+        return this == HARD || this == EXPERT || this == PERFECT;
+    }
+
+    /**
+     * accessor
+     * @return true if the tier shares the evaluation cache, which holds the results of HARD searches
+     */
+    public boolean usesCache(){
+        return this == HARD;
+    }
+
+    /**
+     * accessor
+     * @return the character the client sends to ask for this tier
+     */
+    public char getCode(){
+        return this.code;
+    }
+
+    /**
+     * accessor
+     * @return positions searched per move, 0 for the tiers limited by time only
+     */
+    public long getMaxNodes(){
+        return this.maxNodes;
+    }
+
+    /**
+     * accessor
+     * @return milliseconds a move may take, every tier stops at Constants.COMPUTERMOVEMILLIS
+     */
+    public long getMoveMillis(){
+        return Constants.COMPUTERMOVEMILLIS;
+    }
+
+    /**
+     * accessor
+     * @return the fraction of moves played in a random column instead of the searched one
+     */
+    public double getMistakeRate(){
+        return this.mistakeRate;
+    }
+}
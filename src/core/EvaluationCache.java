@@ -0,0 +1,305 @@
+package core;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EvaluationCache remembers the result of every computer move searched in the process, the column played, its
+ * score and the depth searched, so a computer player reaching a position any game on the server has already
+ * searched plays the answer at once instead of searching again.  Unlike the TranspositionTable, which holds the
+ * millions of positions inside a search and overwrites them freely, the cache holds only the positions moves were
+ * asked for, and keeps the ones that are asked for again.
+ * <p>
+ * The entries are split over segments by the high bits of the key, each with its own lock, its own fixed arrays
+ * and its own CLOCK hand: a lookup marks its entry as referenced, and a full segment evicts the first entry the
+ * hand reaches that was not referenced since the hand last passed it, clearing the marks it passes on the way.
+ * New entries start unmarked, so a position only ever seen once gives way before one seen twice.  All the memory
+ * is allocated up front, nothing is allocated per lookup or store.
+ * @author Kevin Somers
+ */
+public class EvaluationCache {
+    private static final int SEGMENTBITS = 4;
+
+    private final Segment[] segments;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * allocates the cache
+     * @param capacity the number of positions the cache can hold, rounded up to a multiple of the segments
+     * @throws IllegalArgumentException if capacity is less than one
+     */
+    public EvaluationCache(int capacity){
+        if (capacity < 1)
+            throw new IllegalArgumentException("an evaluation cache needs room for at least one position");
+        int segmentCount = 1 << SEGMENTBITS;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++)
+            this.segments[i] = new Segment((capacity + segmentCount - 1) / segmentCount);
+    }
+
+    /**
+     * the cache shared by every computer player in the process, Constants.EVALCACHEENTRIES positions in size
+     * @return the shared cache
+     */
+    public static EvaluationCache shared(){
+        return SharedHolder.CACHE;
+    }
+
+    private static class SharedHolder {
+        static final EvaluationCache CACHE = new EvaluationCache(Constants.EVALCACHEENTRIES);
+    }
+
+    /**
+     * looks up a position and marks it as referenced
+     * @param hashKey the Zobrist key of the position
+     * @return the packed entry for the position, or 0 if the cache does not hold it.  Use the static accessors
+     * to unpack it.
+     */
+    public long probe(long hashKey){
+        this.probes.increment();
+        long entry = segment(hashKey).get(hashKey);
+        if (entry != 0)
+            this.hits.increment();
+        return entry;
+    }
+
+    /**
+     * stores the result of searching a position.  A position already cached keeps whichever result was
+     * searched deeper.
+     * @param hashKey the Zobrist key of the position
+     * @param move the column played
+     * @param score the score of the position for the player to move
+     * @param depth plies the position was searched to
+     * @throws IllegalArgumentException if move is negative
+     */
+    public void store(long hashKey, int move, int score, int depth){
+        if (move < 0)
+            throw new IllegalArgumentException("only a playable column can be cached");
+        long entry = (score & 0xFFFFFFFFL)
+                | ((long) Math.min(depth, 255) << 32)
+                | ((long) (move + 1) << 40);
+        if (segment(hashKey).put(hashKey, entry))
+            this.evictions.increment();
+        this.stores.increment();
+    }
+
+    private Segment segment(long hashKey){
+        return this.segments[(int) (hashKey >>> (64 - SEGMENTBITS))];
+    }
+
+    /**
+     * accessor
+     * @param entry an entry returned by probe
+     * @return the column played
+     */
+    public static int move(long entry){
+        return (int) ((entry >>> 40) & 0xFF) - 1;
+    }
+
+    /**
+     * accessor
+     * @param entry an entry returned by probe
+     * @return the score of the position for the player to move
+     */
+    public static int score(long entry){
+        return (int) entry;
+    }
+
+    /**
+     * accessor
+     * @param entry an entry returned by probe
+     * @return plies the position was searched to
+     */
+    public static int depth(long entry){
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    /**
+     * accessor
+     * @return the number of positions the cache can hold
+     */
+    public int getCapacity(){
+        return this.segments.length * this.segments[0].keys.length;
+    }
+
+    /**
+     * accessor
+     * @return the number of positions held
+     */
+    public int size(){
+        int size = 0;
+        for (Segment segment : this.segments){
+            synchronized (segment){
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * accessor
+     * @return bytes taken by the cache's arrays, all allocated when the cache was created
+     */
+    public long getMemoryBytes(){
+        long bytes = 0;
+        for (Segment segment : this.segments)
+            bytes += 8L * segment.keys.length + 8L * segment.entries.length + segment.referenced.length
+                    + 4L * segment.index.length;
+        return bytes;
+    }
+
+    /**
+     * accessor
+     * @return the fraction of probes that found their position, 0 if nothing was probed yet
+     */
+    public double getHitRate(){
+        long probed = this.probes.sum();
+        return (probed == 0) ? 0 : (double) this.hits.sum() / probed;
+    }
+
+    /**
+     * accessor
+     * @return the number of lookups since the statistics were last reset
+     */
+    public long getProbes(){
+        return this.probes.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of lookups that found their position
+     */
+    public long getHits(){
+        return this.hits.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of results stored
+     */
+    public long getStores(){
+        return this.stores.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of positions evicted to make room for another
+     */
+    public long getEvictions(){
+        return this.evictions.sum();
+    }
+
+    /**
+     * clears the hit rate statistics, the entries are kept
+     */
+    public void resetStatistics(){
+        this.probes.reset();
+        this.hits.reset();
+        this.stores.reset();
+        this.evictions.reset();
+    }
+
+    /**
+     * @return a one line summary of the cache for the server log
+     */
+    public String getStatistics(){
+        return String.format("evaluation cache: %d of %d positions, %.1f MB, %d probes %.1f%% hit, %d evicted",
+                size(), getCapacity(), getMemoryBytes() / (1024.0 * 1024.0), getProbes(), 100 * getHitRate(),
+                getEvictions());
+    }
+
+    /**
+     * one lock's worth of the cache: the entries in slots, an open addressing index from key to slot, and the
+     * CLOCK hand over the slots
+     */
+    private static final class Segment {
+        private final long[] keys;
+        private final long[] entries;
+        private final boolean[] referenced;
+        private final int[] index; //slot + 1 of the key hashed there, 0 for none
+        private final int indexMask;
+        private int size;
+        private int hand;
+
+        Segment(int capacity){
+            this.keys = new long[capacity];
+            this.entries = new long[capacity];
+            this.referenced = new boolean[capacity];
+            int indexLength = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1; //at most half full
+            this.index = new int[indexLength];
+            this.indexMask = indexLength - 1;
+        }
+
+        synchronized long get(long hashKey){
+            int slot = find(hashKey);
+            if (slot == -1)
+                return 0;
+            this.referenced[slot] = true;
+            return this.entries[slot];
+        }
+
+        /**
+         * @return true if another position was evicted to make room
+         */
+        synchronized boolean put(long hashKey, long entry){
+            int slot = find(hashKey);
+            if (slot != -1){
+                if (depth(entry) >= depth(this.entries[slot]))
+                    this.entries[slot] = entry;
+                return false;
+            }
+            boolean evicted = false;
+            if (this.size < this.keys.length){
+                slot = this.size++;
+            } else {
+                while (this.referenced[this.hand]){
+                    this.referenced[this.hand] = false;
+                    this.hand = (this.hand + 1) % this.keys.length;
+                }
+                slot = this.hand;
+                this.hand = (this.hand + 1) % this.keys.length;
+                unindex(this.keys[slot]);
+                evicted = true;
+            }
+            this.keys[slot] = hashKey;
+            this.entries[slot] = entry;
+            this.referenced[slot] = false;
+            int i = (int) hashKey & this.indexMask;
+            while (this.index[i] != 0)
+                i = (i + 1) & this.indexMask;
+            this.index[i] = slot + 1;
+            return evicted;
+        }
+
+        private int find(long hashKey){
+            for (int i = (int) hashKey & this.indexMask; this.index[i] != 0; i = (i + 1) & this.indexMask){
+                int slot = this.index[i] - 1;
+                if (this.keys[slot] == hashKey)
+                    return slot;
+            }
+            return -1;
+        }
+
+        /**
+         * removes a key from the index, moving back the keys after it that would otherwise no longer be found
+         */
+        private void unindex(long hashKey){
+            int i = (int) hashKey & this.indexMask;
+            while (this.keys[this.index[i] - 1] != hashKey)
+                i = (i + 1) & this.indexMask;
+            this.index[i] = 0;
+            for (int j = (i + 1) & this.indexMask; this.index[j] != 0; j = (j + 1) & this.indexMask){
+                int home = (int) this.keys[this.index[j] - 1] & this.indexMask;
+                //a key may move back to the gap unless its home lies cyclically between the gap and itself
+                boolean between = (i <= j) ? (i < home && home <= j) : (i < home || home <= j);
+                if (!between){
+                    this.index[i] = this.index[j];
+                    this.index[j] = 0;
+                    i = j;
+                }
+            }
+        }
+    }
+}
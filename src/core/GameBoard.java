@@ -1,34 +1,155 @@
 package core;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 /**
- * The GameBoard represents the state of the game and is backed by a 2D array of integers.
+ * The GameBoard represents the state of the game and is backed by bitboards: one long per player marking
+ * the slots that player owns, plus a mask of every taken slot.  Each column occupies rowLength + 1 bits of the
+ * longs, starting with the bottom slot, and the extra bit on top of each column is always empty so pieces
+ * never bleed from one column into the next.  Boards must therefore satisfy (rows + 1) * columns <= 64,
+ * which holds for the standard 6x7 board, larger boards use LargeGameBoard.  A height per column and a stack
+ * of the columns played let drops and undos run in constant time, so a search can make and unmake moves on
+ * one board without copying it.  Every drop and undo also updates a 64-bit Zobrist key of the position, see
+ * hashKey, and of the position mirrored left to right, see mirrorHashKey.  On the wire the board is
+ * Externalizable and packs the whole position into two longs and three bytes, see writeExternal.
  * @author Kevin Somers
  */
-public class GameBoard implements Serializable {
-    private int[][] board;
+public class GameBoard implements Board, Externalizable {
+    private static final long serialVersionUID = 1L;
+    private static final int MAXBITS = 64;
+    private static final long[][] ZOBRIST = new long[2][MAXBITS];
+    static {
+        for (int i = 0; i < MAXBITS; i++){
+            ZOBRIST[0][i] = zobrist(0, i);
+            ZOBRIST[1][i] = zobrist(1, i);
+        }
+    }
+
+    private long[] pieces;
+    private long mask;
     private int colLength;
     private int rowLength;
     private int totalSpots;
+    private int[] strides;
+    private int[] heights;
+    private int[] moves;
+    private int moveCount;
+    private long hashKey;
+    private long mirrorHashKey;
 
 
     /**
-     * declare and initialize the structure backing the game board.  Unused spaces contain -1, when a
-     * players piece is placed on the board the -1 is replaced with the players ID, indicating that is their spot.
+     * creates an empty board of the standard size, Constants.NUMROWS by Constants.NUMCOLUMNS.  Also used by
+     * deserialization before readExternal fills the board in.
+     */
+    public GameBoard(){
+        this(Constants.NUMROWS, Constants.NUMCOLUMNS);
+    }
+
+    /**
+     * declare and initialize the bitboards backing the game board.  Every slot starts empty and reads as -1,
+     * when a players piece is placed on the board the slot reads as the players ID, indicating that is their spot.
      * @param row the number of rows the GameBoard will have
      * @param col the number of columns the GameBoard will have
+     * @throws IllegalArgumentException if the board has no slots or does not fit in a bitboard
      */
     public GameBoard(int row, int col){
+        if (row <= 0 || col <= 0 || (row + 1) * col > MAXBITS)
+            throw new IllegalArgumentException("a " + row + "x" + col
+                    + " board does not fit in a bitboard, use LargeGameBoard");
         this.colLength = col;
         this.rowLength = row;
-        this.board = new int[this.rowLength][this.colLength];
-        for (int i = 0; i < this.rowLength; i++){
-            for(int j = 0; j < this.colLength; j++){
-                this.board[i][j] = -1;
-            }
-        }
+        this.pieces = new long[2];
+        this.mask = 0L;
         this.totalSpots = row * col;
+        //distance in bits between neighbouring slots for each direction, indexed by VERTICAL..DIAGONAL_UP
+        this.strides = new int[] {1, row + 1, row, row + 2};
+        this.heights = new int[col];
+        this.moves = new int[row * col];
+        this.moveCount = 0;
+        this.hashKey = 0L;
+        this.mirrorHashKey = 0L;
+    }
+
+    /**
+     * creates an independent board in the same state, move stack and Zobrist key included
+     * @return a copy of the board
+     */
+    public GameBoard copy(){
+        GameBoard copy = new GameBoard(this.rowLength, this.colLength);
+        copy.pieces[0] = this.pieces[0];
+        copy.pieces[1] = this.pieces[1];
+        copy.mask = this.mask;
+        copy.totalSpots = this.totalSpots;
+        System.arraycopy(this.heights, 0, copy.heights, 0, this.colLength);
+        System.arraycopy(this.moves, 0, copy.moves, 0, this.moveCount);
+        copy.moveCount = this.moveCount;
+        copy.hashKey = this.hashKey;
+        copy.mirrorHashKey = this.mirrorHashKey;
+        return copy;
+    }
+
+    /**
+     * writes the board in its compact form: the row and column counts, the spots remaining, player 0's bitboard
+     * and the mask of taken slots, 19 bytes in total.  Player 1's bitboard, the heights and the Zobrist key are
+     * all derived from those on the other end.  The order the checkers were dropped in is not sent.
+     * @param out the stream to write the board to
+     * @throws IOException in the event of stream failure
+     */
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeByte(this.rowLength);
+        out.writeByte(this.colLength);
+        out.writeByte(this.totalSpots);
+        out.writeLong(this.pieces[0]);
+        out.writeLong(this.mask);
+    }
+
+    /**
+     * reads a board written by writeExternal and rebuilds the derived state.  The move stack is rebuilt
+     * column by column since the original order is not sent, so undoPiece still works on a received board.
+     * @param in the stream to read the board from
+     * @throws IOException in the event of stream failure or if the data is not a valid board
+     */
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int row = in.readUnsignedByte();
+        int col = in.readUnsignedByte();
+        int spots = in.readByte();
+        long player0 = in.readLong();
+        long taken = in.readLong();
+        if (row <= 0 || col <= 0 || (row + 1) * col > MAXBITS || (player0 & ~taken) != 0)
+            throw new InvalidObjectException("not a valid GameBoard");
+        this.rowLength = row;
+        this.colLength = col;
+        this.strides = new int[] {1, row + 1, row, row + 2};
+        this.heights = new int[col];
+        this.moves = new int[row * col];
+        this.moveCount = 0;
+        this.hashKey = 0L;
+        this.mirrorHashKey = 0L;
+        for (int c = 0; c < col; c++){
+            long column = (taken >>> (c * (row + 1))) & ((1L << (row + 1)) - 1);
+            //a column has to be filled from the bottom up with nothing in the empty bit on top
+            if ((column & (column + 1)) != 0 || column >>> row != 0)
+                throw new InvalidObjectException("not a valid GameBoard");
+            this.heights[c] = Long.bitCount(column);
+            for (int h = 0; h < this.heights[c]; h++)
+                this.moves[this.moveCount++] = c;
+        }
+        this.pieces = new long[] {player0, taken ^ player0};
+        this.mask = taken;
+        this.totalSpots = spots;
+        for (long bits = taken; bits != 0; bits &= bits - 1){
+            int index = Long.numberOfTrailingZeros(bits);
+            int player = ((player0 >>> index) & 1) != 0 ? 0 : 1;
+            this.hashKey ^= ZOBRIST[player][index];
+            this.mirrorHashKey ^= ZOBRIST[player][mirrorIndex(index)];
+        }
     }
 
     /**
@@ -36,31 +157,70 @@ public class GameBoard implements Serializable {
      * @param row row of interest
      * @param col column of interest
      * @return returns the integer value at the position (row,col)
+     * @throws IndexOutOfBoundsException if (row,col) is not on the board
      */
     public int getPos(int row, int col){
-        return this.board[row][col];
+        if (isOutOfBounds(row, col))
+            throw new IndexOutOfBoundsException("(" + row + "," + col + ") is not on the board");
+        long slot = slotBit(row, col);
+        if ((this.mask & slot) == 0)
+            return -1;
+        return ((this.pieces[0] & slot) != 0) ? 0 : 1;
     }
 
     /**
-     * places the players piece in the requested column by 'dropping' the checker to the bottom.
+     * places the players piece in the requested column by 'dropping' the checker to the bottom.  The column's
+     * height gives the slot directly, so the drop costs the same regardless of how full the column already is.
+     * The column is pushed onto the move stack.
      *
      * @param col the column the player has requested to place a checker at
-     * @param playerID the current player requesting to put the checker on the board
+     * @param playerID the current player requesting to put the checker on the board, either 0 or 1
      * @return the integer value of the row the checker was successfully placed at,
      * allowing the caller to know exactly where the checker was placed. If the column is full returns -1.
+     * @throws IllegalArgumentException if the playerID is not 0 or 1
      */
     public int putPiece(int col, int playerID){
-        int row = -1;
-        if (colIsFull(col) || isOutOfBounds(col))
-            return row;
-        for(int i = this.rowLength - 1; i >= 0; i--){
-            if (slotIsTaken(i, col))
-                continue;
-            this.board[i][col] = playerID;
-            row = i;
-            break;
-        }
-        return row;
+        if (isOutOfBounds(col) || colIsFull(col))
+            return -1;
+        if (playerID != 0 && playerID != 1)
+            throw new IllegalArgumentException("playerID must be 0 or 1");
+        int height = this.heights[col]++;
+        int index = col * (this.rowLength + 1) + height;
+        long move = 1L << index;
+        this.mask |= move;
+        this.pieces[playerID] |= move;
+        this.moves[this.moveCount++] = col;
+        this.hashKey ^= ZOBRIST[playerID][index];
+        this.mirrorHashKey ^= ZOBRIST[playerID][mirrorIndex(index)];
+        return this.rowLength - 1 - height;
+    }
+
+    /**
+     * removes the top checker of the requested column, undoing a putPiece followed by decrementSpot (which is
+     * how the server counts a move), so totalSpots goes back up by one.  The most recent entry for the column
+     * is removed from the move stack, when moves are undone in reverse order that is always the top entry.
+     * @param col the column to take the top checker from
+     * @return the row the checker was removed from, or -1 if the column is empty or out of bounds
+     */
+    public int undoPiece(int col){
+        if (isOutOfBounds(col) || this.heights[col] == 0)
+            return -1;
+        int height = --this.heights[col];
+        int index = col * (this.rowLength + 1) + height;
+        long move = 1L << index;
+        int player = ((this.pieces[0] & move) != 0) ? 0 : 1;
+        this.hashKey ^= ZOBRIST[player][index];
+        this.mirrorHashKey ^= ZOBRIST[player][mirrorIndex(index)];
+        this.mask &= ~move;
+        this.pieces[0] &= ~move;
+        this.pieces[1] &= ~move;
+        int i = this.moveCount - 1;
+        while (this.moves[i] != col)
+            i--;
+        System.arraycopy(this.moves, i + 1, this.moves, i, this.moveCount - 1 - i);
+        this.moveCount--;
+        this.totalSpots++;
+        return this.rowLength - 1 - height;
     }
 
     /**
@@ -79,7 +239,7 @@ public class GameBoard implements Serializable {
      * @return boolean indicating whether the entire column is already full
      */
     public boolean colIsFull(int col){
-        return slotIsTaken(0, col);
+        return this.heights[col] == this.rowLength;
     }
 
     /**
@@ -129,4 +289,154 @@ public class GameBoard implements Serializable {
     public void decrementSpot(){
         this.totalSpots--;
     }
+
+    /**
+     * accessor for the number of checkers in a column
+     * @param col column of interest
+     * @return the number of checkers already dropped in the column
+     */
+    public int getHeight(int col){
+        return this.heights[col];
+    }
+
+    /**
+     * accessor for the move stack
+     * @return the number of checkers currently on the board
+     */
+    public int getMoveCount(){
+        return this.moveCount;
+    }
+
+    /**
+     * accessor for the move stack
+     * @param index position in the move stack, 0 is the first checker dropped
+     * @return the column the checker at that position of the move stack was dropped in
+     */
+    public int getMove(int index){
+        return this.moves[index];
+    }
+
+    /**
+     * accessor for the move stack
+     * @return the column of the most recent checker dropped, or -1 if the board is empty
+     */
+    public int getLastMove(){
+        return (this.moveCount == 0) ? -1 : this.moves[this.moveCount - 1];
+    }
+
+    /**
+     * accessor for the Zobrist key of the position.  The key is the XOR of a fixed random number per
+     * (player, slot) pair for every taken slot, so it only depends on where the checkers are and not the order
+     * they were dropped in, and it is the same in every process.
+     * @return the 64-bit Zobrist key of the position, 0 for an empty board
+     */
+    public long hashKey(){
+        return this.hashKey;
+    }
+
+    /**
+     * accessor for the Zobrist key of the position mirrored left to right, maintained alongside hashKey.  A
+     * position and its mirror image have the same value, so tables can store both under one key.
+     * @return the key hashKey would have if every checker in column c were in column colLength - 1 - c
+     */
+    public long mirrorHashKey(){
+        return this.mirrorHashKey;
+    }
+
+    /**
+     * accessor for the raw bitboard of a single player
+     * @param playerID the player of interest, either 0 or 1
+     * @return a long with a bit set for every slot the player owns
+     */
+    public long getPlayerBits(int playerID){
+        return this.pieces[playerID];
+    }
+
+    /**
+     * accessor for the raw bitboard of every taken slot
+     * @return a long with a bit set for every slot that is taken by either player
+     */
+    public long getMask(){
+        return this.mask;
+    }
+
+    /**
+     * checks whether the player has four in a row in the given direction anywhere on the board.  ANDing the
+     * bitboard with itself shifted by one stride leaves the starts of every pair, doing it again with two
+     * strides leaves the starts of every four, so the check is a fixed four shifts and ANDs.
+     * @param playerID the player of interest, either 0 or 1
+     * @param direction one of VERTICAL, HORIZONTAL, DIAGONAL_DOWN or DIAGONAL_UP
+     * @return boolean indicating whether the player has four in a row in that direction
+     */
+    public boolean hasFourInARow(int playerID, int direction){
+        long bits = this.pieces[playerID];
+        int stride = this.strides[direction];
+        long pairs = bits & (bits >>> stride);
+        return (pairs & (pairs >>> (2 * stride))) != 0;
+    }
+
+    /**
+     * checks whether the player has four in a row in the given direction on a line through a slot.  The starts of
+     * every four are found as in hasFourInARow, and only the starts up to three strides below the slot's bit
+     * begin a four covering it.
+     * @param playerID the player of interest, either 0 or 1
+     * @param row the row of the slot
+     * @param col the column of the slot
+     * @param direction one of VERTICAL, HORIZONTAL, DIAGONAL_DOWN or DIAGONAL_UP
+     * @return boolean indicating whether the player has four in a row in that direction through (row,col)
+     */
+    public boolean hasFourThrough(int playerID, int row, int col, int direction){
+        long bits = this.pieces[playerID];
+        int stride = this.strides[direction];
+        long pairs = bits & (bits >>> stride);
+        long slot = slotBit(row, col);
+        long starts = slot | (slot >>> stride) | (slot >>> (2 * stride)) | (slot >>> (3 * stride));
+        return (pairs & (pairs >>> (2 * stride)) & starts) != 0;
+    }
+
+    /**
+     * checks whether the player has four in a row in any direction anywhere on the board
+     * @param playerID the player of interest, either 0 or 1
+     * @return boolean indicating whether the player has four in a row
+     */
+    public boolean hasFourInARow(int playerID){
+        return hasFourInARow(playerID, VERTICAL)
+                || hasFourInARow(playerID, HORIZONTAL)
+                || hasFourInARow(playerID, DIAGONAL_DOWN)
+                || hasFourInARow(playerID, DIAGONAL_UP);
+    }
+
+    /**
+     * calculates the bit used for a slot
+     * @param row row of interest
+     * @param col column of interest
+     * @return a long with only the bit for (row,col) set
+     */
+    public long slotBit(int row, int col){
+        return 1L << (col * (this.rowLength + 1) + this.rowLength - 1 - row);
+    }
+
+    /**
+     * calculates the bit a slot's mirror image uses
+     * @param index the index of a bit in the column-major layout
+     * @return the index of the same slot with the columns numbered from the right
+     */
+    private int mirrorIndex(int index){
+        int stride = this.rowLength + 1;
+        return (this.colLength - 1 - index / stride) * stride + index % stride;
+    }
+
+    /**
+     * generates the Zobrist number for a player owning a bit of the board with the SplitMix64 finalizer, so the
+     * numbers are fixed without needing a stored table and any board size can use them.
+     * @param playerID the player owning the bit, either 0 or 1
+     * @param bitIndex the index of the bit in the column-major layout
+     * @return the Zobrist number for (playerID, bitIndex)
+     */
+    static long zobrist(int playerID, int bitIndex){
+        long z = (2L * bitIndex + playerID + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
 }
@@ -39,6 +39,17 @@ public class GameManager {
         isPlayerVsPlayer = false;
     }
 
+    /**
+     * Setup a player vs computer match by adding 1 human and 1 computer player of the requested strength
+     * @param difficulty how strong the computer plays
+     * @param seed decides the computer's random columns, the same seed and the same moves give the same game
+     */
+    public void setupPvC(Difficulty difficulty, long seed){
+        this.players.add(new Player(0, true));
+        this.players.add(new Connect4ComputerPlayer(1, false, difficulty, seed));
+        isPlayerVsPlayer = false;
+    }
+
     /**
      * set which player's turn it is
      * @param playerID the id of the player to set as having the current turn
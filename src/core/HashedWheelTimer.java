@@ -0,0 +1,235 @@
+package core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HashedWheelTimer runs short tasks after a delay, for the server's move clocks and idle timeouts, all on one
+ * thread however many are pending.  Time is cut into ticks and the wheel has a bucket for each tick of one turn:
+ * a timeout is hashed into the bucket of the tick it falls due in, with the number of whole turns still to wait,
+ * and every tick the thread expires or counts down the timeouts in one bucket.  Scheduling and cancelling only
+ * queue the timeout for the thread, so both cost the same however many timeouts are pending, and a timeout runs
+ * up to a tick late.  Tasks run on the timer's thread and must not block, they should close a socket or hand the
+ * work on.  Safe to use from any thread.
+ * @author Kevin Somers
+ */
+public class HashedWheelTimer {
+
+    /**
+     * a scheduled task, handed back so it can be cancelled
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline; //nanoseconds after the timer started
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long remainingRounds;
+        private Bucket bucket; //the rest belong to the timer's thread
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline){
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * stops the task from running, if it has not already
+         * @return true if the task will not run because of this call
+         */
+        public boolean cancel(){
+            if (!this.state.compareAndSet(PENDING, CANCELLED))
+                return false;
+            this.timer.cancelledTimeouts.add(this); //taken out of its bucket on the timer's thread
+            return true;
+        }
+
+        /**
+         * accessor
+         * @return true if the task has been run
+         */
+        public boolean isExpired(){
+            return this.state.get() == EXPIRED;
+        }
+
+        private void expire(){
+            if (!this.state.compareAndSet(PENDING, EXPIRED))
+                return;
+            this.timer.expired.increment();
+            try {
+                this.task.run();
+            } catch (RuntimeException ex){ //one task failing must not stop the clock for the rest
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * the timeouts falling due in one tick of the wheel, a doubly linked list so any of them is removed at once
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout){
+            timeout.bucket = this;
+            if (this.head == null){
+                this.head = this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.previous = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        Timeout remove(Timeout timeout){
+            Timeout next = timeout.next;
+            if (timeout.previous != null)
+                timeout.previous.next = next;
+            if (next != null)
+                next.previous = timeout.previous;
+            if (timeout == this.head)
+                this.head = next;
+            if (timeout == this.tail)
+                this.tail = timeout.previous;
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        /**
+         * runs the timeouts due by the end of the tick and counts the others down a turn
+         * @param tickDeadline the end of the tick, nanoseconds after the timer started
+         */
+        void expire(long tickDeadline){
+            Timeout timeout = this.head;
+            while (timeout != null){
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline){
+                    Timeout next = remove(timeout);
+                    timeout.expire();
+                    timeout = next;
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startNanos = System.nanoTime();
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick; //timer's thread only
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * creates the timer and starts its thread
+     * @param name the name of the timer's thread
+     * @param tickMillis how far apart the timer looks for timeouts due, which is how late one may run
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     * @throws IllegalArgumentException if tickMillis or ticksPerWheel is less than one
+     */
+    public HashedWheelTimer(String name, long tickMillis, int ticksPerWheel){
+        if (tickMillis < 1 || ticksPerWheel < 1)
+            throw new IllegalArgumentException("a wheel needs ticks of at least a millisecond and one bucket");
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int buckets = Integer.highestOneBit(ticksPerWheel);
+        if (buckets < ticksPerWheel)
+            buckets <<= 1;
+        this.wheel = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++)
+            this.wheel[i] = new Bucket();
+        this.mask = buckets - 1;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * schedules a task
+     * @param task what to run, on the timer's thread
+     * @param delayMillis how long from now to run it
+     * @return the timeout, to cancel it with
+     */
+    public Timeout newTimeout(Runnable task, long delayMillis){
+        long deadline = System.nanoTime() - this.startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(this, task, deadline);
+        this.scheduled.increment();
+        this.newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    private void run(){
+        while (this.running){
+            long tickDeadline = (this.tick + 1) * this.tickNanos;
+            long sleepNanos = tickDeadline - (System.nanoTime() - this.startNanos);
+            if (sleepNanos > 0){
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException ex){ //stopped
+                    continue;
+                }
+            }
+            Timeout timeout;
+            while ((timeout = this.cancelledTimeouts.poll()) != null)
+                if (timeout.bucket != null)
+                    timeout.bucket.remove(timeout);
+            while ((timeout = this.newTimeouts.poll()) != null){
+                if (timeout.state.get() != Timeout.PENDING)
+                    continue;
+                long due = timeout.deadline / this.tickNanos; //the tick it falls due in
+                timeout.remainingRounds = (due - this.tick) / this.wheel.length;
+                this.wheel[(int) (Math.max(due, this.tick) & this.mask)].add(timeout); //late ones go in this tick
+            }
+            this.wheel[(int) (this.tick & this.mask)].expire(tickDeadline);
+            this.tick++;
+        }
+    }
+
+    /**
+     * stops the timer's thread, the timeouts still pending never run
+     */
+    public void stop(){
+        this.running = false;
+        this.worker.interrupt();
+    }
+
+    /**
+     * accessor
+     * @return the number of timeouts scheduled since the timer was created
+     */
+    public long getScheduled(){
+        return this.scheduled.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of timeouts that have run
+     */
+    public long getExpired(){
+        return this.expired.sum();
+    }
+
+    /**
+     * @return the timer's counters on one line, for the server's log
+     */
+    public String getStatistics(){
+        return String.format("timer: %d timeouts scheduled, %d expired, wheel of %d ticks of %d ms",
+                getScheduled(), getExpired(), this.wheel.length, TimeUnit.NANOSECONDS.toMillis(this.tickNanos));
+    }
+}
@@ -0,0 +1,263 @@
+package core;
+
+import java.io.Serializable;
+
+/**
+ * LargeGameBoard is a Board for variants that do not fit in a single long, such as 20x20 Connect-5 or
+ * 64x64 Connect-6.  It uses the same column-major layout as GameBoard, each column taking rowLength + 1 bits
+ * with an always empty bit on top, but spread over word-parallel long[] bitsets.  Drops, undos and win checks
+ * touch a handful of words around the slot of interest, so their cost depends on the win length and not on
+ * the size of the board, and none of them allocate.  Like GameBoard it keeps incremental Zobrist keys of the
+ * position and of its mirror image.
+ * @author Kevin Somers
+ */
+public class LargeGameBoard implements Board, Serializable {
+    private static final long serialVersionUID = 1L;
+    private long[][] pieces;
+    private int colLength;
+    private int rowLength;
+    private int totalSpots;
+    private int[] strides;
+    private int[] heights;
+    private int[] moves;
+    private int moveCount;
+    private long hashKey;
+    private long mirrorHashKey;
+
+    /**
+     * declare and initialize the bitsets backing the game board, every slot starts empty and reads as -1.
+     * @param row the number of rows the board will have
+     * @param col the number of columns the board will have
+     * @throws IllegalArgumentException if the board has no slots
+     */
+    public LargeGameBoard(int row, int col){
+        if (row <= 0 || col <= 0)
+            throw new IllegalArgumentException("a board needs at least one row and one column");
+        this.colLength = col;
+        this.rowLength = row;
+        int words = ((row + 1) * col + 63) >>> 6;
+        this.pieces = new long[2][words];
+        this.totalSpots = row * col;
+        //distance in bits between neighbouring slots for each direction, indexed by VERTICAL..DIAGONAL_UP
+        this.strides = new int[] {1, row + 1, row, row + 2};
+        this.heights = new int[col];
+        this.moves = new int[row * col];
+        this.moveCount = 0;
+    }
+
+    /**
+     * accessor method
+     * @param row row of interest
+     * @param col column of interest
+     * @return returns the integer value at the position (row,col)
+     * @throws IndexOutOfBoundsException if (row,col) is not on the board
+     */
+    public int getPos(int row, int col){
+        if (isOutOfBounds(row, col))
+            throw new IndexOutOfBoundsException("(" + row + "," + col + ") is not on the board");
+        int index = slotIndex(row, col);
+        if (isSet(this.pieces[0], index))
+            return 0;
+        return isSet(this.pieces[1], index) ? 1 : -1;
+    }
+
+    /**
+     * places the players piece in the requested column by 'dropping' the checker on top of the column's height.
+     * @param col the column the player has requested to place a checker at
+     * @param playerID the current player requesting to put the checker on the board, either 0 or 1
+     * @return the integer value of the row the checker was placed at. If the column is full returns -1.
+     * @throws IllegalArgumentException if the playerID is not 0 or 1
+     */
+    public int putPiece(int col, int playerID){
+        if (isOutOfBounds(col) || colIsFull(col))
+            return -1;
+        if (playerID != 0 && playerID != 1)
+            throw new IllegalArgumentException("playerID must be 0 or 1");
+        int height = this.heights[col]++;
+        int index = col * (this.rowLength + 1) + height;
+        this.pieces[playerID][index >>> 6] |= 1L << index;
+        this.hashKey ^= GameBoard.zobrist(playerID, index);
+        this.mirrorHashKey ^= GameBoard.zobrist(playerID, mirrorIndex(index));
+        this.moves[this.moveCount++] = col;
+        return this.rowLength - 1 - height;
+    }
+
+    /**
+     * removes the top checker of the requested column, undoing a putPiece followed by decrementSpot.
+     * @param col the column to take the top checker from
+     * @return the row the checker was removed from, or -1 if the column is empty or out of bounds
+     */
+    public int undoPiece(int col){
+        if (isOutOfBounds(col) || this.heights[col] == 0)
+            return -1;
+        int height = --this.heights[col];
+        int index = col * (this.rowLength + 1) + height;
+        int player = isSet(this.pieces[0], index) ? 0 : 1;
+        this.hashKey ^= GameBoard.zobrist(player, index);
+        this.mirrorHashKey ^= GameBoard.zobrist(player, mirrorIndex(index));
+        this.pieces[0][index >>> 6] &= ~(1L << index);
+        this.pieces[1][index >>> 6] &= ~(1L << index);
+        int i = this.moveCount - 1;
+        while (this.moves[i] != col)
+            i--;
+        System.arraycopy(this.moves, i + 1, this.moves, i, this.moveCount - 1 - i);
+        this.moveCount--;
+        this.totalSpots++;
+        return this.rowLength - 1 - height;
+    }
+
+    /**
+     * creates an independent board in the same state, move stack and Zobrist key included
+     * @return a copy of the board
+     */
+    public LargeGameBoard copy(){
+        LargeGameBoard copy = new LargeGameBoard(this.rowLength, this.colLength);
+        System.arraycopy(this.pieces[0], 0, copy.pieces[0], 0, this.pieces[0].length);
+        System.arraycopy(this.pieces[1], 0, copy.pieces[1], 0, this.pieces[1].length);
+        copy.totalSpots = this.totalSpots;
+        System.arraycopy(this.heights, 0, copy.heights, 0, this.colLength);
+        System.arraycopy(this.moves, 0, copy.moves, 0, this.moveCount);
+        copy.moveCount = this.moveCount;
+        copy.hashKey = this.hashKey;
+        copy.mirrorHashKey = this.mirrorHashKey;
+        return copy;
+    }
+
+    /**
+     * counts the owner's consecutive checkers on the line through (row,col) in the given direction, walking
+     * at most winLength - 1 slots each way.  The empty bit on top of each column stops vertical and diagonal
+     * walks from wrapping into the next column.
+     * @param row the row of interest
+     * @param col the column of interest
+     * @param direction one of VERTICAL, HORIZONTAL, DIAGONAL_DOWN or DIAGONAL_UP
+     * @param winLength the number of consecutive checkers that wins
+     * @return the number of consecutive checkers through (row,col), capped so it never walks past winLength
+     */
+    public int countThrough(int row, int col, int direction, int winLength){
+        int owner = getPos(row, col);
+        if (owner == -1)
+            return 0;
+        long[] bits = this.pieces[owner];
+        int stride = this.strides[direction];
+        int start = slotIndex(row, col);
+        int limit = (this.rowLength + 1) * this.colLength;
+        int count = 1;
+        for (int i = start + stride; i < limit && count < winLength && isSet(bits, i); i += stride)
+            count++;
+        for (int i = start - stride; i >= 0 && count < winLength && isSet(bits, i); i -= stride)
+            count++;
+        return count;
+    }
+
+    /**
+     * checks whether the owner of (row,col) has winLength in a row through that slot in any direction
+     * @param row the row of interest
+     * @param col the column of interest
+     * @param winLength the number of consecutive checkers that wins
+     * @return boolean indicating whether there is a line of winLength through (row,col)
+     */
+    public boolean hasLineThrough(int row, int col, int winLength){
+        return countThrough(row, col, VERTICAL, winLength) >= winLength
+                || countThrough(row, col, HORIZONTAL, winLength) >= winLength
+                || countThrough(row, col, DIAGONAL_DOWN, winLength) >= winLength
+                || countThrough(row, col, DIAGONAL_UP, winLength) >= winLength;
+    }
+
+    /**
+     * checks to see if the slot requested is already taken
+     * @param row row of interest
+     * @param col column of interest
+     * @return boolean of whether or not the specific (row,col) is taken by a Player or not
+     */
+    public boolean slotIsTaken(int row, int col){
+        return getPos(row, col) != -1;
+    }
+
+    /**
+     * checks to see if the column is full (and therefore not accepting anymore checkers)
+     * @param col column of interest
+     * @return boolean indicating whether the entire column is already full
+     */
+    public boolean colIsFull(int col){
+        return this.heights[col] == this.rowLength;
+    }
+
+    public int getColLength() {
+        return this.colLength;
+    }
+
+    public int getRowLength() {
+        return this.rowLength;
+    }
+
+    public boolean isOutOfBounds(int row, int col){
+        return row >= this.rowLength
+                || col >= this.colLength
+                || row < 0
+                || col < 0;
+    }
+
+    public boolean isOutOfBounds(int col){
+        return col >= this.colLength || col < 0;
+    }
+
+    public int getSpots(){
+        return this.totalSpots;
+    }
+
+    public void decrementSpot(){
+        this.totalSpots--;
+    }
+
+    public int getMoveCount(){
+        return this.moveCount;
+    }
+
+    public int getMove(int index){
+        return this.moves[index];
+    }
+
+    public long hashKey(){
+        return this.hashKey;
+    }
+
+    public long mirrorHashKey(){
+        return this.mirrorHashKey;
+    }
+
+    /**
+     * accessor for the number of checkers in a column
+     * @param col column of interest
+     * @return the number of checkers already dropped in the column
+     */
+    public int getHeight(int col){
+        return this.heights[col];
+    }
+
+    /**
+     * @param row row of interest
+     * @param col column of interest
+     * @return the index of the bit used for (row,col)
+     */
+    private int slotIndex(int row, int col){
+        return col * (this.rowLength + 1) + this.rowLength - 1 - row;
+    }
+
+    /**
+     * @param index the index of the bit used for a slot
+     * @return the index of the bit used for the same slot mirrored left to right
+     */
+    private int mirrorIndex(int index){
+        int height = this.rowLength + 1;
+        return (this.colLength - 1 - index / height) * height + index % height;
+    }
+
+    /**
+     * @param bits the bitset being checked
+     * @param index the index of the bit of interest
+     * @return boolean indicating whether the bit is set
+     */
+    private static boolean isSet(long[] bits, int index){
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+}
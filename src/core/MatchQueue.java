@@ -0,0 +1,159 @@
+package core;
+
+import core.Connect4Server.Streams;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MatchQueue holds the players waiting to be matched for one game type.  A matchmaker blocks in takeBatch until
+ * a player arrives, so it uses no CPU while nobody is waiting, and takes everyone who arrived meanwhile at once,
+ * up to the batch limit, so a burst of players is paired in a few passes instead of one wake-up each.  Every
+ * player is stamped as they are queued, and the time from there to being matched is recorded, which is how long
+ * players wait for an opponent.  A player the matchmaker has taken but holds back for a later batch, such as a
+ * pvp player without an opponent yet, is still counted as waiting once the matchmaker reports it with setHeld.
+ * Safe to use from any thread.
+ * @author Kevin Somers
+ */
+public class MatchQueue {
+    private final LinkedBlockingQueue<Streams> waiting = new LinkedBlockingQueue<>();
+    private final int batchLimit;
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile long maxWaitNanos;
+    private volatile int largestBatch;
+    private volatile int held;
+
+    /**
+     * creates an empty queue
+     * @param batchLimit the most players takeBatch hands out at once
+     * @throws IllegalArgumentException if batchLimit is less than one
+     */
+    public MatchQueue(int batchLimit){
+        if (batchLimit < 1)
+            throw new IllegalArgumentException("a match queue needs to hand out at least one player at a time");
+        this.batchLimit = batchLimit;
+    }
+
+    /**
+     * queues a player to be matched and wakes the matchmaker
+     * @param player the player's streams
+     */
+    public void add(Streams player){
+        player.queuedNanos = System.nanoTime();
+        this.queued.increment();
+        this.waiting.add(player);
+    }
+
+    /**
+     * waits for at least one player, then takes every player queued, up to the batch limit, in the order they
+     * were queued
+     * @param batch the list the players are added to
+     * @throws InterruptedException if the thread is interrupted while the queue is empty
+     */
+    public void takeBatch(List<Streams> batch) throws InterruptedException {
+        batch.add(this.waiting.take());
+        int taken = 1 + this.waiting.drainTo(batch, this.batchLimit - 1);
+        this.batches.increment();
+        if (taken > this.largestBatch)
+            this.largestBatch = taken; //only the matchmaker takes, so there is no race to lose
+    }
+
+    /**
+     * records that a player taken from the queue has been given a game
+     * @param player the player's streams
+     */
+    public void matched(Streams player){
+        long wait = System.nanoTime() - player.queuedNanos;
+        this.matched.increment();
+        this.waitNanos.add(wait);
+        if (wait > this.maxWaitNanos)
+            this.maxWaitNanos = wait;
+    }
+
+    /**
+     * records how many of the players taken from the queue the matchmaker is holding back for a later batch
+     * @param held the number of players taken and not yet given a game
+     */
+    public void setHeld(int held){
+        this.held = held;
+    }
+
+    /**
+     * accessor
+     * @return the number of players queued and not yet taken
+     */
+    public int size(){
+        return this.waiting.size();
+    }
+
+    /**
+     * accessor
+     * @return the number of players waiting for a game, whether still queued or held back by the matchmaker
+     */
+    public int getWaiting(){
+        return this.waiting.size() + this.held;
+    }
+
+    /**
+     * accessor
+     * @return the number of players queued since the queue was created
+     */
+    public long getQueued(){
+        return this.queued.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of players given a game since the queue was created
+     */
+    public long getMatched(){
+        return this.matched.sum();
+    }
+
+    /**
+     * accessor
+     * @return the mean time from being queued to being given a game, in milliseconds
+     */
+    public double getMeanWaitMillis(){
+        long count = this.matched.sum();
+        return (count == 0) ? 0 : this.waitNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * accessor
+     * @return the longest time a player waited from being queued to being given a game, in milliseconds
+     */
+    public double getMaxWaitMillis(){
+        return this.maxWaitNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * accessor
+     * @return the number of times takeBatch returned
+     */
+    public long getBatches(){
+        return this.batches.sum();
+    }
+
+    /**
+     * accessor
+     * @return the most players takeBatch has handed out at once
+     */
+    public int getLargestBatch(){
+        return this.largestBatch;
+    }
+
+    /**
+     * @return the queue's counters on one line, for the server's log
+     */
+    public String getStatistics(){
+        return String.format("%d matched of %d queued, %d waiting: wait %.1f ms mean %.1f ms max, %d batches"
+                        + " largest %d", getMatched(), getQueued(), getWaiting(), getMeanWaitMillis(),
+                getMaxWaitMillis(), getBatches(), getLargestBatch());
+    }
+}
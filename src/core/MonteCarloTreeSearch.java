@@ -0,0 +1,420 @@
+package core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MonteCarloTreeSearch is a MoveStrategy that grows a game tree by random playouts, steering towards the moves
+ * that won the most playouts so far (UCT).  Unlike full width search it needs no evaluation function and scales
+ * to any Board, which makes it the practical choice for big-board Connect-N variants.
+ * <p>
+ * Several workers share one tree.  A worker walks and expands the tree under a lock, adding a virtual loss to
+ * the path so the other workers spread out, then plays its random playout on its own copy of the board without
+ * the lock, which is where the time goes.  Between turns the subtree under the moves actually played becomes
+ * the new root, so the playouts spent on the line the game followed are not thrown away.  The workers run on a
+ * pool the search either creates, and shuts down on close, or is given and shares with other searches.
+ * @author Kevin Somers
+ */
+public class MonteCarloTreeSearch implements MoveStrategy {
+    private static final double EXPLORATION = 1.4;
+
+    private int threads;
+    private long timeBudgetMillis;
+    private long playoutBudget;
+    private int maxNodes = 1000000;
+    private long seed;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final ReentrantLock treeLock = new ReentrantLock();
+    private Node root;
+    private long rootHash;
+    private int rootMoveCount;
+    private int nodeCount;
+    private final AtomicLong playouts = new AtomicLong(); // claimed, checked against the budget
+    private long completed; // backed up into the tree, guarded by treeLock
+    private long elapsedNanos;
+    private long reusedVisits;
+    private volatile boolean stopRequested;
+
+    /**
+     * A position in the tree, reached by the parent's player dropping a checker in move.
+     */
+    private static class Node {
+        final int move;
+        final int player; // the player that made move
+        Node[] children;
+        int nextUntried; // columns below this have been expanded or are full
+        boolean terminal;
+        int winner = -1; // of a terminal node, -1 for a draw
+        long visits;
+        double wins; // from the point of view of player
+        int virtualLosses;
+
+        Node(int move, int player){
+            this.move = move;
+            this.player = player;
+        }
+    }
+
+    /**
+     * creates a search that stops at whichever of the budgets runs out first, running on its own pool of
+     * workers, shut down by close
+     * @param threads the number of workers running playouts
+     * @param timeBudgetMillis milliseconds the search may take per move
+     * @param playoutBudget the number of playouts per move, 0 for no limit
+     * @param seed seeds the workers' random playouts
+     * @throws IllegalArgumentException if threads is less than one
+     */
+    public MonteCarloTreeSearch(int threads, long timeBudgetMillis, long playoutBudget, long seed){
+        this(threads, timeBudgetMillis, playoutBudget, seed, null);
+    }
+
+    /**
+     * creates a search that stops at whichever of the budgets runs out first, running on a pool shared with
+     * other searches
+     * @param threads the number of workers running playouts
+     * @param timeBudgetMillis milliseconds the search may take per move
+     * @param playoutBudget the number of playouts per move, 0 for no limit
+     * @param seed seeds the workers' random playouts
+     * @param pool the pool the workers run on, left running by close, or null for a pool of the search's own
+     * @throws IllegalArgumentException if threads is less than one
+     */
+    public MonteCarloTreeSearch(int threads, long timeBudgetMillis, long playoutBudget, long seed,
+                                ForkJoinPool pool){
+        if (threads < 1)
+            throw new IllegalArgumentException("a tree search needs at least one thread");
+        this.threads = threads;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.playoutBudget = (playoutBudget <= 0) ? Long.MAX_VALUE : playoutBudget;
+        this.seed = seed;
+        this.ownsPool = (pool == null);
+        this.pool = (pool == null) ? new ForkJoinPool(threads) : pool;
+    }
+
+    /**
+     * runs playouts on every worker until a budget runs out and plays the most visited move
+     * @param gameBoard the board in its current state, the workers play on copies so it is never changed
+     * @param scoreChecker the ScoreChecker used to detect wins
+     * @param playerID the player the move is for
+     * @return the column of choice
+     */
+    public int selectMove(Board gameBoard, ScoreChecker scoreChecker, int playerID){
+        long start = System.nanoTime();
+        long deadline = start + this.timeBudgetMillis * 1000000L;
+        reuseOrResetRoot(gameBoard, playerID);
+        this.playouts.set(0);
+        this.completed = 0;
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(this.threads);
+        for (int i = 0; i < this.threads; i++){
+            Board copy = gameBoard.copy();
+            SplittableRandom rand = new SplittableRandom(this.seed + 31L * gameBoard.getMoveCount() + i);
+            tasks.add(this.pool.submit(() -> work(copy, scoreChecker, rand, deadline)));
+        }
+        for (ForkJoinTask<?> task : tasks){
+            try {
+                task.get();
+            } catch (InterruptedException ex){ //the workers run on other threads, so pass the interrupt on to them
+                this.stopRequested = true;
+                Thread.currentThread().interrupt();
+                task.join();
+            } catch (ExecutionException ex){
+                task.join(); //throws what the worker threw
+            }
+        }
+        this.elapsedNanos = System.nanoTime() - start;
+        this.stopRequested = false;
+
+        Node best = null;
+        for (Node child : this.root.children){
+            if (child != null && (best == null || child.visits > best.visits))
+                best = child;
+        }
+        if (best == null){ //no playout finished, play the first open column
+            for (int col = 0; col < gameBoard.getColLength(); col++)
+                if (!gameBoard.colIsFull(col))
+                    return col;
+        }
+        return best.move;
+    }
+
+    /**
+     * one worker's share of the playouts
+     * @param board the worker's own copy of the board at the root
+     * @param scoreChecker the ScoreChecker used to detect wins
+     * @param rand the worker's random number generator
+     * @param deadline System.nanoTime() by which the worker stops
+     */
+    private void work(Board board, ScoreChecker scoreChecker, SplittableRandom rand, long deadline){
+        int capacity = board.getRowLength() * board.getColLength() - board.getMoveCount();
+        Node[] path = new Node[capacity + 1];
+        int[] played = new int[capacity];
+        while (!this.stopRequested && System.nanoTime() < deadline
+                && this.playouts.getAndIncrement() < this.playoutBudget){
+            int depth = 0;
+            int winner = -1;
+            boolean over = false;
+            this.treeLock.lock();
+            try {
+                Node node = this.root;
+                path[depth++] = node;
+                while (!node.terminal){
+                    Node next = expand(node, board, scoreChecker);
+                    boolean expanded = next != null;
+                    if (next == null)
+                        next = bestChild(node);
+                    if (next == null)
+                        break;
+                    board.putPiece(next.move, next.player);
+                    board.decrementSpot();
+                    node = next;
+                    path[depth++] = node;
+                    node.virtualLosses++;
+                    if (expanded)
+                        break;
+                }
+                if (node.terminal){
+                    over = true;
+                    winner = node.winner;
+                }
+            } finally {
+                this.treeLock.unlock();
+            }
+            Node leaf = path[depth - 1];
+            if (!over)
+                winner = playout(board, scoreChecker, rand, 1 - leaf.player, played);
+            for (int i = depth - 1; i > 0; i--)
+                board.undoPiece(path[i].move);
+            this.treeLock.lock();
+            try {
+                for (int i = depth - 1; i >= 0; i--){
+                    Node node = path[i];
+                    if (i > 0)
+                        node.virtualLosses--;
+                    node.visits++;
+                    if (winner == node.player)
+                        node.wins += 1;
+                    else if (winner == -1)
+                        node.wins += 0.5;
+                }
+                this.completed++;
+            } finally {
+                this.treeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * adds the next unexpanded legal move of a node to the tree, marking it terminal if it ends the game
+     * @param node the node to expand, its position is on the board
+     * @param board the worker's board
+     * @param scoreChecker the ScoreChecker used to detect wins
+     * @return the new child, or null if every legal move is already in the tree
+     */
+    private Node expand(Node node, Board board, ScoreChecker scoreChecker){
+        if (this.nodeCount >= this.maxNodes)
+            return null;
+        int cols = board.getColLength();
+        if (node.children == null)
+            node.children = new Node[cols];
+        while (node.nextUntried < cols && board.colIsFull(node.nextUntried))
+            node.nextUntried++;
+        if (node.nextUntried == cols)
+            return null;
+        int col = node.nextUntried++;
+        Node child = new Node(col, 1 - node.player);
+        int row = board.putPiece(col, child.player);
+        if (scoreChecker.gameHasWinner(board, row, col)){
+            child.terminal = true;
+            child.winner = child.player;
+        } else {
+            child.terminal = board.getMoveCount() == board.getRowLength() * board.getColLength();
+        }
+        board.undoPiece(col);
+        board.decrementSpot(); //undoPiece gave back a spot decrementSpot never took
+        node.children[col] = child;
+        this.nodeCount++;
+        return child;
+    }
+
+    /**
+     * picks the child with the highest upper confidence bound, counting virtual losses as lost visits
+     * @param node a fully expanded node
+     * @return the child to descend into, or null if the node has no children
+     */
+    private Node bestChild(Node node){
+        Node best = null;
+        if (node.children == null)
+            return null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        double logVisits = Math.log(Math.max(1, node.visits + node.virtualLosses));
+        for (Node child : node.children){
+            if (child == null)
+                continue;
+            double visits = child.visits + child.virtualLosses;
+            double value = (visits == 0) ? Double.POSITIVE_INFINITY
+                    : child.wins / visits + EXPLORATION * Math.sqrt(logVisits / visits);
+            if (value > bestValue){
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * plays random moves until the game ends and takes them back again
+     * @param board the worker's board, left as it was found
+     * @param scoreChecker the ScoreChecker used to detect wins
+     * @param rand the worker's random number generator
+     * @param playerID the player to move first
+     * @param played scratch space for the moves played
+     * @return the winning player, or -1 for a draw
+     */
+    private int playout(Board board, ScoreChecker scoreChecker, SplittableRandom rand, int playerID, int[] played){
+        int count = 0;
+        int winner = -1;
+        int cols = board.getColLength();
+        int slots = board.getRowLength() * cols;
+        while (board.getMoveCount() < slots){
+            int col = rand.nextInt(cols);
+            while (board.colIsFull(col))
+                col = (col + 1 == cols) ? 0 : col + 1;
+            int row = board.putPiece(col, playerID);
+            played[count++] = col;
+            if (scoreChecker.gameHasWinner(board, row, col)){
+                winner = playerID;
+                break;
+            }
+            playerID = 1 - playerID;
+        }
+        while (count > 0){
+            board.undoPiece(played[--count]);
+            board.decrementSpot();
+        }
+        return winner;
+    }
+
+    /**
+     * asks the workers of a running search, possibly from another thread, to finish their current playout and
+     * stop, the most visited move so far is played.  Interrupting the thread running the search stops it the
+     * same way, and leaves the thread interrupted.
+     */
+    public void stop(){
+        this.stopRequested = true;
+    }
+
+    /**
+     * shuts down the search's own pool of workers, a shared pool is left running.  The search may not be used
+     * afterwards.
+     */
+    public void close(){
+        if (this.ownsPool)
+            this.pool.shutdown();
+    }
+
+    /**
+     * makes the subtree under the moves played since the last search the new root, or starts a new tree if the
+     * board does not continue the game the tree was grown for
+     * @param gameBoard the board in its current state
+     * @param playerID the player the move is for
+     */
+    private void reuseOrResetRoot(Board gameBoard, int playerID){
+        int count = gameBoard.getMoveCount();
+        Node node = null;
+        if (this.root != null && count >= this.rootMoveCount){
+            Board earlier = gameBoard.copy();
+            for (int i = count - 1; i >= this.rootMoveCount; i--)
+                earlier.undoPiece(gameBoard.getMove(i));
+            if (earlier.hashKey() == this.rootHash){
+                node = this.root;
+                for (int i = this.rootMoveCount; i < count && node != null; i++)
+                    node = (node.children == null) ? null : node.children[gameBoard.getMove(i)];
+            }
+        }
+        if (node == null || node.player != 1 - playerID){
+            node = new Node(-1, 1 - playerID);
+            this.reusedVisits = 0;
+            this.nodeCount = 1;
+        } else {
+            this.reusedVisits = node.visits;
+            this.nodeCount = countNodes(node);
+        }
+        this.root = node;
+        this.rootHash = gameBoard.hashKey();
+        this.rootMoveCount = count;
+    }
+
+    /**
+     * @param node the root of a subtree
+     * @return the number of nodes in the subtree
+     */
+    private static int countNodes(Node node){
+        int count = 0;
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()){
+            Node next = stack.pop();
+            count++;
+            if (next.children != null)
+                for (Node child : next.children)
+                    if (child != null)
+                        stack.push(child);
+        }
+        return count;
+    }
+
+    /**
+     * caps the size of the tree, once it is reached the playouts carry on from the existing leaves
+     * @param maxNodes the most nodes the tree may hold
+     */
+    public void setMaxNodes(int maxNodes){
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * accessor for the last search
+     * @return the number of playouts finished by all workers together
+     */
+    public long getPlayouts(){
+        return this.completed;
+    }
+
+    /**
+     * accessor for the last search
+     * @return playouts finished per second by all workers together
+     */
+    public long getPlayoutsPerSecond(){
+        return (this.elapsedNanos == 0) ? 0 : this.completed * 1000000000L / this.elapsedNanos;
+    }
+
+    /**
+     * accessor for the last search
+     * @return the playouts the root had already seen when the search started, carried over from earlier turns
+     */
+    public long getReusedVisits(){
+        return this.reusedVisits;
+    }
+
+    /**
+     * accessor
+     * @return the number of nodes in the tree
+     */
+    public int getNodeCount(){
+        return this.nodeCount;
+    }
+
+    /**
+     * accessor
+     * @return the number of workers running playouts
+     */
+    public int getThreads(){
+        return this.threads;
+    }
+}
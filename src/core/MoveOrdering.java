@@ -0,0 +1,201 @@
+package core;
+
+import java.util.EnumSet;
+
+/**
+ * MoveOrdering decides the order an AlphaBetaSearch tries the columns of a position in.  Alpha-beta prunes the
+ * most when the best move is tried first, so the order is built up in layers, each of which can be switched on
+ * and off to measure what it contributes:
+ * <ul>
+ *     <li>CENTER, the columns from the center outwards, since central checkers take part in the most lines.
+ *     Without it the columns are tried left to right.</li>
+ *     <li>TABLEMOVE, the best move the transposition table holds for the position first.</li>
+ *     <li>KILLERS, then the last two moves that caused a cutoff at the same ply elsewhere in the tree.</li>
+ *     <li>HISTORY, the remaining moves sorted by how often dropping a checker in that slot caused a cutoff,
+ *     weighted by the depth of the cutoff.</li>
+ * </ul>
+ * Only CENTER and TABLEMOVE are on to begin with: in Connect 4 the table move already causes most cutoffs, and
+ * on the positions of MoveOrderingBenchmark the killers and history save too few nodes to pay for keeping them.
+ * An ordering keeps the killers and history of the search it belongs to, so each search needs its own.
+ * Layers switched on or off apply from the next search.
+ * @author Kevin Somers
+ */
+public class MoveOrdering {
+    public enum Layer { CENTER, TABLEMOVE, KILLERS, HISTORY }
+
+    private static final int HISTORYLIMIT = 1 << 28;
+
+    private final EnumSet<Layer> enabled = EnumSet.of(Layer.CENTER, Layer.TABLEMOVE);
+    private boolean tableMove;
+    private boolean killers;
+    private boolean history;
+    private int[] baseOrder;
+    private int[][] killerMoves;
+    private int[][] historyScores;
+    private int[] sortScores; //history scores of the moves being sorted, alongside them
+    private int rowLength;
+
+    /**
+     * switches a layer on or off
+     * @param layer the layer
+     * @param on true to use the layer
+     */
+    public void setEnabled(Layer layer, boolean on){
+        if (on)
+            this.enabled.add(layer);
+        else
+            this.enabled.remove(layer);
+    }
+
+    /**
+     * accessor
+     * @param layer the layer
+     * @return true if the layer is in use
+     */
+    public boolean isEnabled(Layer layer){
+        return this.enabled.contains(layer);
+    }
+
+    /**
+     * prepares for a new search: builds the base order, forgets the killers and halves the history so what was
+     * learnt about the previous position still counts but gives way to what is learnt about this one
+     * @param gameBoard the board about to be searched
+     * @param rotation how many places to rotate the base order, helpers of a parallel search vary it
+     */
+    void newSearch(Board gameBoard, int rotation){
+        int cols = gameBoard.getColLength();
+        this.tableMove = isEnabled(Layer.TABLEMOVE);
+        this.killers = isEnabled(Layer.KILLERS);
+        this.history = isEnabled(Layer.HISTORY);
+        this.baseOrder = new int[cols];
+        this.sortScores = new int[cols];
+        for (int i = 0; i < cols; i++){
+            //insertion sort by distance from the middle, leftmost first on ties
+            int j = i;
+            if (isEnabled(Layer.CENTER)){
+                for (; j > 0 && Math.abs(2 * this.baseOrder[j - 1] - (cols - 1)) > Math.abs(2 * i - (cols - 1)); j--)
+                    this.baseOrder[j] = this.baseOrder[j - 1];
+            }
+            this.baseOrder[j] = i;
+        }
+        for (int r = 0; r < rotation % cols; r++){
+            int first = this.baseOrder[0];
+            System.arraycopy(this.baseOrder, 1, this.baseOrder, 0, cols - 1);
+            this.baseOrder[cols - 1] = first;
+        }
+        int slots = gameBoard.getRowLength() * cols;
+        this.killerMoves = new int[slots + 1][2];
+        for (int[] plyKillers : this.killerMoves){
+            plyKillers[0] = -1;
+            plyKillers[1] = -1;
+        }
+        if (this.historyScores == null || this.historyScores[0].length != slots
+                || this.rowLength != gameBoard.getRowLength()){
+            this.historyScores = new int[2][slots];
+        } else {
+            for (int[] playerScores : this.historyScores)
+                for (int i = 0; i < slots; i++)
+                    playerScores[i] >>= 1;
+        }
+        this.rowLength = gameBoard.getRowLength();
+    }
+
+    /**
+     * accessor
+     * @return the columns in the base order, without the layers that depend on the position
+     */
+    int[] getBaseOrder(){
+        return this.baseOrder;
+    }
+
+    /**
+     * the move to try before any others are ordered, so a cutoff on it saves ordering the rest
+     * @param gameBoard the board, in the position being searched
+     * @param bestKnown the move the transposition table holds for the position, -1 if none
+     * @return the move the transposition table holds if that layer is on and the column is not full, else -1
+     */
+    int first(Board gameBoard, int bestKnown){
+        return (this.tableMove && bestKnown != -1 && !gameBoard.colIsFull(bestKnown)) ? bestKnown : -1;
+    }
+
+    /**
+     * orders the legal moves of a position other than the one already tried
+     * @param gameBoard the board, in the position being searched
+     * @param ply plies from the root
+     * @param playerID the player to move
+     * @param tried the move returned by first and already searched, -1 if none
+     * @param moves filled with the remaining legal columns in the order to try them
+     * @return the number of columns filled in
+     */
+    int order(Board gameBoard, int ply, int playerID, int tried, int[] moves){
+        int count = 0;
+        if (this.killers){
+            for (int killer : this.killerMoves[ply]){
+                if (killer != -1 && !listed(killer, tried, moves, count) && !gameBoard.colIsFull(killer))
+                    moves[count++] = killer;
+            }
+        }
+        int first = count;
+        int[] scores = this.historyScores[playerID];
+        for (int col : this.baseOrder){
+            if (listed(col, tried, moves, first) || gameBoard.colIsFull(col))
+                continue;
+            int i = count++;
+            if (this.history){
+                //insertion sort by history, stable so the base order breaks ties
+                int score = scores[slot(gameBoard, col)];
+                for (; i > first && this.sortScores[i - 1] < score; i--){
+                    moves[i] = moves[i - 1];
+                    this.sortScores[i] = this.sortScores[i - 1];
+                }
+                this.sortScores[i] = score;
+            }
+            moves[i] = col;
+        }
+        return count;
+    }
+
+    /**
+     * learns from a move that caused a beta cutoff
+     * @param gameBoard the board, back in the position the move was played from
+     * @param ply plies from the root
+     * @param playerID the player that made the move
+     * @param col the column played
+     * @param depth plies left to search when the move was tried
+     */
+    void cutoff(Board gameBoard, int ply, int playerID, int col, int depth){
+        if (this.killers && this.killerMoves[ply][0] != col){
+            this.killerMoves[ply][1] = this.killerMoves[ply][0];
+            this.killerMoves[ply][0] = col;
+        }
+        if (this.history){
+            int[] scores = this.historyScores[playerID];
+            int slot = slot(gameBoard, col);
+            scores[slot] += depth * depth;
+            if (scores[slot] > HISTORYLIMIT) //keep long searches from overflowing, the proportions are what count
+                for (int i = 0; i < scores.length; i++)
+                    scores[i] >>= 1;
+        }
+    }
+
+    private int slot(Board gameBoard, int col){
+        return col * this.rowLength + gameBoard.getHeight(col);
+    }
+
+    /**
+     * checks whether a move was already tried or put ahead of the rest, at most the table move and two killers
+     * @param col the column of interest
+     * @param tried the move already tried, -1 if none
+     * @param moves the moves put ahead of the rest
+     * @param count the number of moves put ahead of the rest
+     * @return true if the column is one of them
+     */
+    private static boolean listed(int col, int tried, int[] moves, int count){
+        if (col == tried)
+            return true;
+        for (int i = 0; i < count; i++)
+            if (moves[i] == col)
+                return true;
+        return false;
+    }
+}
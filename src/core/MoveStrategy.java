@@ -0,0 +1,51 @@
+package core;
+
+/**
+ * MoveStrategy is how a Connect4ComputerPlayer decides on its next column.
+ * @author Kevin Somers
+ */
+public interface MoveStrategy {
+
+    /**
+     * picks the column for the player to drop a checker in.  Implementations may make and undo moves on the
+     * board while deciding but must leave it exactly as they found it.
+     * @param gameBoard the board in its current state, the player has at least one legal move
+     * @param scoreChecker the ScoreChecker used to detect wins
+     * @param playerID the player the move is for
+     * @return the column of choice
+     */
+    int selectMove(Board gameBoard, ScoreChecker scoreChecker, int playerID);
+
+    /**
+     * asks a running selectMove, possibly on another thread, to return its best column so far as soon as
+     * possible.  Strategies that can not be interrupted ignore it.
+     */
+    default void stop(){
+    }
+
+    /**
+     * accessor for the last selectMove
+     * @return the deepest iteration searched completely, 0 for strategies that do not search to a depth
+     */
+    default int getDepthReached(){
+        return 0;
+    }
+
+    /**
+     * accessor for the last selectMove
+     * @return true if stop cut the search short, so its column is not what the strategy would normally play.
+     * Always false for strategies that can not be stopped.
+     */
+    default boolean wasStopped(){
+        return false;
+    }
+
+    /**
+     * accessor for the last selectMove
+     * @return the score of the column chosen from the point of view of the player it was chosen for, 0 for
+     * strategies that do not score positions
+     */
+    default int getScore(){
+        return 0;
+    }
+}
@@ -0,0 +1,185 @@
+package core;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * OpeningBook answers the early moves of a game from a precomputed file instead of searching them.  The file is
+ * a 16 byte header followed by 16 byte entries sorted by position key: the key, the best column and its score.
+ * It is mapped read-only, so a lookup is a binary search straight over the page cache with no parsing, and every
+ * server process on the machine shares the same pages.  A position and its mirror image are stored once, under
+ * Board.canonicalHashKey, with the column for that orientation.
+ * Books are made by tools.OpeningBookGenerator.
+ * @author Kevin Somers
+ */
+public class OpeningBook {
+    static final int MAGIC = 0x43344231; // "C4B1"
+    static final int ENTRYBYTES = 16;
+    private static final int HEADERBYTES = 16;
+
+    private final MappedByteBuffer entries;
+    private final int rowLength;
+    private final int colLength;
+    private final int maxPly;
+    private final int size;
+
+    private OpeningBook(MappedByteBuffer entries){
+        this.entries = entries;
+        this.rowLength = entries.get(4);
+        this.colLength = entries.get(5);
+        this.maxPly = entries.get(6);
+        this.size = entries.getInt(8);
+    }
+
+    /**
+     * maps a book file into memory
+     * @param path the book file
+     * @return the book
+     * @throws IOException if the file can not be read or is not a book
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            long length = channel.size();
+            if (length < HEADERBYTES || length > Integer.MAX_VALUE)
+                throw new IOException(path + " is not an opening book");
+            MappedByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            entries.order(ByteOrder.BIG_ENDIAN);
+            if (entries.getInt(0) != MAGIC
+                    || (long) HEADERBYTES + (long) entries.getInt(8) * ENTRYBYTES != length)
+                throw new IOException(path + " is not an opening book");
+            return new OpeningBook(entries);
+        }
+    }
+
+    /**
+     * the book shared by every computer player in the process, read from Constants.OPENINGBOOK
+     * @return the shared book, or null if there is no book file to read
+     */
+    public static OpeningBook shared(){
+        return SharedHolder.BOOK;
+    }
+
+    private static class SharedHolder {
+        static final OpeningBook BOOK = openShared();
+
+        private static OpeningBook openShared(){
+            try {
+                return open(Paths.get(Constants.OPENINGBOOK));
+            } catch (IOException e){
+                return null;
+            }
+        }
+    }
+
+    /**
+     * writes a book file
+     * @param path the file to write
+     * @param rows the number of rows of the boards in the book
+     * @param cols the number of columns of the boards in the book
+     * @param maxPly the most checkers a position in the book has
+     * @param book maps each position key to its best column and the score of that column, in that order
+     * @throws IOException in the event of a write failure
+     */
+    public static void write(Path path, int rows, int cols, int maxPly, SortedMap<Long, int[]> book)
+            throws IOException {
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))){
+            out.writeInt(MAGIC);
+            out.writeByte(rows);
+            out.writeByte(cols);
+            out.writeByte(maxPly);
+            out.writeByte(0);
+            out.writeInt(book.size());
+            out.writeInt(0);
+            for (Map.Entry<Long, int[]> entry : book.entrySet()){
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue()[0]);
+                out.writeInt(entry.getValue()[1]);
+            }
+        }
+    }
+
+    /**
+     * the key a position is stored under in a book
+     * @param gameBoard the position
+     * @return the canonical key, the smaller of the position's key and its mirror image's key
+     */
+    public static long bookKey(GameBoard gameBoard){
+        return gameBoard.canonicalHashKey();
+    }
+
+    /**
+     * looks up the best move for a position
+     * @param gameBoard the position
+     * @return the book column, or -1 if the position is not in the book
+     */
+    public int lookup(GameBoard gameBoard){
+        int index = find(gameBoard);
+        if (index < 0)
+            return -1;
+        int col = this.entries.getInt(HEADERBYTES + index * ENTRYBYTES + 8);
+        return gameBoard.canonicalColumn(col);
+    }
+
+    /**
+     * looks up the score of the book move for a position
+     * @param gameBoard the position
+     * @return the score the generator's search gave the book move, or 0 if the position is not in the book
+     */
+    public int score(GameBoard gameBoard){
+        int index = find(gameBoard);
+        return (index < 0) ? 0 : this.entries.getInt(HEADERBYTES + index * ENTRYBYTES + 12);
+    }
+
+    /**
+     * binary search for a position's entry
+     * @param gameBoard the position
+     * @return the index of the entry, or -1 if the position is not in the book
+     */
+    private int find(GameBoard gameBoard){
+        if (gameBoard.getRowLength() != this.rowLength || gameBoard.getColLength() != this.colLength
+                || gameBoard.getMoveCount() > this.maxPly)
+            return -1;
+        long key = bookKey(gameBoard);
+        int low = 0;
+        int high = this.size - 1;
+        while (low <= high){
+            int mid = (low + high) >>> 1;
+            long midKey = this.entries.getLong(HEADERBYTES + mid * ENTRYBYTES);
+            if (midKey < key)
+                low = mid + 1;
+            else if (midKey > key)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * accessor
+     * @return the number of positions in the book
+     */
+    public int size(){
+        return this.size;
+    }
+
+    /**
+     * accessor
+     * @return the most checkers a position in the book has
+     */
+    public int getMaxPly(){
+        return this.maxPly;
+    }
+}
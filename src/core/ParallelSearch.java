@@ -0,0 +1,204 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * ParallelSearch spreads the search for a single move over several ForkJoin workers using Lazy SMP: every
+ * worker runs its own AlphaBetaSearch on its own copy of the board, all of them sharing one TranspositionTable.
+ * The helpers start one ply deeper on every other worker and try the columns in a rotated order, so they fill
+ * the table with results the main search then finds instead of searching.  When the main search is done the
+ * helpers are stopped and the move of whichever worker completed the deepest iteration is played.  The workers
+ * run on a pool the search either creates, and shuts down on close, or is given and shares with other searches.
+ * @author Kevin Somers
+ */
+public class ParallelSearch implements MoveStrategy {
+    private int threads;
+    private long timeBudgetMillis;
+    private int maxDepth = Integer.MAX_VALUE;
+    private TranspositionTable table;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private long nodes;
+    private long elapsedNanos;
+    private int depthReached;
+    private int score;
+    private boolean stopped;
+    private volatile AlphaBetaSearch[] running;
+
+    /**
+     * creates a search running on its own pool of workers, shut down by close
+     * @param threads the number of workers searching each move
+     * @param timeBudgetMillis milliseconds the search may take per move
+     * @param table the transposition table shared by the workers
+     * @throws IllegalArgumentException if threads is less than one
+     */
+    public ParallelSearch(int threads, long timeBudgetMillis, TranspositionTable table){
+        this(threads, timeBudgetMillis, table, null);
+    }
+
+    /**
+     * creates a search running on a pool shared with other searches
+     * @param threads the number of workers searching each move
+     * @param timeBudgetMillis milliseconds the search may take per move
+     * @param table the transposition table shared by the workers
+     * @param pool the pool the workers run on, left running by close, or null for a pool of the search's own
+     * @throws IllegalArgumentException if threads is less than one
+     */
+    public ParallelSearch(int threads, long timeBudgetMillis, TranspositionTable table, ForkJoinPool pool){
+        if (threads < 1)
+            throw new IllegalArgumentException("a parallel search needs at least one thread");
+        this.threads = threads;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.table = table;
+        this.ownsPool = (pool == null);
+        this.pool = (pool == null) ? new ForkJoinPool(threads) : pool;
+    }
+
+    /**
+     * the pool shared by the searches of every EXPERT computer player in the process, Constants.SEARCHPOOLTHREADS
+     * workers, created when first asked for.  Its workers are daemons and it is never shut down.
+     * @return the shared pool
+     */
+    public static ForkJoinPool sharedPool(){
+        return SharedHolder.POOL;
+    }
+
+    private static class SharedHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool(Constants.SEARCHPOOLTHREADS);
+    }
+
+    /**
+     * searches the move on every worker at once and waits for the main search to finish
+     * @param gameBoard the board in its current state, the workers search copies so it is never changed
+     * @param scoreChecker the ScoreChecker used to detect wins
+     * @param playerID the player the move is for
+     * @return the best column found
+     */
+    public int selectMove(Board gameBoard, ScoreChecker scoreChecker, int playerID){
+        long start = System.nanoTime();
+        AlphaBetaSearch[] searches = new AlphaBetaSearch[this.threads];
+        List<ForkJoinTask<Integer>> tasks = new ArrayList<>(this.threads);
+        this.table.newSearch();
+        for (int i = 0; i < this.threads; i++){
+            searches[i] = new AlphaBetaSearch(this.timeBudgetMillis, this.table);
+            searches[i].setMaxDepth(this.maxDepth);
+            if (i > 0)
+                searches[i].makeHelper(1 + i % 2, i);
+            AlphaBetaSearch search = searches[i];
+            Board copy = gameBoard.copy();
+            tasks.add(this.pool.submit(() -> search.selectMove(copy, scoreChecker, playerID)));
+        }
+        this.running = searches;
+        int bestMove;
+        try {
+            bestMove = tasks.get(0).get();
+        } catch (InterruptedException ex){ //the workers run on other threads, so pass the interrupt on to them
+            for (AlphaBetaSearch search : searches)
+                search.stop();
+            Thread.currentThread().interrupt();
+            bestMove = tasks.get(0).join();
+        } catch (ExecutionException ex){
+            bestMove = tasks.get(0).join(); //throws what the worker threw
+        }
+        int bestDepth = searches[0].getDepthReached();
+        int bestScore = searches[0].getScore();
+        for (int i = 1; i < this.threads; i++)
+            searches[i].stop();
+        this.nodes = searches[0].getNodes();
+        for (int i = 1; i < this.threads; i++){
+            int move = tasks.get(i).join();
+            this.nodes += searches[i].getNodes();
+            if (searches[i].getDepthReached() > bestDepth){
+                bestDepth = searches[i].getDepthReached();
+                bestScore = searches[i].getScore();
+                bestMove = move;
+            }
+        }
+        this.running = null;
+        this.depthReached = bestDepth;
+        this.score = bestScore;
+        this.stopped = searches[0].wasStopped();
+        this.elapsedNanos = System.nanoTime() - start;
+        return bestMove;
+    }
+
+    /**
+     * stops every worker of a running search, the move of the deepest iteration completed so far is played.
+     * Interrupting the thread running the search stops it the same way, and leaves the thread interrupted.
+     */
+    public void stop(){
+        AlphaBetaSearch[] searches = this.running;
+        if (searches != null)
+            for (AlphaBetaSearch search : searches)
+                search.stop();
+    }
+
+    /**
+     * shuts down the search's own pool of workers, a shared pool is left running.  The search may not be used
+     * afterwards.
+     */
+    public void close(){
+        if (this.ownsPool)
+            this.pool.shutdown();
+    }
+
+    /**
+     * limits how deep the workers search regardless of the time budget, mainly so benchmarks are repeatable
+     * @param maxDepth the deepest iteration to search
+     */
+    public void setMaxDepth(int maxDepth){
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * accessor for the last search
+     * @return the number of positions visited by all workers together
+     */
+    public long getNodes(){
+        return this.nodes;
+    }
+
+    /**
+     * accessor for the last search
+     * @return the deepest iteration any worker searched completely
+     */
+    public int getDepthReached(){
+        return this.depthReached;
+    }
+
+    /**
+     * accessor for the last search
+     * @return the score of the move played, from the searching player's point of view
+     */
+    public int getScore(){
+        return this.score;
+    }
+
+    /**
+     * accessor for the last search
+     * @return true if stop ended the main search before its time budget ran out
+     */
+    public boolean wasStopped(){
+        return this.stopped;
+    }
+
+    /**
+     * accessor for the last search
+     * @return positions visited per second by all workers together
+     */
+    public long getNodesPerSecond(){
+        return (this.elapsedNanos == 0) ? 0 : this.nodes * 1000000000L / this.elapsedNanos;
+    }
+
+    /**
+     * accessor
+     * @return the number of workers searching each move
+     */
+    public int getThreads(){
+        return this.threads;
+    }
+}
@@ -0,0 +1,87 @@
+package core;
+
+/**
+ * PerfectPlay is the MoveStrategy of the PERFECT difficulty.  Early in the game no Solver can settle a position
+ * within a move's time, so until a given number of checkers are down it searches like the default computer
+ * player.  From then on it plays the Solver's move, the best there is, when the solve finishes within half the
+ * search's time budget.  A solve that does not is given up and a search for the other half answers instead, so a
+ * move never takes longer than the search alone would.  The Solvers of every PerfectPlay in the process share one
+ * table of Constants.SOLVERMEGABYTES, allocated when the first one is created.
+ * @author Kevin Somers
+ */
+public class PerfectPlay implements MoveStrategy {
+    private AlphaBetaSearch search;
+    private AlphaBetaSearch afterSolve;
+    private Solver solver;
+    private int solveFromMove;
+    private long solveMillis;
+    private volatile Runnable stopRunning; //stops whichever of the solver and the searches is running
+
+    /**
+     * creates the strategy
+     * @param search answers the positions with fewer than solveFromMove checkers
+     * @param solveFromMove the number of checkers from which on positions are solved
+     */
+    public PerfectPlay(AlphaBetaSearch search, int solveFromMove){
+        this.search = search;
+        this.solver = new Solver(SharedHolder.TABLE);
+        this.solveFromMove = solveFromMove;
+        this.solveMillis = search.getTimeBudgetMillis() / 2;
+        this.afterSolve = new AlphaBetaSearch(search.getTimeBudgetMillis() - this.solveMillis, search.getTable());
+    }
+
+    private static class SharedHolder {
+        static final TranspositionTable TABLE = new TranspositionTable(Constants.SOLVERMEGABYTES);
+    }
+
+    /**
+     * solves the position if enough checkers are down, otherwise searches it
+     * @param gameBoard the board in its current state, left unchanged
+     * @param scoreChecker the ScoreChecker used to detect wins
+     * @param playerID the player the move is for, the player to move on the board
+     * @return the column of choice
+     */
+    public int selectMove(Board gameBoard, ScoreChecker scoreChecker, int playerID){
+        try {
+            if (gameBoard instanceof GameBoard && gameBoard.getMoveCount() >= this.solveFromMove){
+                this.stopRunning = this.solver::stop;
+                int col = this.solver.bestMove((GameBoard) gameBoard, this.solveMillis);
+                if (col >= 0)
+                    return col;
+                if (this.solver.wasAborted()){
+                    this.stopRunning = this.afterSolve::stop;
+                    return this.afterSolve.selectMove(gameBoard, scoreChecker, playerID);
+                }
+            }
+            this.stopRunning = this.search::stop;
+            return this.search.selectMove(gameBoard, scoreChecker, playerID);
+        } finally {
+            this.stopRunning = null;
+        }
+    }
+
+    /**
+     * stops the solve or the search, whichever is running
+     */
+    public void stop(){
+        Runnable stop = this.stopRunning;
+        if (stop != null)
+            stop.run();
+    }
+
+    /**
+     * accessor
+     * @return the number of checkers from which on positions are solved
+     */
+    public int getSolveFromMove(){
+        return this.solveFromMove;
+    }
+
+    /**
+     * accessor
+     * @return milliseconds a solve may take before the move is searched instead
+     */
+    public long getSolveMillis(){
+        return this.solveMillis;
+    }
+}
@@ -0,0 +1,150 @@
+package core;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ponderer lets a computer player think on the human's time.  While the server waits for the human's move it
+ * guesses the human's replies, most likely first, and searches the computer's answer to each one on a spare
+ * thread of the server's ComputerMoveExecutor.  When the human's move arrives the pondering is stopped.  If the
+ * answer to that move was already searched it is played straight away, otherwise the computer searches as usual
+ * and finds the positions pondered so far in the transposition table.
+ * <p>
+ * Pondering only ever uses a thread the executor has spare, and the executor stops it as soon as a real request
+ * has to wait for a thread.  It searches with a fresh copy of the player's strategy so stopping it never
+ * disturbs the player's own searches.
+ * @author Kevin Somers
+ */
+public class Ponderer {
+    private final Connect4ComputerPlayer computer;
+    private final int humanID;
+    private final ScoreChecker scoreChecker;
+    private final ComputerMoveExecutor executor;
+    private final Object lock = new Object();
+    private int[] replies; //the computer's answer to each human column, -1 if not searched, guarded by lock
+    private AtomicBoolean cancelled; //of the pondering last started, set when it is stopped
+    private MoveStrategy search;
+    private Future<?> task;
+
+    /**
+     * creates a ponderer for one session
+     * @param computer the computer player that ponders
+     * @param humanID the ID of the human player it plays
+     * @param scoreChecker the ScoreChecker used to detect wins
+     * @param executor the executor whose spare threads are used for pondering
+     */
+    public Ponderer(Connect4ComputerPlayer computer, int humanID, ScoreChecker scoreChecker,
+                    ComputerMoveExecutor executor){
+        this.computer = computer;
+        this.humanID = humanID;
+        this.scoreChecker = scoreChecker;
+        this.executor = executor;
+    }
+
+    /**
+     * starts pondering the position the human is about to move in.  Nothing happens if the computer player's
+     * strategy can not ponder or the executor has no spare thread.
+     * @param gameBoard the board as sent to the human, it is copied so it may change while pondering
+     * @return true if pondering started
+     */
+    public boolean start(GameBoard gameBoard){
+        stop();
+        MoveStrategy strategy = this.computer.createPonderStrategy();
+        if (strategy == null)
+            return false;
+        GameBoard copy = gameBoard.copy();
+        synchronized (this.lock){
+            this.replies = new int[copy.getColLength()];
+            Arrays.fill(this.replies, -1);
+        }
+        AtomicBoolean cancel = new AtomicBoolean();
+        this.cancelled = cancel;
+        this.search = strategy;
+        this.task = this.executor.submitSpare(() -> ponder(copy, strategy, cancel), () -> {
+            cancel.set(true);
+            strategy.stop();
+        });
+        return this.task != null;
+    }
+
+    /**
+     * stops pondering and waits for the pondering thread to give up its search
+     */
+    public void stop(){
+        Future<?> running = this.task;
+        if (running == null)
+            return;
+        this.cancelled.set(true);
+        this.search.stop();
+        try {
+            running.get();
+        } catch (InterruptedException ex){
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored){
+        }
+        this.task = null;
+    }
+
+    /**
+     * stops pondering and looks up the answer to the move the human made
+     * @param humanColumn the column the human played
+     * @return the computer's pondered answer, or -1 if that move was not searched to the end
+     */
+    public int getReply(int humanColumn){
+        stop();
+        int reply = -1;
+        synchronized (this.lock){
+            if (this.replies != null && humanColumn >= 0 && humanColumn < this.replies.length)
+                reply = this.replies[humanColumn];
+            this.replies = null;
+        }
+        this.executor.recordPonder(reply >= 0);
+        return reply;
+    }
+
+    /**
+     * the pondering itself, runs on a thread of the executor
+     * @param gameBoard a copy of the board the human is to move on
+     * @param strategy the fresh strategy to search with
+     * @param cancel set when the pondering is stopped, by the session or by the executor
+     */
+    private void ponder(GameBoard gameBoard, MoveStrategy strategy, AtomicBoolean cancel){
+        for (int humanColumn : likelyReplies(gameBoard)){
+            if (cancel.get())
+                return;
+            int row = gameBoard.putPiece(humanColumn, this.humanID);
+            gameBoard.decrementSpot();
+            if (!this.scoreChecker.gameHasWinner(gameBoard, row, humanColumn) && gameBoard.getSpots() > 0){
+                int reply = this.computer.getMove(gameBoard, this.scoreChecker, strategy);
+                synchronized (this.lock){
+                    if (!cancel.get() && this.replies != null) //a stopped search is not the real answer
+                        this.replies[humanColumn] = reply;
+                }
+            }
+            gameBoard.undoPiece(humanColumn);
+        }
+    }
+
+    /**
+     * orders the human's moves by how likely they are: the move a quick search prefers first, then the others
+     * from the center out
+     * @param gameBoard the board the human is to move on
+     * @return the human's legal columns
+     */
+    private int[] likelyReplies(GameBoard gameBoard){
+        int cols = gameBoard.getColLength();
+        int best = new AlphaBetaSearch(Constants.FALLBACKMOVEMILLIS).selectMove(gameBoard, this.scoreChecker,
+                this.humanID);
+        int[] order = new int[cols];
+        int count = 0;
+        order[count++] = best;
+        for (int i = 0; i < cols; i++){
+            int col = cols / 2 + (1 - 2 * (i % 2)) * (i + 1) / 2;
+            if (col != best && !gameBoard.colIsFull(col))
+                order[count++] = col;
+        }
+        return Arrays.copyOf(order, count);
+    }
+}
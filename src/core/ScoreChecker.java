@@ -3,10 +3,41 @@ package core;
 
 /**
  * ScoreChecker is responsible for knowing how to check win scenarios and
- * calculating consecutive pieces.
+ * calculating consecutive pieces.  When the board is a bitboard backed GameBoard and the win length is four
+ * the win checks are answered with a few shifts and masks on the owner's bitboard, a LargeGameBoard walks its
+ * bitsets at most winLength slots each way, and any other Board is walked slot by slot.
+ * Since the game ends as soon as someone connects four, the only four in a row that can exist on a
+ * GameBoard after a move is the one through the slot that was just taken.
  * @author Kevin Somers
  */
 public class ScoreChecker {
+    private int winLength;
+
+    /**
+     * creates a ScoreChecker for the standard game, where Constants.WINLENGTH in a row wins
+     */
+    public ScoreChecker(){
+        this(Constants.WINLENGTH);
+    }
+
+    /**
+     * creates a ScoreChecker for a Connect-N variant
+     * @param winLength the number of consecutive pieces needed to win
+     * @throws IllegalArgumentException if winLength is less than one
+     */
+    public ScoreChecker(int winLength){
+        if (winLength < 1)
+            throw new IllegalArgumentException("winLength must be at least one");
+        this.winLength = winLength;
+    }
+
+    /**
+     * accessor
+     * @return the number of consecutive pieces needed to win
+     */
+    public int getWinLength(){
+        return this.winLength;
+    }
 
     /**
      * uses ScoreChecker and checks for all kinds of winning scenarios (horizontal, vertical or diagonal)
@@ -15,7 +46,13 @@ public class ScoreChecker {
      * @param col the column of interest to be checked
      * @return boolean indicating whether or not there is a winner
      */
-    public boolean gameHasWinner(GameBoard gameBoard, int row, int col){
+    public boolean gameHasWinner(Board gameBoard, int row, int col){
+        if (isPacked(gameBoard)){
+            int owner = gameBoard.getPos(row, col);
+            return owner != -1 && ((GameBoard) gameBoard).hasFourInARow(owner);
+        }
+        if (gameBoard instanceof LargeGameBoard)
+            return ((LargeGameBoard) gameBoard).hasLineThrough(row, col, this.winLength);
         return hasVertWinner(gameBoard, row, col) ||
                 hasHorizWinner(gameBoard, row, col) ||
                 hasDiagWinner(gameBoard, row, col);
@@ -28,8 +65,12 @@ public class ScoreChecker {
      * @param col the column of interest to be checked
      * @return boolean indicating whether or not there is a vertical winner
      */
-    public boolean hasVertWinner(GameBoard gameBoard, int row, int col){
-        if (navigateAndCount(gameBoard, row, col, "vertical") >= 4)
+    public boolean hasVertWinner(Board gameBoard, int row, int col){
+        if (isPacked(gameBoard))
+            return hasPackedWinner((GameBoard) gameBoard, row, col, Board.VERTICAL);
+        if (gameBoard instanceof LargeGameBoard)
+            return hasLargeWinner((LargeGameBoard) gameBoard, row, col, Board.VERTICAL);
+        if (navigateAndCount(gameBoard, row, col, "vertical") >= this.winLength)
             return true;
         return false;
     }
@@ -41,8 +82,12 @@ public class ScoreChecker {
      * @param col the column of interest to be checked
      * @return boolean indicating whether or not there is a horizontal winner
      */
-    public boolean hasHorizWinner(GameBoard gameBoard, int row, int col){
-        if(navigateAndCount(gameBoard, row, col, "horizontal") >= 4)
+    public boolean hasHorizWinner(Board gameBoard, int row, int col){
+        if (isPacked(gameBoard))
+            return hasPackedWinner((GameBoard) gameBoard, row, col, Board.HORIZONTAL);
+        if (gameBoard instanceof LargeGameBoard)
+            return hasLargeWinner((LargeGameBoard) gameBoard, row, col, Board.HORIZONTAL);
+        if(navigateAndCount(gameBoard, row, col, "horizontal") >= this.winLength)
             return true;
         return false;
     }
@@ -54,12 +99,52 @@ public class ScoreChecker {
      * @param col the column of interest to be checked
      * @return boolean indicating whether or not there is a diagonal winner
      */
-    public boolean hasDiagWinner(GameBoard gameBoard, int row, int col){
-        if(navigateAndCount(gameBoard, row, col, "diagonal") >= 4)
+    public boolean hasDiagWinner(Board gameBoard, int row, int col){
+        if (isPacked(gameBoard))
+            return hasPackedWinner((GameBoard) gameBoard, row, col, Board.DIAGONAL_DOWN)
+                    || hasPackedWinner((GameBoard) gameBoard, row, col, Board.DIAGONAL_UP);
+        if (gameBoard instanceof LargeGameBoard)
+            return hasLargeWinner((LargeGameBoard) gameBoard, row, col, Board.DIAGONAL_DOWN)
+                    || hasLargeWinner((LargeGameBoard) gameBoard, row, col, Board.DIAGONAL_UP);
+        if(navigateAndCount(gameBoard, row, col, "diagonal") >= this.winLength)
             return true;
         return false;
     }
 
+    /**
+     * @param gameBoard the gameboard being checked
+     * @return boolean indicating whether the shift-and-mask four in a row check applies to this board
+     */
+    private boolean isPacked(Board gameBoard){
+        return this.winLength == 4 && gameBoard instanceof GameBoard;
+    }
+
+    /**
+     * checks the bitboard of the player that owns (row,col) for four in a row through that slot in a single
+     * direction
+     * @param gameBoard the gameboard being checked
+     * @param row the row of interest to be checked
+     * @param col the column of interest to be checked
+     * @param direction one of the GameBoard direction constants
+     * @return boolean indicating whether or not the owner of the slot has four in a row through it in that direction
+     */
+    private boolean hasPackedWinner(GameBoard gameBoard, int row, int col, int direction){
+        int owner = gameBoard.getPos(row, col);
+        return owner != -1 && gameBoard.hasFourThrough(owner, row, col, direction);
+    }
+
+    /**
+     * checks the bitsets of the player that owns (row,col) for winLength in a row through that slot
+     * @param gameBoard the gameboard being checked
+     * @param row the row of interest to be checked
+     * @param col the column of interest to be checked
+     * @param direction one of the Board direction constants
+     * @return boolean indicating whether or not the owner of the slot has a winning line in that direction
+     */
+    private boolean hasLargeWinner(LargeGameBoard gameBoard, int row, int col, int direction){
+        return gameBoard.countThrough(row, col, direction, this.winLength) >= this.winLength;
+    }
+
     /**
      * navigate from the provided position in both direction to count the total consecutive.  For example, if
      * checking horizontally, this method will start at the col,row and navigate right counting consecutive
@@ -71,7 +156,7 @@ public class ScoreChecker {
      * @param direction the direction that's being checked: horizontal, vertical, diagonal
      * @return the total number of consecutive slots for the given player and given direction
      */
-    public int navigateAndCount(GameBoard gameBoard, int row, int col, String direction){
+    public int navigateAndCount(Board gameBoard, int row, int col, String direction){
         int slotOfInterest = gameBoard.getPos(row, col);
         int counterInOneDirection = 0;
         int counterInOtherDirection = 0;
@@ -129,7 +214,7 @@ public class ScoreChecker {
      * @param slotOfInterest the slot being checked, this is the slot that was just put down.
      * @return the number of consecutive diagonals found in the increasing direction
      */
-    private int calculateConseqDiagIncreasing(GameBoard gameBoard, int row, int col, int slotOfInterest){
+    private int calculateConseqDiagIncreasing(Board gameBoard, int row, int col, int slotOfInterest){
         int counterInOneDirection = 0;
         int counterInOtherDirection = 0;
         int rowOfInterest = row;
@@ -161,7 +246,7 @@ public class ScoreChecker {
      * @param slotOfInterest the slot being checked, this is the slot that was just put down.
      * @return the number of consecutive diagonals found in the decreasing direction
      */
-    private int calculateConseqDiagDecreasing(GameBoard gameBoard, int row, int col, int slotOfInterest){
+    private int calculateConseqDiagDecreasing(Board gameBoard, int row, int col, int slotOfInterest){
         int counterInOneDirection = 0;
         int counterInOtherDirection = 0;
         int rowOfInterest = row;
@@ -0,0 +1,695 @@
+package core;
+
+import core.Connect4Server.Streams;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static core.Constants.*;
+import static java.io.ObjectStreamConstants.*;
+
+/**
+ * SelectorTransport serves a Connect4Server's players without a thread per connection: a few event-loop threads
+ * each watch their share of the sockets with a Selector and only do work for a socket that has bytes to read or
+ * room to write.  An idle or slow player costs a channel and a small Connection, no thread and no buffer, so
+ * tens of thousands of them fit in the memory a few hundred threads need.
+ * <p>
+ * The wire protocol is the one Connect4Client speaks through its object streams, so clients can not tell the
+ * transports apart.  What clients send is primitive data only, chars and ints, which an ObjectOutputStream
+ * frames as block data records; a Connection decodes those records itself as the bytes arrive, a few at a
+ * time, and holds at most INBOUNDBYTES of decoded data before it stops reading from its socket.  What the
+ * server sends is written with a real ObjectOutputStream, so games are played by the same code as in the
+ * blocking transport, see Connect4Server.SelectorSession, but its bytes go to pooled direct buffers that are
+ * written to the socket by the connection's event loop and returned to the BufferPool once sent.
+ * <p>
+ * The computer's moves take far longer than anything an event loop may block for, so sessions hand them to a
+ * pool of turn threads, one per computer move in progress, never one per connection.  A connection that has
+ * not asked for a game within IDLEMILLIS is closed by the server's timer, which takes no thread of its own per
+ * connection either.
+ * @author Kevin Somers
+ */
+public class SelectorTransport {
+    private static final int INBOUNDBYTES = 64; //decoded bytes a connection holds before it stops reading
+    private static final long LOOPEXITMILLIS = 5000; //how long close waits for each loop to close its connections
+    private static final byte[] STREAMHEADER = {(byte) (STREAM_MAGIC >>> 8), (byte) STREAM_MAGIC,
+            (byte) (STREAM_VERSION >>> 8), (byte) STREAM_VERSION};
+
+    private final ServerSocketChannel serverChannel;
+    private final MatchQueue pvpQueue;
+    private final MatchQueue pvcQueue;
+    private final BufferPool buffers;
+    private final HashedWheelTimer timer;
+    private final EventLoop[] loops;
+    private final ExecutorService turns;
+    private final Handler handshake = new Handshake();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * something that consumes what a connection receives, the handshake until the player has chosen a game
+     * type and the player's session after that.  Both methods are called on the connection's event loop.
+     */
+    interface Handler {
+        /**
+         * called when decoded data is waiting, the handler reads what it can use and leaves the rest
+         * @param connection the connection with data waiting
+         */
+        void onReadable(Connection connection);
+
+        /**
+         * called once when the connection has closed, whichever end closed it
+         * @param connection the closed connection
+         */
+        void onClosed(Connection connection);
+    }
+
+    /**
+     * creates the transport, nothing is served until run is called
+     * @param serverChannel the bound channel to accept players on
+     * @param pvpQueue where players asking for a player vs player game are put for matchmaking
+     * @param pvcQueue where players asking for a player vs computer game are put for matchmaking
+     * @param threads the number of event-loop threads
+     * @param buffers the pool every connection's buffers come from
+     * @param timer the timer that closes connections that do not ask for a game in time, or null to wait for
+     *              them forever
+     * @throws IOException if a selector can not be opened
+     * @throws IllegalArgumentException if threads is less than one
+     */
+    public SelectorTransport(ServerSocketChannel serverChannel, MatchQueue pvpQueue, MatchQueue pvcQueue,
+                             int threads, BufferPool buffers, HashedWheelTimer timer) throws IOException {
+        if (threads < 1)
+            throw new IllegalArgumentException("a selector transport needs at least one event loop");
+        this.serverChannel = serverChannel;
+        this.pvpQueue = pvpQueue;
+        this.pvcQueue = pvcQueue;
+        this.buffers = buffers;
+        this.timer = timer;
+        this.loops = new EventLoop[threads];
+        for (int i = 0; i < threads; i++)
+            this.loops[i] = new EventLoop(i + 1);
+        AtomicInteger threadNo = new AtomicInteger(1);
+        this.turns = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "selector-turn-" + threadNo.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * starts the event loops and accepts players on the calling thread, handing each new connection to the
+     * loops in turn.  Returns once the transport is closed.
+     */
+    public void run(){
+        for (EventLoop loop : this.loops)
+            loop.thread.start();
+        int next = 0;
+        long acceptNo = 0;
+        while (this.running){
+            try {
+                SocketChannel channel = this.serverChannel.accept();
+                System.out.println(new Date() + ":player connected");
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                this.accepted.increment();
+                this.openConnections.incrementAndGet();
+                this.loops[next].register(channel, acceptNo++);
+                next = (next + 1) % this.loops.length;
+            } catch (ClosedChannelException ex){
+                break;
+            } catch (IOException ex){
+                System.out.println("Player has disconnected in match making");
+            }
+        }
+    }
+
+    /**
+     * stops accepting, closes every connection and stops the event loops.  The turn executor is only shut down
+     * once the loops have exited, the sessions ended by closing their connections still hand work to it.
+     */
+    public void close(){
+        this.running = false;
+        try {
+            this.serverChannel.close();
+        } catch (IOException ignored) {
+        }
+        for (EventLoop loop : this.loops)
+            loop.selector.wakeup();
+        for (EventLoop loop : this.loops){
+            if (loop.thread == Thread.currentThread())
+                continue;
+            try {
+                loop.thread.join(LOOPEXITMILLIS);
+            } catch (InterruptedException ex){
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        this.turns.shutdown();
+    }
+
+    /**
+     * accessor for the threads sessions search the computer's moves on
+     * @return the turn executor
+     */
+    ExecutorService getTurnExecutor(){
+        return this.turns;
+    }
+
+    /**
+     * accessor
+     * @return connections currently open
+     */
+    public int getOpenConnections(){
+        return this.openConnections.get();
+    }
+
+    /**
+     * accessor
+     * @return connections accepted since the transport started
+     */
+    public long getAccepted(){
+        return this.accepted.sum();
+    }
+
+    /**
+     * summarizes the transport for the server's log
+     * @return one line of statistics
+     */
+    public String getStatistics(){
+        return String.format("selector transport: %d event loops, %d connections accepted, %d open, "
+                        + "%d buffers of %d bytes allocated, %d pooled",
+                this.loops.length, getAccepted(), getOpenConnections(), this.buffers.getAllocated(),
+                this.buffers.getBufferBytes(), this.buffers.getPooled());
+    }
+
+    /**
+     * an event-loop thread and the connections registered with its selector.  Work for a connection coming
+     * from another thread is queued and the selector woken, so a connection's socket, interest set and
+     * decoded data are only ever touched by its own loop.
+     */
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+
+        EventLoop(int number) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "selector-" + number);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * runs a task on the loop, after the events it is processing now
+         * @param task the task
+         */
+        void execute(Runnable task){
+            this.tasks.add(task);
+            if (Thread.currentThread() != this.thread)
+                this.selector.wakeup();
+        }
+
+        /**
+         * takes over a newly accepted channel and sends it the stream header the client is waiting for
+         * @param channel the channel, already non-blocking
+         * @param acceptNo the order the channel was accepted in
+         */
+        void register(SocketChannel channel, long acceptNo){
+            execute(() -> {
+                Connection connection = new Connection(channel, this);
+                connection.streams.acceptNo = acceptNo;
+                try {
+                    connection.key = channel.register(this.selector, SelectionKey.OP_READ, connection);
+                    connection.sendHeader();
+                    if (timer != null && IDLEMILLIS > 0)
+                        connection.idle = timer.newTimeout(connection::evictIdle, IDLEMILLIS);
+                } catch (IOException ex){
+                    connection.close();
+                }
+            });
+        }
+
+        public void run(){
+            while (running){
+                try {
+                    if (this.tasks.isEmpty())
+                        this.selector.select();
+                    else //queued by the loop itself while it handled the last events, nothing woke the selector
+                        this.selector.selectNow();
+                } catch (IOException ex){
+                    break;
+                }
+                Runnable task;
+                while ((task = this.tasks.poll()) != null){
+                    try {
+                        task.run();
+                    } catch (RuntimeException ex){ //one failing task must not stop the loop for every other
+                        ex.printStackTrace();
+                    }
+                }
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()){
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isWritable())
+                            connection.flushOutbound();
+                        if (key.isValid() && key.isReadable())
+                            connection.read();
+                    } catch (RuntimeException ex){ //drop the connection, not the loop and its other connections
+                        ex.printStackTrace();
+                        connection.close();
+                    }
+                }
+            }
+            for (SelectionKey key : new ArrayList<>(this.selector.keys())){
+                try {
+                    ((Connection) key.attachment()).close();
+                } catch (RuntimeException ex){ //the selector and the other connections are still closed
+                    ex.printStackTrace();
+                }
+            }
+            try {
+                this.selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * one player's socket.  Its Streams has no input stream, the data the player sends is read with available,
+     * readChar and readInt instead, and an output stream that is only created once something is sent.
+     */
+    final class Connection {
+        private final SocketChannel channel;
+        private final EventLoop loop;
+        private final Streams streams = new Streams();
+        private SelectionKey key;
+        private volatile Handler handler = handshake;
+        private volatile boolean open = true;
+        private final byte[] inbound = new byte[INBOUNDBYTES];
+        private int inboundLength;
+        private int headerRead;
+        private int lengthRemaining; //bytes of a block header's length still to come
+        private int blockLength;
+        private int blockRemaining; //bytes of the current block still to come
+        private ByteBuffer filling; //the buffer being written into, guarded by this
+        private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>(2); //flushed, guarded by this
+        private boolean flushScheduled; //a write is queued on the loop or waiting for room, guarded by this
+        private boolean closeWhenFlushed; //guarded by this
+        private volatile HashedWheelTimer.Timeout idle; //closes the connection if no game is asked for in time
+
+        Connection(SocketChannel channel, EventLoop loop){
+            this.channel = channel;
+            this.loop = loop;
+            this.streams.connection = this;
+        }
+
+        /**
+         * accessor
+         * @return the player's streams, handed to matchmaking once the player has chosen a game type
+         */
+        Streams getStreams(){
+            return this.streams;
+        }
+
+        /**
+         * accessor
+         * @return false once the connection has closed
+         */
+        boolean isOpen(){
+            return this.open;
+        }
+
+        /**
+         * hands the connection to the handler that consumes what the player sends from now on, and lets it
+         * read whatever already arrived
+         * @param handler the new handler
+         */
+        void attach(Handler handler){
+            this.handler = handler;
+            poll();
+        }
+
+        /**
+         * lets the handler read the data already waiting, used when it becomes ready for data it left unread
+         */
+        void poll(){
+            this.loop.execute(this::deliver);
+        }
+
+        /**
+         * the stream everything sent to the player is written with, created on first use.  Its header is
+         * left out, the connection sent it on connecting.
+         * @return the output stream, also set as the Streams' out
+         * @throws IOException if the connection has closed
+         */
+        synchronized ObjectOutputStream output() throws IOException {
+            if (!this.open)
+                throw new IOException("connection closed");
+            if (this.streams.out == null)
+                this.streams.out = new HeaderlessOutputStream(new Sink());
+            return this.streams.out;
+        }
+
+        /**
+         * @return decoded bytes waiting to be read, loop thread only
+         */
+        int available(){
+            return this.inboundLength;
+        }
+
+        /**
+         * reads a char the player wrote with writeChar, loop thread only
+         * @return the char
+         */
+        char readChar(){
+            char value = (char) (((this.inbound[0] & 0xFF) << 8) | (this.inbound[1] & 0xFF));
+            consumed(2);
+            return value;
+        }
+
+        /**
+         * reads an int the player wrote with writeInt, loop thread only
+         * @return the int
+         */
+        int readInt(){
+            int value = ((this.inbound[0] & 0xFF) << 24) | ((this.inbound[1] & 0xFF) << 16)
+                    | ((this.inbound[2] & 0xFF) << 8) | (this.inbound[3] & 0xFF);
+            consumed(4);
+            return value;
+        }
+
+        private void consumed(int count){
+            this.inboundLength -= count;
+            System.arraycopy(this.inbound, count, this.inbound, 0, this.inboundLength);
+            if (this.open && (this.key.interestOps() & SelectionKey.OP_READ) == 0)
+                this.key.interestOps(this.key.interestOps() | SelectionKey.OP_READ);
+        }
+
+        private void sendHeader() throws IOException {
+            append(STREAMHEADER, 0, STREAMHEADER.length);
+            flush();
+        }
+
+        /**
+         * reads what the socket has, no more than there is room to decode, and hands it to the handler
+         */
+        private void read(){
+            int room = INBOUNDBYTES - this.inboundLength;
+            if (room == 0){ //the handler is not reading, leave the rest in the socket until it does
+                this.key.interestOps(this.key.interestOps() & ~SelectionKey.OP_READ);
+                return;
+            }
+            ByteBuffer buffer = buffers.acquire();
+            try {
+                //every byte read is either framing or a data byte, so all of it fits
+                buffer.limit(Math.min(room, buffer.capacity()));
+                if (this.channel.read(buffer) < 0){
+                    close();
+                    return;
+                }
+                buffer.flip();
+                if (!decode(buffer)){
+                    System.out.println("player sent something other than primitive data, disconnecting");
+                    close();
+                    return;
+                }
+            } catch (IOException ex){
+                close();
+                return;
+            } finally {
+                buffers.release(buffer);
+            }
+            deliver();
+        }
+
+        /**
+         * decodes the stream header and the block data records an ObjectOutputStream writes primitive data
+         * in, resets are skipped
+         * @param in the bytes read from the socket
+         * @return false if the bytes are not a stream of primitive data
+         */
+        private boolean decode(ByteBuffer in){
+            while (in.hasRemaining()){
+                if (this.headerRead < STREAMHEADER.length){
+                    if (in.get() != STREAMHEADER[this.headerRead++])
+                        return false;
+                } else if (this.lengthRemaining > 0){
+                    this.blockLength = (this.blockLength << 8) | (in.get() & 0xFF);
+                    if (--this.lengthRemaining == 0){
+                        if (this.blockLength < 0)
+                            return false;
+                        this.blockRemaining = this.blockLength;
+                    }
+                } else if (this.blockRemaining > 0){
+                    int count = Math.min(this.blockRemaining, in.remaining());
+                    in.get(this.inbound, this.inboundLength, count);
+                    this.inboundLength += count;
+                    this.blockRemaining -= count;
+                } else {
+                    byte tag = in.get();
+                    this.blockLength = 0;
+                    if (tag == TC_BLOCKDATA)
+                        this.lengthRemaining = 1;
+                    else if (tag == TC_BLOCKDATALONG)
+                        this.lengthRemaining = 4;
+                    else if (tag != TC_RESET)
+                        return false;
+                }
+            }
+            return true;
+        }
+
+        private void deliver(){
+            Handler current = this.handler;
+            if (this.open && current != null && this.inboundLength > 0)
+                current.onReadable(this);
+        }
+
+        private synchronized void append(byte[] bytes, int offset, int length) throws IOException {
+            if (!this.open)
+                throw new IOException("connection closed");
+            while (length > 0){
+                if (this.filling == null)
+                    this.filling = buffers.acquire();
+                int count = Math.min(length, this.filling.remaining());
+                this.filling.put(bytes, offset, count);
+                offset += count;
+                length -= count;
+                if (!this.filling.hasRemaining()){
+                    this.filling.flip();
+                    this.outbound.add(this.filling);
+                    this.filling = null;
+                }
+            }
+        }
+
+        /**
+         * queues what has been written for sending, the loop sends it
+         */
+        private synchronized void flush() throws IOException {
+            if (!this.open)
+                throw new IOException("connection closed");
+            if (this.filling != null){
+                this.filling.flip();
+                this.outbound.add(this.filling);
+                this.filling = null;
+            }
+            if (!this.flushScheduled && !this.outbound.isEmpty()){
+                this.flushScheduled = true;
+                this.loop.execute(this::flushOutbound);
+            }
+        }
+
+        /**
+         * writes the queued buffers until they are all sent or the socket has no more room, in which case the
+         * loop writes the rest when it has
+         */
+        private void flushOutbound(){
+            boolean failed = false;
+            boolean finished = false;
+            synchronized (this){
+                if (!this.open)
+                    return;
+                try {
+                    while (!this.outbound.isEmpty()){
+                        ByteBuffer buffer = this.outbound.peek();
+                        this.channel.write(buffer);
+                        if (buffer.hasRemaining())
+                            break;
+                        buffers.release(this.outbound.poll());
+                    }
+                } catch (IOException ex){
+                    failed = true;
+                }
+                if (!failed){
+                    boolean drained = this.outbound.isEmpty();
+                    int ops = this.key.interestOps();
+                    this.key.interestOps(drained ? ops & ~SelectionKey.OP_WRITE : ops | SelectionKey.OP_WRITE);
+                    this.flushScheduled = !drained;
+                    finished = drained && this.closeWhenFlushed;
+                }
+            }
+            if (failed || finished)
+                close();
+        }
+
+        /**
+         * closes the connection once everything flushed so far has been sent, from any thread
+         */
+        void closeWhenFlushed(){
+            this.loop.execute(() -> {
+                boolean idle;
+                synchronized (this){
+                    this.closeWhenFlushed = true;
+                    idle = !this.flushScheduled;
+                }
+                if (idle)
+                    close();
+            });
+        }
+
+        /**
+         * closes a connection that has not asked for a game in time, on the timer's thread
+         */
+        private void evictIdle(){
+            System.out.println(new Date() + ": player did not ask for a game in time, disconnecting");
+            abort();
+        }
+
+        /**
+         * stops the idle timeout, the player has asked for a game
+         */
+        private void stopIdleTimeout(){
+            HashedWheelTimer.Timeout timeout = this.idle;
+            if (timeout != null)
+                timeout.cancel();
+            this.idle = null;
+        }
+
+        /**
+         * closes the connection from any thread, on its loop, dropping whatever has not been sent
+         */
+        void abort(){
+            this.loop.execute(this::close);
+        }
+
+        /**
+         * closes the socket at once, gives back its buffers and tells the handler, loop thread only
+         */
+        void close(){
+            synchronized (this){
+                if (!this.open)
+                    return;
+                this.open = false;
+                if (this.filling != null)
+                    buffers.release(this.filling);
+                this.filling = null;
+                while (!this.outbound.isEmpty())
+                    buffers.release(this.outbound.poll());
+            }
+            stopIdleTimeout();
+            if (this.key != null)
+                this.key.cancel();
+            try {
+                this.channel.close();
+            } catch (IOException ignored) {
+            }
+            openConnections.decrementAndGet();
+            Handler current = this.handler;
+            if (current != null)
+                current.onClosed(this);
+        }
+
+        /**
+         * the stream an ObjectOutputStream writes to, its bytes go to the connection's buffers
+         */
+        private final class Sink extends OutputStream {
+            private final byte[] single = new byte[1];
+
+            public void write(int b) throws IOException {
+                synchronized (Connection.this){
+                    this.single[0] = (byte) b;
+                    append(this.single, 0, 1);
+                }
+            }
+
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                append(bytes, offset, length);
+            }
+
+            public void flush() throws IOException {
+                Connection.this.flush();
+            }
+        }
+    }
+
+    /**
+     * reads the game type and options a player sends first, like Connect4Server.SocketServicer, and queues the
+     * player for matchmaking once the game type is known
+     */
+    private final class Handshake implements Handler {
+        public void onReadable(Connection connection){
+            Streams playerStreams = connection.getStreams();
+            try {
+                while (connection.handler == this && connection.available() >= 2){
+                    char gameType = connection.readChar();
+                    if (gameType == DELTAMODE) { //option sent ahead of the game type, no reply expected
+                        playerStreams.deltaMode = true;
+                    } else if (Difficulty.forCode(gameType) != null) { //likewise
+                        playerStreams.difficulty = Difficulty.forCode(gameType);
+                    } else if (gameType == PLAYERVSCOMP) {
+                        connection.handler = null; //matchmaking attaches the session
+                        connection.stopIdleTimeout();
+                        pvcQueue.add(playerStreams);
+                    } else if (gameType == PLAYERVSPLAYER) {
+                        connection.handler = null;
+                        connection.stopIdleTimeout();
+                        pvpQueue.add(playerStreams);
+                    } else { //user did not provide 'P' or 'C'
+                        connection.output().writeChar(BADINPUT);
+                        connection.output().flush();
+                    }
+                }
+            } catch (IOException ex){
+                connection.close();
+            }
+        }
+
+        public void onClosed(Connection connection){
+            System.out.println("player disconnected in matchmaking: trying to get game type");
+        }
+    }
+
+    /**
+     * an ObjectOutputStream that does not write the stream header, for a connection that has already sent it
+     */
+    private static final class HeaderlessOutputStream extends ObjectOutputStream {
+        HeaderlessOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void writeStreamHeader(){
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SessionRegistry keeps the games a server is playing.  A session is registered before it starts and removes
+ * itself when it ends, however it ends, so the registry only ever holds live games and the count of them is read
+ * without walking anything.  Draining turns away the sessions registered afterwards while the ones already
+ * playing finish, which lets a server shut down without cutting games off, and whatever is still playing when
+ * the server gives up waiting is aborted.  Safe to use from any thread.
+ * @author Kevin Somers
+ */
+public class SessionRegistry {
+
+    /**
+     * a game the registry keeps
+     */
+    public interface Session {
+        /**
+         * ends the game at once by closing its players' connections, the session still removes itself
+         */
+        void abort();
+    }
+
+    private final Set<Session> live = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger liveCount = new AtomicInteger();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder ended = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+    private volatile boolean draining;
+
+    /**
+     * registers a session about to start
+     * @param session the session
+     * @return false if the registry is draining, the session must not start
+     */
+    public boolean register(Session session){
+        this.liveCount.incrementAndGet(); //counted before the check, so a drain that missed it waits for it
+        if (this.draining){
+            this.liveCount.decrementAndGet();
+            this.refused.increment();
+            signalIfIdle();
+            return false;
+        }
+        this.live.add(session);
+        this.started.increment();
+        return true;
+    }
+
+    /**
+     * removes a session that has ended, removing it again or removing one never registered does nothing
+     * @param session the session
+     */
+    public void remove(Session session){
+        if (!this.live.remove(session))
+            return;
+        this.ended.increment();
+        this.liveCount.decrementAndGet();
+        signalIfIdle();
+    }
+
+    private void signalIfIdle(){
+        if (this.draining && this.liveCount.get() == 0){
+            synchronized (this){
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * stops registering sessions and waits for the live ones to end
+     * @param timeoutMillis the longest to wait
+     * @return true if every session ended in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean drain(long timeoutMillis) throws InterruptedException {
+        this.draining = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (this){
+            while (this.liveCount.get() > 0){
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return false;
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * aborts every live session
+     * @return the number of sessions aborted
+     */
+    public int abortAll(){
+        int count = 0;
+        for (Session session : new ArrayList<>(this.live)){
+            session.abort();
+            count++;
+        }
+        this.aborted.add(count);
+        return count;
+    }
+
+    /**
+     * accessor
+     * @return the number of sessions registered and not yet ended
+     */
+    public int getLive(){
+        return this.liveCount.get();
+    }
+
+    /**
+     * accessor
+     * @return true once drain has been called
+     */
+    public boolean isDraining(){
+        return this.draining;
+    }
+
+    /**
+     * accessor
+     * @return the number of sessions registered since the registry was created
+     */
+    public long getStarted(){
+        return this.started.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of sessions that have ended
+     */
+    public long getEnded(){
+        return this.ended.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of sessions turned away while draining
+     */
+    public long getRefused(){
+        return this.refused.sum();
+    }
+
+    /**
+     * @return the registry's counters on one line, for the server's log
+     */
+    public String getStatistics(){
+        return String.format("%d sessions live, %d started, %d ended, %d refused while draining, %d aborted",
+                getLive(), getStarted(), getEnded(), getRefused(), this.aborted.sum());
+    }
+}
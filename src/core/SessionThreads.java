@@ -0,0 +1,80 @@
+package core;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SessionThreads makes the threads a blocking Connect4Server serves its players on: platform threads, or virtual
+ * threads on a JVM that has them (Java 21 and later).  The project is built for Java 8, so virtual threads are
+ * reached through reflection, and asking for them on an older JVM gives platform threads instead.
+ * <p>
+ * A virtual thread only gives its carrier back while it waits if nothing pins it there, that is if it is not
+ * blocked inside a synchronized block or a native frame.  The waits of SocketServicer and HandleASession are
+ * socket reads and writes through the object streams, which do not synchronize, the computer's move, which is
+ * waited for on a FutureTask, and console logging, which PrintStream guards with a lock that does not pin on
+ * the JVMs that have virtual threads.  The synchronized sections they pass through, in Ponderer and in the
+ * EvaluationCache, never block.  Running the server with -Djdk.tracePinnedThreads=full reports any pinning.
+ * @author Kevin Somers
+ */
+public class SessionThreads {
+    private static final ThreadFactory VIRTUALPROBE = virtualFactory("probe-");
+
+    private final ThreadFactory factory;
+    private final boolean virtual;
+
+    /**
+     * creates the factory
+     * @param prefix the start of every thread's name, followed by a number
+     * @param preferVirtual true to make virtual threads if the JVM has them
+     */
+    public SessionThreads(String prefix, boolean preferVirtual){
+        ThreadFactory virtualThreads = preferVirtual ? virtualFactory(prefix) : null;
+        this.virtual = virtualThreads != null;
+        if (this.virtual){
+            this.factory = virtualThreads;
+        } else {
+            AtomicInteger threadNo = new AtomicInteger(1);
+            this.factory = runnable -> new Thread(runnable, prefix + threadNo.getAndIncrement());
+        }
+    }
+
+    /**
+     * checks whether the JVM can make virtual threads
+     * @return true on Java 21 and later
+     */
+    public static boolean virtualThreadsAvailable(){
+        return VIRTUALPROBE != null;
+    }
+
+    /**
+     * looks up Thread.ofVirtual().name(prefix, 1).factory()
+     * @return the factory, or null if the JVM has no virtual threads
+     */
+    private static ThreadFactory virtualFactory(String prefix){
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException ex){ //older JVM, or a preview not enabled
+            return null;
+        }
+    }
+
+    /**
+     * makes a thread, not yet started
+     * @param task what the thread runs
+     * @return the new thread
+     */
+    public Thread newThread(Runnable task){
+        return this.factory.newThread(task);
+    }
+
+    /**
+     * accessor
+     * @return true if the threads made are virtual
+     */
+    public boolean isVirtual(){
+        return this.virtual;
+    }
+}
@@ -0,0 +1,392 @@
+package core;
+
+/**
+ * Solver plays perfectly: it finds the exact game-theoretic value of a position, in the scoring of John Tromp and
+ * Pascal Pons.  A position is worth 0 if it is a draw with best play, and positive if the player to move wins.
+ * The value counts how early: 1 for a win with the player's last checker, 2 for one checker earlier and so on.
+ * A negative value means a loss counted the same way from the opponent's side.  distanceToResult turns a score
+ * into the number of plies until the game ends.
+ * <p>
+ * The search works straight on the bitboards of a GameBoard, as two longs per position passed by value so making
+ * a move costs a couple of additions.  It prunes every move that hands the opponent an immediate win, tries the
+ * moves creating the most threats first (ties towards the center), and narrows the value down with null-window
+ * searches, each of which shares the results of the others through a TranspositionTable.  A position and its
+ * mirror image have the same value, so they share one entry of the table.
+ * <p>
+ * Solving an early position can take minutes.  bestMove takes a time budget, and stop or interrupting the
+ * solving thread gives up on a solve at any time; an abandoned solve stores nothing in the table and wasAborted
+ * tells it apart from a finished one.
+ * @author Kevin Somers
+ */
+public class Solver {
+    private static final int CHECKINTERVAL = 4096;
+
+    private final TranspositionTable table;
+    private int colLength;
+    private int rowLength;
+    private int size;
+    private long bottomMask;
+    private long boardMask;
+    private int[] columnOrder;
+    private long[][] orderedMoves; //scratch space for the move ordering of each ply
+    private int[][] orderedThreats;
+    private long nodes;
+    private long elapsedNanos;
+    private long deadline = Long.MAX_VALUE;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+
+    /**
+     * creates a solver with a table of Constants.SOLVERMEGABYTES
+     */
+    public Solver(){
+        this(new TranspositionTable(Constants.SOLVERMEGABYTES));
+    }
+
+    /**
+     * creates a solver using the given table, entries are kept between solves of the same board size
+     * @param table the transposition table the solver stores its bounds in
+     */
+    public Solver(TranspositionTable table){
+        this.table = table;
+    }
+
+    /**
+     * finds the exact value of a position, taking as long as it takes unless it is stopped
+     * @param gameBoard the position, it is not changed
+     * @return the score of the position for the player to move, see the class comment, meaningless if the solve
+     * was aborted
+     */
+    public int solve(GameBoard gameBoard){
+        this.deadline = Long.MAX_VALUE;
+        this.aborted = false;
+        int score = solvePosition(gameBoard);
+        this.stopRequested = false;
+        return score;
+    }
+
+    private int solvePosition(GameBoard gameBoard){
+        long start = System.nanoTime();
+        this.nodes = 0;
+        setSize(gameBoard);
+        int moves = gameBoard.getMoveCount();
+        int toMove = moves % 2;
+        long current = gameBoard.getPlayerBits(toMove);
+        long mask = gameBoard.getMask();
+        int score;
+        if (gameBoard.hasFourInARow(1 - toMove))
+            score = -(this.size + 2 - moves) / 2; //the opponent already won with the last checker
+        else if (moves == this.size)
+            score = 0;
+        else if ((winningPositions(current, mask) & possible(mask)) != 0)
+            score = (this.size + 1 - moves) / 2;
+        else
+            score = nullWindowSearch(current, mask, moves);
+        this.elapsedNanos = System.nanoTime() - start;
+        return score;
+    }
+
+    /**
+     * solves every move of a position to find the best one, taking as long as it takes unless it is stopped
+     * @param gameBoard the position, it is not changed
+     * @return the column with the highest score, or -1 if the game is over or the solve was aborted
+     */
+    public int bestMove(GameBoard gameBoard){
+        return bestMove(gameBoard, 0);
+    }
+
+    /**
+     * solves every move of a position to find the best one, giving up once the time budget runs out
+     * @param gameBoard the position, it is not changed
+     * @param timeBudgetMillis milliseconds the solve may take, 0 for no limit
+     * @return the column with the highest score, or -1 if the game is over or the solve was aborted
+     */
+    public int bestMove(GameBoard gameBoard, long timeBudgetMillis){
+        this.deadline = (timeBudgetMillis > 0) ? System.nanoTime() + timeBudgetMillis * 1000000L : Long.MAX_VALUE;
+        this.aborted = false;
+        int best = solveMoves(gameBoard);
+        this.stopRequested = false;
+        return best;
+    }
+
+    private int solveMoves(GameBoard gameBoard){
+        int toMove = gameBoard.getMoveCount() % 2;
+        if (gameBoard.hasFourInARow(1 - toMove))
+            return -1;
+        GameBoard board = gameBoard.copy();
+        setSize(board);
+        int best = -1;
+        int bestScore = Integer.MIN_VALUE;
+        for (int col : this.columnOrder){
+            if (board.putPiece(col, toMove) < 0)
+                continue;
+            int score = board.hasFourInARow(toMove) ? (this.size + 2 - board.getMoveCount()) / 2
+                    : -solvePosition(board);
+            board.undoPiece(col);
+            if (this.aborted)
+                return -1;
+            if (score > bestScore){
+                bestScore = score;
+                best = col;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * converts a score into the number of plies until the game ends with best play
+     * @param gameBoard the position the score is for
+     * @param score the score solve returned for it
+     * @return the number of checkers still to be dropped, the last of them winning unless the score is 0
+     */
+    public static int distanceToResult(GameBoard gameBoard, int score){
+        int moves = gameBoard.getMoveCount();
+        int size = gameBoard.getRowLength() * gameBoard.getColLength();
+        if (score == 0)
+            return size - moves;
+        //the winning checker is number size + 2 - 2|score| or the one before, whichever the winner drops
+        int last = size + 2 - 2 * Math.abs(score);
+        int parity = (score > 0) ? 1 : 0;
+        if ((last - moves) % 2 != parity)
+            last--;
+        return last - moves;
+    }
+
+    /**
+     * narrows the value of the position down by bisecting it with null-window searches, starting near 0 where
+     * most positions are decided
+     */
+    private int nullWindowSearch(long current, long mask, int moves){
+        this.table.newSearch();
+        int min = -(this.size - moves) / 2;
+        int max = (this.size + 1 - moves) / 2;
+        while (min < max){
+            int med = min + (max - min) / 2;
+            if (med <= 0 && min / 2 < med)
+                med = min / 2;
+            else if (med >= 0 && max / 2 > med)
+                med = max / 2;
+            int score = negamax(current, mask, moves, med, med + 1);
+            if (this.aborted)
+                return 0;
+            if (score <= med)
+                max = score;
+            else
+                min = score;
+        }
+        return min;
+    }
+
+    /**
+     * the alpha-beta search proper, for a position where the player to move can not win with their next checker
+     * @param current the checkers of the player to move
+     * @param mask every checker on the board
+     * @param moves the number of checkers on the board
+     * @param alpha the score the player to move is already sure of
+     * @param beta the score the opponent is already sure to keep the player to move under
+     * @return the exact score if it lies between alpha and beta, otherwise a bound on the same side as the window
+     */
+    private int negamax(long current, long mask, int moves, int alpha, int beta){
+        if (++this.nodes % CHECKINTERVAL == 0 && (this.stopRequested || Thread.currentThread().isInterrupted()
+                || System.nanoTime() > this.deadline))
+            this.aborted = true;
+        if (this.aborted)
+            return alpha;
+        long opponentWins = winningPositions(current ^ mask, mask);
+        long possible = possible(mask);
+        long forced = possible & opponentWins;
+        if (forced != 0){
+            if ((forced & (forced - 1)) != 0)
+                return -(this.size - moves) / 2; //two threats to block, the opponent wins next move
+            possible = forced;
+        }
+        long next = possible & ~(opponentWins >>> 1); //never play under an opponent's winning slot
+        if (next == 0)
+            return -(this.size - moves) / 2;
+        if (moves >= this.size - 2)
+            return 0;
+
+        int min = -(this.size - 2 - moves) / 2;
+        if (alpha < min){
+            alpha = min;
+            if (alpha >= beta)
+                return alpha;
+        }
+        int max = (this.size - 1 - moves) / 2;
+        long key = current + mask;
+        key = mix(Math.min(key, mirror(key)));
+        long entry = this.table.probe(key);
+        if (entry != 0){
+            int bound = TranspositionTable.score(entry);
+            if (TranspositionTable.flag(entry) == TranspositionTable.LOWERBOUND){
+                if (bound > min)
+                    min = bound;
+                if (alpha < min){
+                    alpha = min;
+                    if (alpha >= beta)
+                        return alpha;
+                }
+            } else if (bound < max){
+                max = bound;
+            }
+        }
+        if (beta > max){
+            beta = max;
+            if (alpha >= beta)
+                return beta;
+        }
+
+        //order the moves by the number of threats they leave, insertion sort keeps the center-first order on ties
+        long[] ordered = this.orderedMoves[moves];
+        int[] threats = this.orderedThreats[moves];
+        int count = 0;
+        for (int col : this.columnOrder){
+            long move = next & columnMask(col);
+            if (move == 0)
+                continue;
+            int score = Long.bitCount(winningPositions(current | move, mask));
+            int i = count++;
+            while (i > 0 && threats[i - 1] < score){
+                ordered[i] = ordered[i - 1];
+                threats[i] = threats[i - 1];
+                i--;
+            }
+            ordered[i] = move;
+            threats[i] = score;
+        }
+        //entries are stored with depth 0 so a newer one always replaces an older one, which keeps the table filled
+        //with the part of the tree the null-window searches are revisiting
+        for (int i = 0; i < count; i++){
+            long childMask = mask | ordered[i];
+            int score = -negamax(current ^ mask, childMask, moves + 1, -beta, -alpha);
+            if (this.aborted)
+                return alpha; //not stored, the score is not known
+            if (score >= beta){
+                this.table.store(key, score, 0, TranspositionTable.LOWERBOUND, -1);
+                return score;
+            }
+            if (score > alpha)
+                alpha = score;
+        }
+        this.table.store(key, alpha, 0, TranspositionTable.UPPERBOUND, -1);
+        return alpha;
+    }
+
+    /**
+     * finds the empty slots where a player would complete four in a row, playable now or not
+     * @param position the player's checkers
+     * @param mask every checker on the board
+     * @return the bits of those slots
+     */
+    private long winningPositions(long position, long mask){
+        int h = this.rowLength;
+        //vertical, only ever completed from above
+        long r = (position << 1) & (position << 2) & (position << 3);
+        r |= lineEnds(position, h + 1) | lineEnds(position, h) | lineEnds(position, h + 2);
+        return r & (this.boardMask ^ mask);
+    }
+
+    /**
+     * finds the slots completing four in a row along one direction, at either end or in one of the two gaps
+     * @param position the player's checkers
+     * @param stride the distance in bits between neighbouring slots in the direction
+     * @return the bits of those slots, empty or not
+     */
+    private static long lineEnds(long position, int stride){
+        long p = (position << stride) & (position << 2 * stride);
+        long r = p & (position << 3 * stride);
+        r |= p & (position >>> stride);
+        p = (position >>> stride) & (position >>> 2 * stride);
+        r |= p & (position << stride);
+        r |= p & (position >>> 3 * stride);
+        return r;
+    }
+
+    /**
+     * @param mask every checker on the board
+     * @return the bit of the lowest empty slot of every column that is not full
+     */
+    private long possible(long mask){
+        return (mask + this.bottomMask) & this.boardMask;
+    }
+
+    private long columnMask(int col){
+        return ((1L << this.rowLength) - 1) << col * (this.rowLength + 1);
+    }
+
+    /**
+     * mirrors a position left to right, so both orientations of a position can share one table entry
+     * @param key a bitboard, either the checkers of a player or current + mask
+     * @return the bitboard with every column moved to colLength - 1 - column
+     */
+    private long mirror(long key){
+        int stride = this.rowLength + 1;
+        long columnBits = (1L << stride) - 1;
+        long mirrored = 0L;
+        for (int col = 0, other = this.colLength - 1; col < this.colLength; col++, other--)
+            mirrored |= ((key >>> col * stride) & columnBits) << other * stride;
+        return mirrored;
+    }
+
+    /**
+     * spreads current + mask, which is unique to a position but has poorly distributed low bits, over the whole
+     * key as the table indexes by the low bits (the MurmurHash3 finalizer)
+     */
+    private static long mix(long key){
+        key = (key ^ (key >>> 33)) * 0xFF51AFD7ED558CCDL;
+        key = (key ^ (key >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return key ^ (key >>> 33);
+    }
+
+    /**
+     * sets up the masks for the board's size and a center-first column order
+     */
+    private void setSize(GameBoard gameBoard){
+        if (gameBoard.getColLength() == this.colLength && gameBoard.getRowLength() == this.rowLength)
+            return;
+        this.colLength = gameBoard.getColLength();
+        this.rowLength = gameBoard.getRowLength();
+        this.size = this.colLength * this.rowLength;
+        this.bottomMask = 0L;
+        for (int col = 0; col < this.colLength; col++)
+            this.bottomMask |= 1L << col * (this.rowLength + 1);
+        this.boardMask = this.bottomMask * ((1L << this.rowLength) - 1);
+        this.columnOrder = new int[this.colLength];
+        for (int i = 0; i < this.colLength; i++)
+            this.columnOrder[i] = this.colLength / 2 + (1 - 2 * (i % 2)) * (i + 1) / 2;
+        this.orderedMoves = new long[this.size][this.colLength];
+        this.orderedThreats = new int[this.size][this.colLength];
+        this.table.newSearch();
+    }
+
+    /**
+     * asks a running solve, possibly on another thread, to give up as soon as possible
+     */
+    public void stop(){
+        this.stopRequested = true;
+    }
+
+    /**
+     * accessor for the last solve
+     * @return true if the last solve or bestMove gave up, on stop, an interrupt or its time budget running out
+     */
+    public boolean wasAborted(){
+        return this.aborted;
+    }
+
+    /**
+     * accessor for the last solve
+     * @return the number of positions searched
+     */
+    public long getNodes(){
+        return this.nodes;
+    }
+
+    /**
+     * accessor for the last solve
+     * @return milliseconds the solve took
+     */
+    public long getMillis(){
+        return this.elapsedNanos / 1000000L;
+    }
+}
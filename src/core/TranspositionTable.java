@@ -0,0 +1,222 @@
+package core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TranspositionTable remembers the results of positions already searched so a search reaching the same position
+ * through a different move order does not search it again.  It is a fixed amount of memory allocated up front as
+ * one long[] holding two longs per entry, the data and the position's Zobrist key XORed with the data.  Reads and
+ * writes take no locks: a reader that sees half of one thread's write and half of another's gets a key that no
+ * longer XORs back, so the entry is treated as a miss instead of returning another position's result.  That makes
+ * one table safe to share between any number of searching threads.
+ * <p>
+ * Each slot keeps the entry that cost the most to compute, deeper searches replace shallower ones, unless the
+ * stored entry is left over from an earlier search, in which case it is always replaced.  A table shared by many
+ * players, each starting searches of its own, can be given a generation interval: newSearch then starts a new
+ * generation at most once per interval, so one player's search does not age the entries of every other search
+ * running at the time.
+ * @author Kevin Somers
+ */
+public class TranspositionTable {
+    public static final int EXACT = 1; // score is the exact value of the position
+    public static final int LOWERBOUND = 2; // the position is worth at least score
+    public static final int UPPERBOUND = 3; // the position is worth at most score
+
+    private static final int ENTRYBYTES = 16;
+
+    private final long[] table;
+    private final int indexMask;
+    private volatile int generation;
+    private final long generationNanos;
+    private final AtomicLong generationStarted = new AtomicLong(System.nanoTime());
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * allocates the table, the number of entries is rounded down to a power of two, every newSearch starts a new
+     * generation
+     * @param megabytes memory the table may use
+     * @throws IllegalArgumentException if megabytes is less than one
+     */
+    public TranspositionTable(int megabytes){
+        this(megabytes, 0);
+    }
+
+    /**
+     * allocates the table, the number of entries is rounded down to a power of two
+     * @param megabytes memory the table may use
+     * @param generationMillis the shortest time between two generations, 0 to start one on every newSearch
+     * @throws IllegalArgumentException if megabytes is less than one or generationMillis is negative
+     */
+    public TranspositionTable(int megabytes, long generationMillis){
+        if (megabytes < 1)
+            throw new IllegalArgumentException("a transposition table needs at least one megabyte");
+        if (generationMillis < 0)
+            throw new IllegalArgumentException("a generation cannot last a negative time");
+        this.generationNanos = TimeUnit.MILLISECONDS.toNanos(generationMillis);
+        long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / ENTRYBYTES);
+        entries = Math.min(entries, 1L << 30);
+        this.table = new long[(int) entries * 2];
+        this.indexMask = (int) entries - 1;
+    }
+
+    /**
+     * the table shared by every computer player in the process, Constants.TTMEGABYTES in size, starting a new
+     * generation at most every Constants.TTGENERATIONMILLIS
+     * @return the shared table
+     */
+    public static TranspositionTable shared(){
+        return SharedHolder.TABLE;
+    }
+
+    private static class SharedHolder {
+        static final TranspositionTable TABLE = new TranspositionTable(Constants.TTMEGABYTES,
+                Constants.TTGENERATIONMILLIS);
+    }
+
+    /**
+     * looks up a position
+     * @param hashKey the Zobrist key of the position
+     * @return the packed entry for the position, or 0 if the table does not hold it.  Use the static accessors
+     * to unpack it.
+     */
+    public long probe(long hashKey){
+        this.probes.increment();
+        int index = ((int) hashKey & this.indexMask) << 1;
+        long data = this.table[index + 1];
+        if (data == 0 || (this.table[index] ^ data) != hashKey)
+            return 0;
+        this.hits.increment();
+        return data;
+    }
+
+    /**
+     * stores the result of searching a position, keeping whichever of it and the entry already in the slot was
+     * searched deeper
+     * @param hashKey the Zobrist key of the position
+     * @param score the score of the position
+     * @param depth plies the position was searched to
+     * @param flag one of EXACT, LOWERBOUND or UPPERBOUND
+     * @param move the best column found, -1 if none
+     */
+    public void store(long hashKey, int score, int depth, int flag, int move){
+        int index = ((int) hashKey & this.indexMask) << 1;
+        int current = this.generation;
+        long existing = this.table[index + 1];
+        if (existing != 0 && generation(existing) == current && depth(existing) > depth
+                && (this.table[index] ^ existing) != hashKey)
+            return;
+        long data = (score & 0xFFFFFFFFL)
+                | ((long) Math.min(depth, 255) << 32)
+                | ((long) flag << 40)
+                | ((long) (move + 1) << 42)
+                | ((long) current << 50);
+        this.table[index] = hashKey ^ data;
+        this.table[index + 1] = data;
+        this.stores.increment();
+    }
+
+    /**
+     * marks the start of a new search so entries left over from earlier searches give way to new ones.  With a
+     * generation interval nothing changes until the current generation is that old, and of the searches starting
+     * at once only one starts the next generation.
+     */
+    public void newSearch(){
+        if (this.generationNanos > 0){
+            long now = System.nanoTime();
+            long started = this.generationStarted.get();
+            if (now - started < this.generationNanos || !this.generationStarted.compareAndSet(started, now))
+                return;
+        }
+        this.generation = (this.generation + 1) & 0x3F;
+    }
+
+    /**
+     * @param entry an entry returned by probe
+     * @return the score stored in the entry
+     */
+    public static int score(long entry){
+        return (int) entry;
+    }
+
+    /**
+     * @param entry an entry returned by probe
+     * @return plies the position was searched to
+     */
+    public static int depth(long entry){
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    /**
+     * @param entry an entry returned by probe
+     * @return one of EXACT, LOWERBOUND or UPPERBOUND
+     */
+    public static int flag(long entry){
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    /**
+     * @param entry an entry returned by probe
+     * @return the best column found, -1 if none
+     */
+    public static int move(long entry){
+        return (int) ((entry >>> 42) & 0xFF) - 1;
+    }
+
+    private static int generation(long entry){
+        return (int) (entry >>> 50) & 0x3F;
+    }
+
+    /**
+     * accessor
+     * @return the number of entries the table can hold
+     */
+    public int getCapacity(){
+        return this.indexMask + 1;
+    }
+
+    /**
+     * accessor
+     * @return the fraction of probes that found their position, 0 if nothing was probed yet
+     */
+    public double getHitRate(){
+        long probed = this.probes.sum();
+        return (probed == 0) ? 0 : (double) this.hits.sum() / probed;
+    }
+
+    /**
+     * accessor
+     * @return the number of lookups since the statistics were last reset
+     */
+    public long getProbes(){
+        return this.probes.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of lookups that found their position
+     */
+    public long getHits(){
+        return this.hits.sum();
+    }
+
+    /**
+     * accessor
+     * @return the number of results stored
+     */
+    public long getStores(){
+        return this.stores.sum();
+    }
+
+    /**
+     * clears the hit rate statistics, the entries are kept
+     */
+    public void resetStatistics(){
+        this.probes.reset();
+        this.hits.reset();
+        this.stores.reset();
+    }
+}
@@ -0,0 +1,190 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * WindowEvaluator scores a position by its windows, every run of winLength slots a line could be made in: 69 of
+ * them on the standard 6x7 board.  A window holding checkers of only one player is worth more to that player the
+ * more checkers it holds, each checker more making it four times as valuable.  A window holding checkers of both
+ * players can never be won and is worth nothing.
+ * <p>
+ * The windows are worked out once, when the evaluator is created, in two forms: a bitboard mask per window, so
+ * a GameBoard is evaluated from scratch with two popcounts per window, and the list of windows through each
+ * slot, so a running score is kept up to date as checkers are added and removed by touching only the windows
+ * through that slot.  Either way a window's value comes from a table indexed by how many checkers each player
+ * has in it, so an evaluation walks no lines and allocates nothing.  The running score belongs to one board at
+ * a time, so each search needs its own evaluator.
+ * @author Kevin Somers
+ */
+public class WindowEvaluator {
+    private final int rowLength;
+    private final int colLength;
+    private final int winLength;
+    private final long[] windowMasks;
+    private final int[][] windowsThrough; //the windows through each slot, indexed by row * colLength + col
+    private final int[] values; //value of a window for player 0, indexed by its code
+    private final int[] codes; //checkers of player 0 * (winLength + 1) + checkers of player 1, per window
+    private int score;
+
+    /**
+     * works out the windows of the board and the value of every way of filling them
+     * @param row the number of rows of the boards evaluated
+     * @param col the number of columns of the boards evaluated
+     * @param winLength the number of checkers in a row that wins
+     * @throws IllegalArgumentException if the board does not fit in a bitboard or winLength is out of range
+     */
+    public WindowEvaluator(int row, int col, int winLength){
+        if (row <= 0 || col <= 0 || (row + 1) * col > 64)
+            throw new IllegalArgumentException("a " + row + "x" + col + " board does not fit in a bitboard");
+        if (winLength < 2 || winLength > 8)
+            throw new IllegalArgumentException("windows of " + winLength + " checkers are not supported");
+        this.rowLength = row;
+        this.colLength = col;
+        this.winLength = winLength;
+
+        int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {-1, 1}}; //VERTICAL, HORIZONTAL, DIAGONAL_DOWN, DIAGONAL_UP
+        long[] masks = new long[directions.length * row * col];
+        int count = 0;
+        for (int[] direction : directions){
+            for (int r = 0; r < row; r++){
+                for (int c = 0; c < col; c++){
+                    int endRow = r + (winLength - 1) * direction[0];
+                    if (endRow < 0 || endRow >= row || c + (winLength - 1) * direction[1] >= col)
+                        continue;
+                    for (int i = 0; i < winLength; i++)
+                        masks[count] |= slotBit(r + i * direction[0], c + i * direction[1]);
+                    count++;
+                }
+            }
+        }
+        this.windowMasks = Arrays.copyOf(masks, count);
+        this.windowsThrough = new int[row * col][];
+        for (int r = 0; r < row; r++){
+            for (int c = 0; c < col; c++){
+                long slot = slotBit(r, c);
+                int through = 0;
+                for (long window : this.windowMasks)
+                    if ((window & slot) != 0)
+                        through++;
+                this.windowsThrough[r * col + c] = new int[through];
+                through = 0;
+                for (int window = 0; window < count; window++)
+                    if ((this.windowMasks[window] & slot) != 0)
+                        this.windowsThrough[r * col + c][through++] = window;
+            }
+        }
+
+        this.values = new int[(winLength + 1) * (winLength + 1)];
+        for (int mine = 1; mine <= winLength; mine++){
+            int weight = 1 << (2 * (mine - 1));
+            this.values[mine * (winLength + 1)] = weight;
+            this.values[mine] = -weight;
+        }
+        this.codes = new int[count];
+    }
+
+    /**
+     * scores a board from scratch, two popcounts and a table lookup per window
+     * @param gameBoard the board, the same size as the evaluator
+     * @param playerID the player whose point of view the score is from
+     * @return the total value of the windows for the player less their value for the opponent
+     */
+    public int evaluate(GameBoard gameBoard, int playerID){
+        long player0 = gameBoard.getPlayerBits(0);
+        long player1 = gameBoard.getPlayerBits(1);
+        int stride = this.winLength + 1;
+        int total = 0;
+        for (long window : this.windowMasks)
+            total += this.values[Long.bitCount(player0 & window) * stride + Long.bitCount(player1 & window)];
+        return (playerID == 0) ? total : -total;
+    }
+
+    /**
+     * starts the running score over from the checkers already on a board
+     * @param gameBoard the board, the same size as the evaluator
+     */
+    public void reset(Board gameBoard){
+        Arrays.fill(this.codes, 0);
+        this.score = 0;
+        for (int row = 0; row < this.rowLength; row++){
+            for (int col = 0; col < this.colLength; col++){
+                int owner = gameBoard.getPos(row, col);
+                if (owner != -1)
+                    add(row, col, owner);
+            }
+        }
+    }
+
+    /**
+     * updates the running score for a checker just dropped
+     * @param row the row putPiece returned
+     * @param col the column the checker was dropped in
+     * @param playerID the player the checker belongs to
+     */
+    public void add(int row, int col, int playerID){
+        int step = (playerID == 0) ? this.winLength + 1 : 1;
+        for (int window : this.windowsThrough[row * this.colLength + col]){
+            int code = this.codes[window];
+            this.score += this.values[code + step] - this.values[code];
+            this.codes[window] = code + step;
+        }
+    }
+
+    /**
+     * updates the running score for a checker just taken back
+     * @param row the row undoPiece returned
+     * @param col the column the checker was taken from
+     * @param playerID the player the checker belonged to
+     */
+    public void remove(int row, int col, int playerID){
+        int step = (playerID == 0) ? this.winLength + 1 : 1;
+        for (int window : this.windowsThrough[row * this.colLength + col]){
+            int code = this.codes[window];
+            this.score += this.values[code - step] - this.values[code];
+            this.codes[window] = code - step;
+        }
+    }
+
+    /**
+     * accessor for the running score
+     * @param playerID the player whose point of view the score is from
+     * @return the total value of the windows for the player less their value for the opponent
+     */
+    public int getScore(int playerID){
+        return (playerID == 0) ? this.score : -this.score;
+    }
+
+    /**
+     * calculates the bit a slot uses, the same as GameBoard.slotBit
+     * @param row row of interest
+     * @param col column of interest
+     * @return a long with only the bit for (row,col) set
+     */
+    private long slotBit(int row, int col){
+        return 1L << (col * (this.rowLength + 1) + this.rowLength - 1 - row);
+    }
+
+    /**
+     * accessor
+     * @return the number of windows on the board, 69 on the standard board
+     */
+    public int getWindowCount(){
+        return this.windowMasks.length;
+    }
+
+    /**
+     * accessor
+     * @return the number of rows of the boards evaluated
+     */
+    public int getRowLength(){
+        return this.rowLength;
+    }
+
+    /**
+     * accessor
+     * @return the number of columns of the boards evaluated
+     */
+    public int getColLength(){
+        return this.colLength;
+    }
+}
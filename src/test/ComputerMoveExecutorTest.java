@@ -0,0 +1,197 @@
+package test;
+
+import core.AlphaBetaSearch;
+import core.ComputerMoveExecutor;
+import core.Connect4ComputerPlayer;
+import core.GameBoard;
+import core.MonteCarloTreeSearch;
+import core.MoveStrategy;
+import core.ParallelSearch;
+import core.ScoreChecker;
+import core.TranspositionTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static core.Constants.*;
+import static org.junit.Assert.*;
+
+public class ComputerMoveExecutorTest {
+    private GameBoard gameBoard;
+    private ScoreChecker scoreChecker;
+    private ComputerMoveExecutor executor;
+
+    @Before
+    public void setUp() throws Exception {
+        gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+        scoreChecker = new ScoreChecker();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (executor != null)
+            executor.shutdown();
+        executor = null;
+        gameBoard = null;
+        scoreChecker = null;
+    }
+
+    //a strategy that holds its thread for a while, stopped or not, before playing the first column
+    private static MoveStrategy slowStrategy(long millis){
+        return (board, checker, playerID) -> {
+            long end = System.nanoTime() + millis * 1000000L;
+            while (System.nanoTime() < end){
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ignored){
+                }
+            }
+            return 0;
+        };
+    }
+
+    private Thread requestInBackground(Connect4ComputerPlayer player){
+        Thread thread = new Thread(() -> executor.selectMove(player, gameBoard, scoreChecker));
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void ExecutorReturnsStrategyMoveAndMeasuresIt() throws Exception {
+        executor = new ComputerMoveExecutor(1, 4, 2000);
+        Connect4ComputerPlayer player = new Connect4ComputerPlayer(1, false, slowStrategy(50));
+        assertEquals(executor.selectMove(player, gameBoard, scoreChecker), 0);
+        assertEquals(executor.getRequests(), 1);
+        assertTrue(executor.getMeanComputeMillis() >= 40);
+        assertEquals(executor.getSaturatedFallbacks() + executor.getExpiredFallbacks(), 0);
+    }
+
+    @Test
+    public void FullQueueFallsBackOnCallingThread() throws Exception {
+        executor = new ComputerMoveExecutor(1, 1, 5000);
+        Thread running = requestInBackground(new Connect4ComputerPlayer(1, false, slowStrategy(500)));
+        Thread.sleep(100);
+        Thread queued = requestInBackground(new Connect4ComputerPlayer(1, false, slowStrategy(500)));
+        Thread.sleep(100);
+        long start = System.nanoTime();
+        int col = executor.selectMove(new Connect4ComputerPlayer(1, false, slowStrategy(500)),
+                gameBoard, scoreChecker);
+        assertTrue((System.nanoTime() - start) / 1000000 < 400);
+        assertFalse(gameBoard.colIsFull(col));
+        assertEquals(executor.getSaturatedFallbacks(), 1);
+        running.join();
+        queued.join();
+        assertTrue(executor.getMeanQueueWaitMillis() > 0);
+    }
+
+    @Test
+    public void RequestExpiringInQueueFallsBack() throws Exception {
+        executor = new ComputerMoveExecutor(1, 4, 200);
+        Thread running = requestInBackground(new Connect4ComputerPlayer(1, false, slowStrategy(600)));
+        Thread.sleep(50);
+        executor.selectMove(new Connect4ComputerPlayer(1, false, slowStrategy(600)), gameBoard, scoreChecker);
+        assertEquals(executor.getExpiredFallbacks(), 1);
+        running.join();
+    }
+
+    @Test
+    public void SearchRunningPastDeadlineIsStopped() throws Exception {
+        executor = new ComputerMoveExecutor(1, 4, 200);
+        Connect4ComputerPlayer player = new Connect4ComputerPlayer(1, false, new AlphaBetaSearch(10000));
+        long start = System.nanoTime();
+        int col = executor.selectMove(player, gameBoard, scoreChecker);
+        assertTrue((System.nanoTime() - start) / 1000000 < 2000);
+        assertFalse(gameBoard.colIsFull(col));
+        assertEquals(executor.getDeadlineStops(), 1);
+    }
+
+    @Test
+    public void SearchIgnoringStopIsLeftBehindAfterGracePeriod() throws Exception {
+        executor = new ComputerMoveExecutor(1, 4, 100, 100);
+        AtomicInteger calls = new AtomicInteger();
+        MoveStrategy slowOnce = slowStrategy(1000);
+        MoveStrategy stubborn = (board, checker, playerID) -> //only the first search overruns
+                (calls.getAndIncrement() == 0) ? slowOnce.selectMove(board, checker, playerID) : 0;
+        Connect4ComputerPlayer player = new Connect4ComputerPlayer(1, false, stubborn);
+        long start = System.nanoTime();
+        int col = executor.selectMove(player, gameBoard, scoreChecker);
+        assertTrue((System.nanoTime() - start) / 1000000 < 600);
+        assertFalse(gameBoard.colIsFull(col));
+        assertEquals(executor.getDeadlineStops(), 1);
+        assertEquals(executor.getOverrunFallbacks(), 1);
+        executor.selectMove(player, gameBoard, scoreChecker); //the first search is still running
+        assertEquals(executor.getOverrunFallbacks(), 2);
+        Thread.sleep(1200);
+        assertEquals(executor.selectMove(player, gameBoard, scoreChecker), 0);
+        assertEquals(executor.getOverrunFallbacks(), 2);
+    }
+
+    @Test
+    public void StoppedSearchLeavesTheThreadFreeOfTheStop() throws Exception {
+        executor = new ComputerMoveExecutor(1, 4, 200);
+        Connect4ComputerPlayer stopped = new Connect4ComputerPlayer(1, false, new AlphaBetaSearch(10000));
+        executor.selectMove(stopped, gameBoard, scoreChecker);
+        assertEquals(executor.getDeadlineStops(), 1);
+        MoveStrategy interrupted = (board, checker, playerID) -> Thread.currentThread().isInterrupted() ? 1 : 0;
+        assertEquals(executor.selectMove(new Connect4ComputerPlayer(1, false, interrupted), gameBoard, scoreChecker),
+                0);
+    }
+
+    @Test
+    public void ParallelSearchRunningPastDeadlineFreesItsThread() throws Exception {
+        executor = new ComputerMoveExecutor(1, 4, 300);
+        ParallelSearch search = new ParallelSearch(2, 5000, new TranspositionTable(1));
+        try {
+            Connect4ComputerPlayer player = new Connect4ComputerPlayer(1, false, search);
+            long start = System.nanoTime();
+            int col = executor.selectMove(player, gameBoard, scoreChecker);
+            assertTrue((System.nanoTime() - start) / 1000000 < 2000);
+            assertFalse(gameBoard.colIsFull(col));
+            assertEquals(executor.getDeadlineStops(), 1);
+            assertEquals(executor.getOverrunFallbacks(), 0);
+            assertTrue(search.wasStopped());
+            executor.selectMove(player, gameBoard, scoreChecker); //searched again, not left to the fallback
+            assertEquals(executor.getDeadlineStops(), 2);
+            assertEquals(executor.getOverrunFallbacks(), 0);
+        } finally {
+            search.close();
+        }
+    }
+
+    @Test
+    public void TreeSearchRunningPastDeadlineFreesItsThread() throws Exception {
+        executor = new ComputerMoveExecutor(1, 4, 300);
+        MonteCarloTreeSearch search = new MonteCarloTreeSearch(2, 5000, 0, 1);
+        try {
+            Connect4ComputerPlayer player = new Connect4ComputerPlayer(1, false, search);
+            long start = System.nanoTime();
+            int col = executor.selectMove(player, gameBoard, scoreChecker);
+            assertTrue((System.nanoTime() - start) / 1000000 < 2000);
+            assertFalse(gameBoard.colIsFull(col));
+            assertEquals(executor.getDeadlineStops(), 1);
+            assertEquals(executor.getOverrunFallbacks(), 0);
+            executor.selectMove(player, gameBoard, scoreChecker);
+            assertEquals(executor.getDeadlineStops(), 2);
+            assertEquals(executor.getOverrunFallbacks(), 0);
+        } finally {
+            search.close();
+        }
+    }
+
+    @Test
+    public void ExecutorLeavesBoardUnchanged() throws Exception {
+        executor = new ComputerMoveExecutor(1, 4, 2000);
+        gameBoard.putPiece(3, 0);
+        long hashKey = gameBoard.hashKey();
+        executor.selectMove(new Connect4ComputerPlayer(1, false, new AlphaBetaSearch(50)), gameBoard, scoreChecker);
+        assertEquals(gameBoard.hashKey(), hashKey);
+        assertEquals(gameBoard.getMoveCount(), 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ZeroThreadsThrowsIllegalArgumentException() throws Exception {
+        new ComputerMoveExecutor(0, 1, 100);
+    }
+}
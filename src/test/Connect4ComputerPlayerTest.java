@@ -1,5 +1,6 @@
 package test;
 
+import core.AlphaBetaSearch;
 import core.Connect4ComputerPlayer;
 import core.Constants;
 import core.GameBoard;
@@ -36,4 +37,47 @@ public class Connect4ComputerPlayerTest {
         assertTrue(col >= 0);
     }
 
+    @Test
+    public void ComputerTakesImmediateWin() throws Exception {
+        for(int i = 0; i < 3; i++){
+            gameBoard.putPiece(2, 0);
+            gameBoard.putPiece(6, 1);
+        }
+        gameBoard.putPiece(5, 1);
+        assertEquals(computerPlayer.getMove(gameBoard, scoreChecker), 2);
+    }
+
+    @Test
+    public void ComputerBlocksOpponentsWin() throws Exception {
+        gameBoard.putPiece(1, 1);
+        gameBoard.putPiece(0, 0);
+        gameBoard.putPiece(2, 1);
+        gameBoard.putPiece(0, 0);
+        gameBoard.putPiece(3, 1);
+        gameBoard.putPiece(6, 0);
+        assertEquals(computerPlayer.getMove(gameBoard, scoreChecker), 4);
+    }
+
+    @Test
+    public void SearchLeavesBoardUnchanged() throws Exception {
+        gameBoard.putPiece(3, 1);
+        gameBoard.decrementSpot();
+        long hashKey = gameBoard.hashKey();
+        computerPlayer.getMove(gameBoard, scoreChecker);
+        assertEquals(gameBoard.hashKey(), hashKey);
+        assertEquals(gameBoard.getSpots(), 41);
+        assertEquals(gameBoard.getMoveCount(), 1);
+    }
+
+    @Test
+    public void SearchAnswersWithinTimeBudget() throws Exception {
+        AlphaBetaSearch search = new AlphaBetaSearch(100);
+        Connect4ComputerPlayer player = new Connect4ComputerPlayer(0, false, search);
+        long start = System.currentTimeMillis();
+        player.getMove(gameBoard, scoreChecker);
+        assertTrue(System.currentTimeMillis() - start < 300);
+        assertTrue(search.getNodes() > 0);
+        assertTrue(search.getDepthReached() > 0);
+    }
+
 }
\ No newline at end of file
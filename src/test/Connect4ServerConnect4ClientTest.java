@@ -5,6 +5,7 @@ import org.junit.*;
 
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.ServerSocket;
@@ -28,6 +29,8 @@ public class Connect4ServerConnect4ClientTest {
             server.start(serverSocket);
         });
         serverThread.start();
+        for (int i = 0; i < 100 && (server == null || server.getServerSocket() == null); i++)
+            Thread.sleep(50); //connecting before the server listens makes the client exit
     }
 
 
@@ -164,4 +167,123 @@ public class Connect4ServerConnect4ClientTest {
         c1.sendMove(0);
         c1.close();
     }
+
+    @Test
+    public void ComputerAtRequestedDifficultyReplies() throws Exception {
+        c1 = new Connect4Client(); //player 0
+        c1.requestDifficulty(Difficulty.EASY);
+        c1.sendGameType(Constants.PLAYERVSCOMP);
+        c1.getGameStatus(); //players number
+        c1.getGameStatus(); //continue
+
+        c1.getGameBoard();
+        assertEquals(c1.sendMove(3), Constants.GOODINPUT);
+        assertEquals(c1.getGameStatus(), Constants.CONTINUE);
+        GameBoard board = c1.getGameBoard();
+        c1.close();
+        assertEquals(board.getMoveCount(), 2);
+    }
+
+    @Test
+    public void DeltaModeClientsTrackBoardWithoutResync() throws Exception {
+        c1 = new Connect4Client(); //player 0
+        c1.requestDeltaMode();
+        c1.sendGameType(Constants.PLAYERVSPLAYER);
+        c2 = new Connect4Client(); //player 1
+        c2.requestDeltaMode();
+        c2.sendGameType(Constants.PLAYERVSPLAYER);
+        c1.getGameStatus(); //players number
+        c2.getGameStatus(); //players number
+        c1.getGameStatus(); //continue
+
+        GameBoard c1Board = null;
+        GameBoard c2Board = null;
+        for(int i = 0; i < 3; i++){
+            c1Board = c1.getGameBoard();
+            c1.sendMove(0);
+            c1Board.putPiece(0, 0);
+            c2.getGameStatus();
+            c2Board = c2.getGameBoard();
+            c2.sendMove(1);
+            c2Board.putPiece(1, 1);
+            c1.getGameStatus();
+        }
+        c1Board = c1.getGameBoard();
+        c1.close();
+        c2.close();
+        assertEquals(c1.getResyncs(), 0);
+        assertEquals(c2.getResyncs(), 0);
+        assertEquals(c1Board.getMoveCount(), 6);
+        assertEquals(c1Board.getPos(5, 1), 1);
+        assertEquals(c2Board.getPos(3, 0), 0);
+    }
+
+    @Test
+    public void DeltaModeClientThatMissesItsOwnMoveIsResynced() throws Exception {
+        c1 = new Connect4Client(); //player 0
+        c1.requestDeltaMode();
+        c1.sendGameType(Constants.PLAYERVSPLAYER);
+        c2 = new Connect4Client(); //player 1
+        c2.sendGameType(Constants.PLAYERVSPLAYER);
+        c1.getGameStatus(); //players number
+        c2.getGameStatus(); //players number
+        c1.getGameStatus(); //continue
+
+        c1.getGameBoard();
+        c1.sendMove(3); //never put on c1's local board
+        c2.getGameStatus();
+        c2.getGameBoard();
+        c2.sendMove(3);
+        c1.getGameStatus();
+        GameBoard c1Board = c1.getGameBoard();
+        c1.close();
+        c2.close();
+        assertEquals(c1.getResyncs(), 1);
+        assertEquals(c1Board.getPos(5, 3), 0);
+        assertEquals(c1Board.getPos(4, 3), 1);
+    }
+
+    @Test
+    public void PlayerWhoRunsOutOfTimeForfeits() throws Exception {
+        long moveMillis = Constants.MOVEMILLIS;
+        Constants.MOVEMILLIS = 500;
+        try {
+            c1 = new Connect4Client(); //player 0
+            c1.sendGameType(Constants.PLAYERVSPLAYER);
+            c2 = new Connect4Client(); //player 1
+            c2.sendGameType(Constants.PLAYERVSPLAYER);
+            c1.getGameStatus(); //players number
+            c2.getGameStatus(); //players number
+            c1.getGameStatus(); //continue
+            c1.getGameBoard(); //and never moves
+
+            assertEquals(c2.getGameStatus(), Constants.PLAYER1_WON);
+            assertEquals(c2.getGameBoard().getMoveCount(), 0);
+            try {
+                c1.getGameStatus();
+                fail("the player who ran out of time is still connected");
+            } catch (IOException expected) {
+            }
+            c1.close();
+            c2.close();
+        } finally {
+            Constants.MOVEMILLIS = moveMillis;
+        }
+    }
+
+    @Test
+    public void ConnectionThatNeverAsksForAGameIsClosed() throws Exception {
+        long idleMillis = Constants.IDLEMILLIS;
+        Constants.IDLEMILLIS = 300;
+        try (Socket socket = new Socket(Constants.HOST, Constants.PORT)){
+            socket.setSoTimeout(5000);
+            new ObjectOutputStream(socket.getOutputStream()).flush();
+            InputStream in = socket.getInputStream();
+            for (int i = 0; i < 4; i++) //the stream header
+                assertTrue(in.read() >= 0);
+            assertEquals(in.read(), -1);
+        } finally {
+            Constants.IDLEMILLIS = idleMillis;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package test;
+
+import core.AlphaBetaSearch;
+import core.Connect4ComputerPlayer;
+import core.Constants;
+import core.Difficulty;
+import core.GameBoard;
+import core.GameManager;
+import core.MoveStrategy;
+import core.ParallelSearch;
+import core.PerfectPlay;
+import core.ScoreChecker;
+import core.Solver;
+import core.TranspositionTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DifficultyTest {
+    private GameBoard gameBoard;
+    private ScoreChecker scoreChecker;
+
+    @Before
+    public void setUp() throws Exception {
+        gameBoard = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+        scoreChecker = new ScoreChecker();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        gameBoard = null;
+        scoreChecker = null;
+    }
+
+    /**
+     * plays a game of the computer against a human dropping checkers in random columns
+     * @return the columns played, human and computer alternating
+     */
+    private List<Integer> playGame(Connect4ComputerPlayer computer, long humanSeed){
+        Random human = new Random(humanSeed);
+        GameBoard board = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+        List<Integer> moves = new ArrayList<>();
+        while (board.getSpots() > 0){
+            int col;
+            do {
+                col = human.nextInt(board.getColLength());
+            } while (board.colIsFull(col));
+            int row = board.putPiece(col, 0);
+            board.decrementSpot();
+            moves.add(col);
+            if (scoreChecker.gameHasWinner(board, row, col) || board.getSpots() == 0)
+                break;
+            col = computer.getMove(board, scoreChecker);
+            row = board.putPiece(col, 1);
+            board.decrementSpot();
+            moves.add(col);
+            if (scoreChecker.gameHasWinner(board, row, col))
+                break;
+        }
+        return moves;
+    }
+
+    @Test
+    public void EveryTierHasItsOwnCodeClearOfTheProtocol() throws Exception {
+        List<Character> codes = new ArrayList<>();
+        for (Difficulty difficulty : Difficulty.values()){
+            assertFalse(codes.contains(difficulty.getCode()));
+            codes.add(difficulty.getCode());
+            assertEquals(Difficulty.forCode(difficulty.getCode()), difficulty);
+        }
+        for (Character reserved : new Character[] {Constants.PLAYERVSPLAYER, Constants.PLAYERVSCOMP,
+                Constants.GOODINPUT, Constants.BADINPUT, Constants.DELTAMODE})
+            assertNull(Difficulty.forCode(reserved));
+    }
+
+    @Test
+    public void NodeBudgetCapsTheSearch() throws Exception {
+        AlphaBetaSearch search = new AlphaBetaSearch(10000);
+        search.setMaxNodes(5000);
+        int col = search.selectMove(gameBoard, scoreChecker, 0);
+        assertTrue(col >= 0 && col < Constants.NUMCOLUMNS);
+        //the moves already being searched are finished on the way out, at most one per ply
+        assertTrue(search.getNodes() <= 5000 + Constants.NUMROWS * Constants.NUMCOLUMNS);
+        assertTrue(search.getDepthReached() > 0);
+    }
+
+    @Test
+    public void SameSeedReplaysTheSameGame() throws Exception {
+        for (Difficulty difficulty : new Difficulty[] {Difficulty.EASY, Difficulty.MEDIUM}){
+            List<Integer> first = playGame(new Connect4ComputerPlayer(1, false, difficulty, 42), 7);
+            List<Integer> second = playGame(new Connect4ComputerPlayer(1, false, difficulty, 42), 7);
+            assertEquals(second, first);
+        }
+    }
+
+    @Test
+    public void DifferentSeedsMakeDifferentMistakes() throws Exception {
+        List<Integer> first = playGame(new Connect4ComputerPlayer(1, false, Difficulty.EASY, 1), 7);
+        List<Integer> second = playGame(new Connect4ComputerPlayer(1, false, Difficulty.EASY, 2), 7);
+        assertNotEquals(second, first);
+    }
+
+    @Test
+    public void PositionAskedAgainGetsTheSameReply() throws Exception {
+        Connect4ComputerPlayer computer = new Connect4ComputerPlayer(1, false, Difficulty.EASY, 3);
+        int[] moves = {3, 2, 4, 3, 0, 6, 1};
+        for (int i = 0; i < moves.length; i++){
+            gameBoard.putPiece(moves[i], i % 2);
+            gameBoard.decrementSpot();
+        }
+        int reply = computer.getMove(gameBoard, scoreChecker);
+        for (int i = 0; i < 5; i++)
+            assertEquals(computer.getMove(gameBoard, scoreChecker), reply);
+    }
+
+    @Test
+    public void PerfectPlaysTheSolversMoveOnceEnoughCheckersAreDown() throws Exception {
+        MoveStrategy perfect = Difficulty.PERFECT.createStrategy();
+        assertTrue(perfect instanceof PerfectPlay);
+        String moves = "4453543322566";
+        for (int i = 0; i < moves.length(); i++){
+            gameBoard.putPiece(moves.charAt(i) - '1', i % 2);
+            gameBoard.decrementSpot();
+        }
+        int toMove = gameBoard.getMoveCount() % 2;
+        assertTrue(gameBoard.getMoveCount() < ((PerfectPlay) perfect).getSolveFromMove());
+        int col = perfect.selectMove(gameBoard, scoreChecker, toMove); //searched, too early to solve
+        assertFalse(gameBoard.colIsFull(col));
+        gameBoard.putPiece(col, toMove);
+        gameBoard.decrementSpot();
+        toMove = 1 - toMove;
+        int solved = new Solver(new TranspositionTable(16)).bestMove(gameBoard);
+        assertEquals(perfect.selectMove(gameBoard, scoreChecker, toMove), solved);
+    }
+
+    @Test
+    public void PerfectSearchesOnceTheSolveRunsOutOfTime() throws Exception {
+        PerfectPlay perfect = new PerfectPlay(new AlphaBetaSearch(400), 0); //the empty board takes minutes to solve
+        assertEquals(perfect.getSolveMillis(), 200);
+        long start = System.nanoTime();
+        int col = perfect.selectMove(gameBoard, scoreChecker, 0);
+        assertTrue((System.nanoTime() - start) / 1000000 < 1000);
+        assertFalse(gameBoard.colIsFull(col));
+        assertEquals(gameBoard.getMoveCount(), 0);
+    }
+
+    @Test
+    public void ExpertSpreadsItsMoveOverTheSharedPool() throws Exception {
+        MoveStrategy expert = Difficulty.EXPERT.createStrategy();
+        assertTrue(expert instanceof ParallelSearch);
+        assertEquals(((ParallelSearch) expert).getThreads(), Constants.EXPERTTHREADS);
+        int col = expert.selectMove(gameBoard, scoreChecker, 0);
+        assertFalse(gameBoard.colIsFull(col));
+        assertTrue(expert.getDepthReached() > 0);
+        ((ParallelSearch) expert).close();
+        assertFalse(ParallelSearch.sharedPool().isShutdown()); //every EXPERT player shares it
+    }
+
+    @Test
+    public void GameManagerSetsUpComputerAtDifficulty() throws Exception {
+        GameManager gameManager = new GameManager();
+        gameManager.setupPvC(Difficulty.MEDIUM, 42);
+        Connect4ComputerPlayer computer = (Connect4ComputerPlayer) gameManager.getPlayers().get(1);
+        assertEquals(computer.getDifficulty(), Difficulty.MEDIUM);
+        assertEquals(computer.getSeed(), 42);
+        assertEquals(((AlphaBetaSearch) computer.getStrategy()).getMaxNodes(), 50000);
+        assertFalse(gameManager.isPlayerVsPlayer());
+    }
+
+    @Test
+    public void DefaultComputerPlaysHard() throws Exception {
+        Connect4ComputerPlayer computer = new Connect4ComputerPlayer(1, false);
+        assertEquals(computer.getDifficulty(), Difficulty.HARD);
+        assertEquals(((AlphaBetaSearch) computer.getStrategy()).getTimeBudgetMillis(),
+                Constants.COMPUTERMOVEMILLIS);
+    }
+}
@@ -0,0 +1,197 @@
+package test;
+
+import core.Board;
+import core.Connect4ComputerPlayer;
+import core.Constants;
+import core.EvaluationCache;
+import core.GameBoard;
+import core.MoveStrategy;
+import core.ScoreChecker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EvaluationCacheTest {
+    private EvaluationCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new EvaluationCache(64);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache = null;
+    }
+
+    @Test
+    public void StoredPositionIsFound() throws Exception {
+        cache.store(12345L, 3, -17, 9);
+        long entry = cache.probe(12345L);
+        assertEquals(EvaluationCache.move(entry), 3);
+        assertEquals(EvaluationCache.score(entry), -17);
+        assertEquals(EvaluationCache.depth(entry), 9);
+        assertEquals(cache.probe(54321L), 0);
+        assertEquals(cache.getHitRate(), 0.5, 1e-9);
+    }
+
+    @Test
+    public void DeeperResultIsKept() throws Exception {
+        cache.store(7L, 2, 5, 12);
+        cache.store(7L, 4, 1, 8);
+        assertEquals(EvaluationCache.move(cache.probe(7L)), 2);
+        cache.store(7L, 5, 0, 14);
+        assertEquals(EvaluationCache.move(cache.probe(7L)), 5);
+        assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void ReferencedPositionSurvivesEviction() throws Exception {
+        //the top four bits pick the segment, keep every key in the same one
+        long referencedKey = 1L;
+        cache.store(referencedKey, 1, 0, 10);
+        for (long key = 2; key <= 4; key++)
+            cache.store(key, 1, 0, 10);
+        cache.probe(referencedKey);
+        for (long key = 5; key <= 200; key++){
+            cache.store(key, 1, 0, 10);
+            cache.probe(referencedKey);
+        }
+        assertNotEquals(cache.probe(referencedKey), 0);
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.size() <= cache.getCapacity());
+    }
+
+    @Test
+    public void CacheNeverReturnsAnotherPositionsResult() throws Exception {
+        Random rand = new Random(17);
+        Map<Long, Integer> stored = new HashMap<>();
+        for (int i = 0; i < 20000; i++){
+            long key = rand.nextInt(300) * 0x9E3779B97F4A7C15L; //few distinct keys so they are evicted and return
+            if (rand.nextBoolean()){
+                int move = rand.nextInt(7);
+                cache.store(key, move, 0, 0); //equal depths, the latest result replaces the cached one
+                stored.put(key, move);
+            } else {
+                long entry = cache.probe(key);
+                if (entry != 0)
+                    assertEquals(EvaluationCache.move(entry), (int) stored.get(key));
+            }
+        }
+        assertEquals(cache.size(), cache.getCapacity());
+        assertTrue(cache.getHits() > 0);
+    }
+
+    @Test
+    public void MemoryIsReportedUpFront() throws Exception {
+        long bytes = cache.getMemoryBytes();
+        assertTrue(bytes >= 17L * cache.getCapacity());
+        cache.store(1L, 0, 0, 1);
+        assertEquals(cache.getMemoryBytes(), bytes);
+        assertTrue(cache.getStatistics().contains("1 of " + cache.getCapacity()));
+    }
+
+    @Test
+    public void ComputerPlayerAnswersRepeatedPositionFromCache() throws Exception {
+        int[] searches = new int[1];
+        MoveStrategy strategy = new MoveStrategy() {
+            public int selectMove(Board gameBoard, ScoreChecker scoreChecker, int playerID){
+                searches[0]++;
+                return 4;
+            }
+
+            public int getDepthReached(){
+                return 12;
+            }
+        };
+        Connect4ComputerPlayer first = new Connect4ComputerPlayer(1, false, strategy, null, cache);
+        Connect4ComputerPlayer second = new Connect4ComputerPlayer(1, false, strategy, null, cache);
+        GameBoard gameBoard = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+        gameBoard.putPiece(3, 0);
+        ScoreChecker scoreChecker = new ScoreChecker();
+        assertEquals(first.getMove(gameBoard, scoreChecker), 4);
+        assertEquals(second.getMove(gameBoard, scoreChecker), 4);
+        assertEquals(searches[0], 1);
+        assertEquals(cache.getHits(), 1);
+    }
+
+    @Test
+    public void ComputerPlayerAnswersMirroredPositionWithMirroredColumn() throws Exception {
+        int[] searches = new int[1];
+        MoveStrategy strategy = new MoveStrategy() {
+            public int selectMove(Board gameBoard, ScoreChecker scoreChecker, int playerID){
+                searches[0]++;
+                return 2;
+            }
+
+            public int getDepthReached(){
+                return 12;
+            }
+        };
+        Connect4ComputerPlayer computer = new Connect4ComputerPlayer(1, false, strategy, null, cache);
+        GameBoard gameBoard = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+        gameBoard.putPiece(1, 0);
+        GameBoard mirrored = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+        mirrored.putPiece(Constants.NUMCOLUMNS - 2, 0);
+        ScoreChecker scoreChecker = new ScoreChecker();
+        assertEquals(computer.getMove(gameBoard, scoreChecker), 2);
+        assertEquals(computer.getMove(mirrored, scoreChecker), Constants.NUMCOLUMNS - 3);
+        assertEquals(searches[0], 1);
+    }
+
+    //a strategy that plays one column and reports the depth it was searched to, counting its searches
+    private static MoveStrategy fixedStrategy(int col, int depth, boolean stopped, int[] searches){
+        return new MoveStrategy() {
+            public int selectMove(Board gameBoard, ScoreChecker scoreChecker, int playerID){
+                searches[0]++;
+                return col;
+            }
+
+            public int getDepthReached(){
+                return depth;
+            }
+
+            public boolean wasStopped(){
+                return stopped;
+            }
+        };
+    }
+
+    @Test
+    public void StoppedOrShallowSearchIsNotCached() throws Exception {
+        int[] searches = new int[1];
+        GameBoard gameBoard = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+        gameBoard.putPiece(3, 0);
+        ScoreChecker scoreChecker = new ScoreChecker();
+        new Connect4ComputerPlayer(1, false, fixedStrategy(4, 12, true, searches), null, cache)
+                .getMove(gameBoard, scoreChecker);
+        new Connect4ComputerPlayer(1, false, fixedStrategy(4, Constants.EVALCACHEMINDEPTH - 1, false, searches),
+                null, cache).getMove(gameBoard, scoreChecker);
+        assertEquals(cache.getStores(), 0);
+        assertEquals(searches[0], 2);
+    }
+
+    @Test
+    public void CachedAnswerShallowerThanThePlayersSearchIsSearchedAgain() throws Exception {
+        int[] searches = new int[1];
+        GameBoard gameBoard = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+        gameBoard.putPiece(3, 0);
+        GameBoard other = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+        other.putPiece(0, 0);
+        ScoreChecker scoreChecker = new ScoreChecker();
+        new Connect4ComputerPlayer(1, false, fixedStrategy(4, 10, false, searches), null, cache)
+                .getMove(gameBoard, scoreChecker);
+        Connect4ComputerPlayer deep = new Connect4ComputerPlayer(1, false, fixedStrategy(2, 14, false, searches),
+                null, cache);
+        deep.getMove(other, scoreChecker); //the player's searches reach 14 plies
+        assertEquals(deep.getMove(gameBoard, scoreChecker), 2);
+        assertEquals(searches[0], 3);
+        assertEquals(EvaluationCache.depth(cache.probe(gameBoard.canonicalHashKey())), 14);
+    }
+}
@@ -5,6 +5,10 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 
 import static core.Constants.*;
 import static org.junit.Assert.*;
@@ -94,4 +98,165 @@ public class GameBoardTest {
         assertEquals(newBoardSpots - twoLessSpots, 2);
     }
 
+    @Test
+    public void FirstPieceInColumnLandsOnBottomRow() throws Exception {
+        assertEquals(gameBoard.putPiece(3, 0), NUMROWS - 1);
+        assertEquals(gameBoard.putPiece(3, 1), NUMROWS - 2);
+    }
+
+    @Test
+    public void PutPieceRecordsOwnerOfSlot() throws Exception {
+        gameBoard.putPiece(2, 1);
+        gameBoard.putPiece(2, 0);
+        assertEquals(gameBoard.getPos(NUMROWS - 1, 2), 1);
+        assertEquals(gameBoard.getPos(NUMROWS - 2, 2), 0);
+        assertEquals(gameBoard.getPos(NUMROWS - 3, 2), -1);
+    }
+
+    @Test
+    public void PutPieceOutOfBoundsReturnsNegOne() throws Exception {
+        assertEquals(gameBoard.putPiece(7, 0), -1);
+        assertEquals(gameBoard.putPiece(-1, 0), -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void BoardTooLargeForBitboardThrowsIllegalArgumentException() throws Exception {
+        new GameBoard(8, 8);
+    }
+
+    @Test
+    public void UndoPieceRestoresBoardAndSpots() throws Exception {
+        gameBoard.putPiece(4, 0);
+        gameBoard.decrementSpot();
+        gameBoard.putPiece(4, 1);
+        gameBoard.decrementSpot();
+        assertEquals(gameBoard.undoPiece(4), NUMROWS - 2);
+        assertEquals(gameBoard.getPos(NUMROWS - 2, 4), -1);
+        assertEquals(gameBoard.getPos(NUMROWS - 1, 4), 0);
+        assertEquals(gameBoard.getSpots(), 41);
+        assertEquals(gameBoard.getMoveCount(), 1);
+        assertEquals(gameBoard.getLastMove(), 4);
+    }
+
+    @Test
+    public void UndoPieceOnEmptyColumnReturnsNegOne() throws Exception {
+        assertEquals(gameBoard.undoPiece(2), -1);
+        assertEquals(gameBoard.getSpots(), 42);
+    }
+
+    @Test
+    public void UndoPieceReopensFullColumn() throws Exception {
+        fullColGameBoard.undoPiece(0);
+        assertEquals(fullColGameBoard.colIsFull(0), false);
+        assertEquals(fullColGameBoard.putPiece(0, 1), 0);
+    }
+
+    @Test
+    public void EmptyBoardHashKeyIsZero() throws Exception {
+        assertEquals(gameBoard.hashKey(), 0L);
+    }
+
+    @Test
+    public void SamePositionReachedInDifferentOrderHasSameHashKey() throws Exception {
+        GameBoard otherOrder = new GameBoard(NUMROWS, NUMCOLUMNS);
+        gameBoard.putPiece(1, 0);
+        gameBoard.putPiece(5, 1);
+        gameBoard.putPiece(3, 0);
+        otherOrder.putPiece(3, 0);
+        otherOrder.putPiece(5, 1);
+        otherOrder.putPiece(1, 0);
+        assertEquals(gameBoard.hashKey(), otherOrder.hashKey());
+    }
+
+    @Test
+    public void UndoPieceRestoresHashKey() throws Exception {
+        gameBoard.putPiece(2, 0);
+        long before = gameBoard.hashKey();
+        gameBoard.putPiece(2, 1);
+        assertNotEquals(gameBoard.hashKey(), before);
+        gameBoard.undoPiece(2);
+        assertEquals(gameBoard.hashKey(), before);
+    }
+
+    @Test
+    public void SameSlotOwnedByDifferentPlayersHasDifferentHashKey() throws Exception {
+        GameBoard otherPlayer = new GameBoard(NUMROWS, NUMCOLUMNS);
+        gameBoard.putPiece(0, 0);
+        otherPlayer.putPiece(0, 1);
+        assertNotEquals(gameBoard.hashKey(), otherPlayer.hashKey());
+    }
+
+    @Test
+    public void MirrorHashKeyIsHashKeyOfMirroredBoard() throws Exception {
+        GameBoard mirrored = new GameBoard(NUMROWS, NUMCOLUMNS);
+        int[] cols = {0, 1, 1, 5, 2, 6};
+        for(int i = 0; i < cols.length; i++){
+            gameBoard.putPiece(cols[i], i % 2);
+            mirrored.putPiece(NUMCOLUMNS - 1 - cols[i], i % 2);
+        }
+        assertEquals(gameBoard.mirrorHashKey(), mirrored.hashKey());
+        assertEquals(mirrored.mirrorHashKey(), gameBoard.hashKey());
+        gameBoard.undoPiece(6);
+        mirrored.undoPiece(0);
+        assertEquals(gameBoard.mirrorHashKey(), mirrored.hashKey());
+    }
+
+    @Test
+    public void MirroredBoardsShareCanonicalHashKey() throws Exception {
+        GameBoard mirrored = new GameBoard(NUMROWS, NUMCOLUMNS);
+        int[] cols = {3, 1, 0, 4, 1};
+        for(int i = 0; i < cols.length; i++){
+            gameBoard.putPiece(cols[i], i % 2);
+            mirrored.putPiece(NUMCOLUMNS - 1 - cols[i], i % 2);
+        }
+        assertEquals(gameBoard.canonicalHashKey(), mirrored.canonicalHashKey());
+        assertEquals(gameBoard.canonicalHashKey(), Math.min(gameBoard.hashKey(), mirrored.hashKey()));
+        assertNotEquals(gameBoard.isCanonicalMirrored(), mirrored.isCanonicalMirrored());
+    }
+
+    @Test
+    public void CanonicalColumnMapsMovesBetweenMirroredBoards() throws Exception {
+        GameBoard mirrored = new GameBoard(NUMROWS, NUMCOLUMNS);
+        gameBoard.putPiece(1, 0);
+        mirrored.putPiece(5, 0);
+        for(int col = 0; col < NUMCOLUMNS; col++){
+            assertEquals(mirrored.canonicalColumn(gameBoard.canonicalColumn(col)), NUMCOLUMNS - 1 - col);
+            assertEquals(gameBoard.canonicalColumn(gameBoard.canonicalColumn(col)), col);
+        }
+        assertEquals(gameBoard.canonicalColumn(-1), -1);
+    }
+
+    @Test
+    public void SymmetricBoardIsItsOwnCanonicalOrientation() throws Exception {
+        gameBoard.putPiece(3, 0);
+        gameBoard.putPiece(2, 1);
+        gameBoard.putPiece(4, 1);
+        assertEquals(gameBoard.mirrorHashKey(), gameBoard.hashKey());
+        assertFalse(gameBoard.isCanonicalMirrored());
+        assertEquals(gameBoard.canonicalColumn(2), 2);
+    }
+
+    @Test
+    public void SerializedBoardKeepsPositionSpotsAndHashKey() throws Exception {
+        gameBoard.putPiece(3, 0);
+        gameBoard.decrementSpot();
+        gameBoard.putPiece(3, 1);
+        gameBoard.decrementSpot();
+        gameBoard.putPiece(6, 0);
+        gameBoard.decrementSpot();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(gameBoard);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        GameBoard received = (GameBoard) in.readObject();
+        for (int i = 0; i < NUMROWS; i++)
+            for (int j = 0; j < NUMCOLUMNS; j++)
+                assertEquals(received.getPos(i, j), gameBoard.getPos(i, j));
+        assertEquals(received.getSpots(), 39);
+        assertEquals(received.hashKey(), gameBoard.hashKey());
+        assertEquals(received.undoPiece(3), NUMROWS - 2);
+        assertEquals(received.putPiece(3, 0), NUMROWS - 2);
+    }
+
 }
\ No newline at end of file
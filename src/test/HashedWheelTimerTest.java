@@ -0,0 +1,98 @@
+package test;
+
+import core.HashedWheelTimer;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class HashedWheelTimerTest {
+
+    @Test
+    public void TimeoutRunsOnceItsDelayHasPassed() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 8);
+        try {
+            CountDownLatch ran = new CountDownLatch(1);
+            long start = System.nanoTime();
+            HashedWheelTimer.Timeout timeout = timer.newTimeout(ran::countDown, 100);
+            assertTrue(ran.await(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            assertTrue(timeout.isExpired());
+            assertFalse(timeout.cancel());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void CancelledTimeoutNeverRuns() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 8);
+        try {
+            AtomicBoolean ran = new AtomicBoolean();
+            HashedWheelTimer.Timeout timeout = timer.newTimeout(() -> ran.set(true), 100);
+            Thread.sleep(30); //in its bucket by now
+            assertTrue(timeout.cancel());
+            assertFalse(timeout.cancel());
+            Thread.sleep(300);
+            assertFalse(ran.get());
+            assertFalse(timeout.isExpired());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void TimeoutsLongerThanOneTurnOfTheWheelWaitTheirRounds() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 4); //one turn is 40 ms
+        try {
+            CountDownLatch ran = new CountDownLatch(1);
+            long start = System.nanoTime();
+            timer.newTimeout(ran::countDown, 250);
+            assertTrue(ran.await(2, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void ThousandsOfTimeoutsRunOnTheTimersOneThread() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 64);
+        try {
+            int count = 20000;
+            CountDownLatch ran = new CountDownLatch(count / 2);
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            HashedWheelTimer.Timeout[] timeouts = new HashedWheelTimer.Timeout[count];
+            for (int i = 0; i < count; i++){
+                timeouts[i] = timer.newTimeout(() -> {
+                    threads.add(Thread.currentThread().getName());
+                    ran.countDown();
+                }, 500 + i % 1000); //none due before they are all scheduled and half cancelled
+            }
+            for (int i = 1; i < count; i += 2) //cancel every other one
+                assertTrue(timeouts[i].cancel());
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertEquals(timer.getExpired(), count / 2);
+            assertEquals(threads.size(), 1);
+            assertTrue(threads.contains("test-timer"));
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void StoppedTimerRunsNothingMore() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 8);
+        AtomicBoolean ran = new AtomicBoolean();
+        timer.newTimeout(() -> ran.set(true), 100);
+        timer.stop();
+        Thread.sleep(300);
+        assertFalse(ran.get());
+    }
+}
@@ -0,0 +1,98 @@
+package test;
+
+import core.LargeGameBoard;
+import core.ScoreChecker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LargeGameBoardTest {
+    private static LargeGameBoard gameBoard;
+    private static ScoreChecker connectFive;
+
+    @Before
+    public void setUp() throws Exception {
+        gameBoard = new LargeGameBoard(20, 20);
+        connectFive = new ScoreChecker(5);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        gameBoard = null;
+        connectFive = null;
+    }
+
+    @Test
+    public void TwentyByTwentyBoardHasFourHundredSpots() throws Exception {
+        assertEquals(gameBoard.getSpots(), 400);
+    }
+
+    @Test
+    public void FirstPieceInColumnLandsOnBottomRow() throws Exception {
+        assertEquals(gameBoard.putPiece(19, 1), 19);
+        assertEquals(gameBoard.getPos(19, 19), 1);
+        assertEquals(gameBoard.getPos(18, 19), -1);
+    }
+
+    @Test
+    public void MirrorHashKeyIsHashKeyOfMirroredBoard() throws Exception {
+        LargeGameBoard mirrored = new LargeGameBoard(20, 20);
+        int[] cols = {0, 19, 7, 7, 12, 3};
+        for(int i = 0; i < cols.length; i++){
+            gameBoard.putPiece(cols[i], i % 2);
+            mirrored.putPiece(19 - cols[i], i % 2);
+        }
+        assertEquals(gameBoard.mirrorHashKey(), mirrored.hashKey());
+        assertEquals(gameBoard.canonicalHashKey(), mirrored.canonicalHashKey());
+        gameBoard.undoPiece(3);
+        mirrored.undoPiece(16);
+        assertEquals(gameBoard.mirrorHashKey(), mirrored.hashKey());
+        assertEquals(gameBoard.copy().mirrorHashKey(), gameBoard.mirrorHashKey());
+    }
+
+    @Test
+    public void UndoPieceEmptiesSlot() throws Exception {
+        gameBoard.putPiece(7, 0);
+        gameBoard.decrementSpot();
+        assertEquals(gameBoard.undoPiece(7), 19);
+        assertEquals(gameBoard.getPos(19, 7), -1);
+        assertEquals(gameBoard.getSpots(), 400);
+    }
+
+    @Test
+    public void FourInARowDoesNotWinConnectFive() throws Exception {
+        for (int col = 0; col < 4; col++)
+            gameBoard.putPiece(col, 0);
+        assertEquals(connectFive.gameHasWinner(gameBoard, 19, 3), false);
+    }
+
+    @Test
+    public void FiveInARowWinsConnectFive() throws Exception {
+        for (int col = 10; col < 15; col++)
+            gameBoard.putPiece(col, 0);
+        assertEquals(connectFive.hasHorizWinner(gameBoard, 19, 12), true);
+        assertEquals(connectFive.hasVertWinner(gameBoard, 19, 12), false);
+    }
+
+    @Test
+    public void VerticalLineDoesNotWrapIntoNextColumn() throws Exception {
+        for (int i = 0; i < 17; i++)
+            gameBoard.putPiece(0, 1);
+        for (int i = 0; i < 3; i++)
+            gameBoard.putPiece(0, 0);
+        for (int i = 0; i < 2; i++)
+            gameBoard.putPiece(1, 0);
+        assertEquals(connectFive.gameHasWinner(gameBoard, 19, 1), false);
+    }
+
+    @Test
+    public void SixtyFourBySixtyFourBoardFillsWithoutWrapping() throws Exception {
+        LargeGameBoard board = new LargeGameBoard(64, 64);
+        for (int i = 0; i < 64; i++)
+            board.putPiece(63, i % 2);
+        assertEquals(board.colIsFull(63), true);
+        assertEquals(board.getPos(0, 63), 1);
+    }
+}
@@ -0,0 +1,122 @@
+package test;
+
+import core.Connect4Server;
+import core.Connect4Server.Streams;
+import core.MatchQueue;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MatchQueueTest {
+
+    @Test
+    public void TakeBatchHandsOutEveryoneQueuedInOrder() throws Exception {
+        MatchQueue queue = new MatchQueue(64);
+        Streams[] players = new Streams[5];
+        for (int i = 0; i < players.length; i++){
+            players[i] = new Streams();
+            queue.add(players[i]);
+        }
+        List<Streams> batch = new ArrayList<>();
+        queue.takeBatch(batch);
+        assertEquals(batch.size(), 5);
+        for (int i = 0; i < players.length; i++)
+            assertSame(batch.get(i), players[i]);
+        assertEquals(queue.size(), 0);
+        assertEquals(queue.getLargestBatch(), 5);
+    }
+
+    @Test
+    public void TakeBatchStopsAtTheBatchLimit() throws Exception {
+        MatchQueue queue = new MatchQueue(4);
+        for (int i = 0; i < 10; i++)
+            queue.add(new Streams());
+        List<Streams> batch = new ArrayList<>();
+        queue.takeBatch(batch);
+        assertEquals(batch.size(), 4);
+        assertEquals(queue.size(), 6);
+    }
+
+    @Test
+    public void PlayerHeldBackByTheMatchmakerIsStillWaiting() throws Exception {
+        MatchQueue queue = new MatchQueue(64);
+        queue.add(new Streams());
+        queue.add(new Streams());
+        queue.add(new Streams());
+        List<Streams> batch = new ArrayList<>();
+        queue.takeBatch(batch);
+        queue.matched(batch.get(0));
+        queue.matched(batch.get(1));
+        queue.setHeld(1); //the third has no opponent yet
+        assertEquals(queue.size(), 0);
+        assertEquals(queue.getWaiting(), 1);
+        assertTrue(queue.getStatistics().startsWith("2 matched of 3 queued, 1 waiting"));
+    }
+
+    @Test
+    public void TakeBatchWaitsUntilAPlayerIsQueued() throws Exception {
+        MatchQueue queue = new MatchQueue(64);
+        List<Streams> batch = new ArrayList<>();
+        Thread matchmaker = new Thread(() -> {
+            try {
+                queue.takeBatch(batch);
+            } catch (InterruptedException ignored) {
+            }
+        });
+        matchmaker.start();
+        Thread.sleep(200);
+        assertTrue(matchmaker.isAlive());
+        assertEquals(matchmaker.getState(), Thread.State.WAITING);
+        queue.add(new Streams());
+        matchmaker.join(5000);
+        assertFalse(matchmaker.isAlive());
+        assertEquals(batch.size(), 1);
+    }
+
+    @Test
+    public void MatchedRecordsHowLongThePlayerWaited() throws Exception {
+        MatchQueue queue = new MatchQueue(64);
+        Streams player = new Streams();
+        queue.add(player);
+        Thread.sleep(50);
+        List<Streams> batch = new ArrayList<>();
+        queue.takeBatch(batch);
+        queue.matched(player);
+        assertEquals(queue.getMatched(), 1);
+        assertTrue(queue.getMeanWaitMillis() >= 50);
+        assertEquals(queue.getMaxWaitMillis(), queue.getMeanWaitMillis(), 0.001);
+    }
+
+    @Test
+    public void IdleMatchmakersDoNotUseTheProcessor() throws Exception {
+        Connect4Server[] server = new Connect4Server[1];
+        Thread serverThread = new Thread(() -> {
+            server[0] = new Connect4Server();
+            server[0].start(server[0].getServerSocket());
+        });
+        serverThread.start();
+        for (int i = 0; i < 100 && (server[0] == null || server[0].getServerSocket() == null); i++)
+            Thread.sleep(50);
+        try {
+            Thread.sleep(1000);
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long cpuNanos = 0;
+            int matchmakers = 0;
+            for (Thread thread : Thread.getAllStackTraces().keySet()){
+                if (thread.getName().startsWith("matchmaker-")){
+                    cpuNanos += threads.getThreadCpuTime(thread.getId());
+                    matchmakers++;
+                }
+            }
+            assertEquals(matchmakers, 2);
+            assertTrue(cpuNanos < 100_000_000L);
+        } finally {
+            server[0].close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package test;
+
+import core.GameBoard;
+import core.LargeGameBoard;
+import core.MonteCarloTreeSearch;
+import core.ScoreChecker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static core.Constants.*;
+import static org.junit.Assert.*;
+
+public class MonteCarloTreeSearchTest {
+    private MonteCarloTreeSearch search;
+    private GameBoard gameBoard;
+    private ScoreChecker scoreChecker;
+
+    @Before
+    public void setUp() throws Exception {
+        search = new MonteCarloTreeSearch(2, 5000, 20000, 216);
+        gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+        scoreChecker = new ScoreChecker();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        search.close();
+        search = null;
+        gameBoard = null;
+        scoreChecker = null;
+    }
+
+    @Test
+    public void MonteCarloTakesImmediateWin() throws Exception {
+        for(int i = 0; i < 3; i++){
+            gameBoard.putPiece(5, 0);
+            gameBoard.putPiece(i, 1);
+        }
+        assertEquals(search.selectMove(gameBoard, scoreChecker, 0), 5);
+    }
+
+    @Test
+    public void MonteCarloBlocksOpponentWin() throws Exception {
+        gameBoard.putPiece(0, 0);
+        gameBoard.putPiece(3, 1);
+        gameBoard.putPiece(6, 0);
+        gameBoard.putPiece(3, 1);
+        gameBoard.putPiece(6, 0);
+        gameBoard.putPiece(3, 1);
+        assertEquals(search.selectMove(gameBoard, scoreChecker, 0), 3);
+    }
+
+    @Test
+    public void MonteCarloLeavesBoardUnchanged() throws Exception {
+        gameBoard.putPiece(3, 0);
+        long hashKey = gameBoard.hashKey();
+        search.selectMove(gameBoard, scoreChecker, 1);
+        assertEquals(gameBoard.hashKey(), hashKey);
+        assertEquals(gameBoard.getMoveCount(), 1);
+    }
+
+    @Test
+    public void PlayoutBudgetIsRespected() throws Exception {
+        search.selectMove(gameBoard, scoreChecker, 0);
+        assertEquals(search.getPlayouts(), 20000);
+        assertTrue(search.getPlayoutsPerSecond() > 0);
+    }
+
+    @Test
+    public void TreeIsReusedAfterMovesArePlayed() throws Exception {
+        gameBoard.putPiece(search.selectMove(gameBoard, scoreChecker, 0), 0);
+        gameBoard.putPiece(3, 1);
+        search.selectMove(gameBoard, scoreChecker, 0);
+        assertTrue(search.getReusedVisits() > 0);
+    }
+
+    @Test
+    public void UnrelatedBoardStartsNewTree() throws Exception {
+        gameBoard.putPiece(3, 0);
+        search.selectMove(gameBoard, scoreChecker, 1);
+        GameBoard other = new GameBoard(NUMROWS, NUMCOLUMNS);
+        other.putPiece(0, 0);
+        search.selectMove(other, scoreChecker, 1);
+        assertEquals(search.getReusedVisits(), 0);
+    }
+
+    @Test
+    public void MonteCarloPlaysLargeBoard() throws Exception {
+        LargeGameBoard largeBoard = new LargeGameBoard(12, 15);
+        ScoreChecker fiveInARow = new ScoreChecker(5);
+        for(int i = 0; i < 4; i++){
+            largeBoard.putPiece(9, 0);
+            largeBoard.putPiece(i, 1);
+        }
+        assertEquals(search.selectMove(largeBoard, fiveInARow, 0), 9);
+    }
+
+    @Test
+    public void SearchesOnASharedPoolLeaveItRunning() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            MonteCarloTreeSearch first = new MonteCarloTreeSearch(2, 5000, 2000, 216, pool);
+            MonteCarloTreeSearch second = new MonteCarloTreeSearch(2, 5000, 2000, 217, pool);
+            first.selectMove(gameBoard, scoreChecker, 0);
+            first.close();
+            assertFalse(pool.isShutdown());
+            second.selectMove(gameBoard, scoreChecker, 0);
+            assertEquals(second.getPlayouts(), 2000);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ZeroThreadsThrowsIllegalArgumentException() throws Exception {
+        new MonteCarloTreeSearch(0, 100, 0, 0);
+    }
+}
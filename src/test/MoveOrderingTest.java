@@ -0,0 +1,108 @@
+package test;
+
+import core.AlphaBetaSearch;
+import core.Constants;
+import core.GameBoard;
+import core.MoveOrdering;
+import core.MoveOrdering.Layer;
+import core.ScoreChecker;
+import core.TranspositionTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MoveOrderingTest {
+    private GameBoard gameBoard;
+    private ScoreChecker scoreChecker;
+
+    @Before
+    public void setUp() throws Exception {
+        gameBoard = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+        scoreChecker = new ScoreChecker();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        gameBoard = null;
+        scoreChecker = null;
+    }
+
+    private AlphaBetaSearch search(int layers, int depth){
+        AlphaBetaSearch search = new AlphaBetaSearch(60000, new TranspositionTable(1));
+        search.setMaxDepth(depth);
+        for (Layer layer : Layer.values())
+            search.getOrdering().setEnabled(layer, (layers & 1 << layer.ordinal()) != 0);
+        return search;
+    }
+
+    @Test
+    public void CenterAndTableMoveAreOnByDefault() throws Exception {
+        MoveOrdering ordering = new MoveOrdering();
+        assertTrue(ordering.isEnabled(Layer.CENTER));
+        assertTrue(ordering.isEnabled(Layer.TABLEMOVE));
+        assertFalse(ordering.isEnabled(Layer.KILLERS));
+        assertFalse(ordering.isEnabled(Layer.HISTORY));
+    }
+
+    @Test
+    public void LayersCanBeToggled() throws Exception {
+        MoveOrdering ordering = new MoveOrdering();
+        ordering.setEnabled(Layer.KILLERS, true);
+        ordering.setEnabled(Layer.CENTER, false);
+        assertTrue(ordering.isEnabled(Layer.KILLERS));
+        assertFalse(ordering.isEnabled(Layer.CENTER));
+        ordering.setEnabled(Layer.KILLERS, false);
+        assertFalse(ordering.isEnabled(Layer.KILLERS));
+    }
+
+    @Test
+    public void EveryCombinationOfLayersFindsTheSameScore() throws Exception {
+        int[] moves = {3, 3, 2, 4, 4, 2};
+        for (int i = 0; i < moves.length; i++){
+            gameBoard.putPiece(moves[i], i % 2);
+            gameBoard.decrementSpot();
+        }
+        AlphaBetaSearch reference = search(0, 8);
+        reference.selectMove(gameBoard, scoreChecker, 0);
+        int expected = reference.getScore();
+        for (int layers = 1; layers < 1 << Layer.values().length; layers++){
+            AlphaBetaSearch search = search(layers, 8);
+            search.selectMove(gameBoard, scoreChecker, 0);
+            assertEquals(search.getScore(), expected);
+        }
+    }
+
+    @Test
+    public void EveryCombinationOfLayersTakesImmediateWin() throws Exception {
+        for (int i = 0; i < 3; i++){
+            gameBoard.putPiece(2, 0);
+            gameBoard.putPiece(6, 1);
+        }
+        gameBoard.putPiece(5, 1);
+        for (int layers = 0; layers < 1 << Layer.values().length; layers++)
+            assertEquals(search(layers, 6).selectMove(gameBoard, scoreChecker, 0), 2);
+    }
+
+    @Test
+    public void EveryCombinationOfLayersBlocksOpponentsWin() throws Exception {
+        gameBoard.putPiece(1, 1);
+        gameBoard.putPiece(0, 0);
+        gameBoard.putPiece(2, 1);
+        gameBoard.putPiece(0, 0);
+        gameBoard.putPiece(3, 1);
+        gameBoard.putPiece(6, 0);
+        for (int layers = 0; layers < 1 << Layer.values().length; layers++)
+            assertEquals(search(layers, 6).selectMove(gameBoard, scoreChecker, 0), 4);
+    }
+
+    @Test
+    public void AllLayersVisitFewerNodesThanNone() throws Exception {
+        AlphaBetaSearch plain = search(0, 10);
+        AlphaBetaSearch ordered = search((1 << Layer.values().length) - 1, 10);
+        plain.selectMove(gameBoard, scoreChecker, 0);
+        ordered.selectMove(gameBoard, scoreChecker, 0);
+        assertTrue(ordered.getNodes() < plain.getNodes());
+    }
+}
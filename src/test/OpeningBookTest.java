@@ -0,0 +1,92 @@
+package test;
+
+import core.AlphaBetaSearch;
+import core.Connect4ComputerPlayer;
+import core.GameBoard;
+import core.OpeningBook;
+import core.ScoreChecker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static core.Constants.*;
+import static org.junit.Assert.*;
+
+public class OpeningBookTest {
+    private Path file;
+    private OpeningBook book;
+    private GameBoard gameBoard;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("connect4", ".book");
+        file.toFile().deleteOnExit(); //a mapped file can not be deleted on every platform while still mapped
+        gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+        SortedMap<Long, int[]> entries = new TreeMap<>();
+        entries.put(OpeningBook.bookKey(gameBoard), new int[] {3, 0});
+        gameBoard.putPiece(1, 0);
+        //store the move for whichever orientation has the smaller key, as the generator does
+        int col = (OpeningBook.bookKey(gameBoard) == gameBoard.hashKey()) ? 2 : NUMCOLUMNS - 1 - 2;
+        entries.put(OpeningBook.bookKey(gameBoard), new int[] {col, 7});
+        gameBoard.undoPiece(1);
+        OpeningBook.write(file, NUMROWS, NUMCOLUMNS, 2, entries);
+        book = OpeningBook.open(file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        book = null;
+        gameBoard = null;
+    }
+
+    @Test
+    public void BookHoldsEveryEntryWritten() throws Exception {
+        assertEquals(book.size(), 2);
+        assertEquals(book.getMaxPly(), 2);
+        assertEquals(Files.size(file), 16 + 2 * 16);
+    }
+
+    @Test
+    public void BookAnswersPositionInBook() throws Exception {
+        assertEquals(book.lookup(gameBoard), 3);
+        gameBoard.putPiece(1, 0);
+        assertEquals(book.lookup(gameBoard), 2);
+        assertEquals(book.score(gameBoard), 7);
+    }
+
+    @Test
+    public void BookAnswersMirroredPositionWithMirroredColumn() throws Exception {
+        gameBoard.putPiece(NUMCOLUMNS - 1 - 1, 0);
+        assertEquals(book.lookup(gameBoard), NUMCOLUMNS - 1 - 2);
+    }
+
+    @Test
+    public void PositionNotInBookReturnsNegativeOne() throws Exception {
+        gameBoard.putPiece(3, 0);
+        assertEquals(book.lookup(gameBoard), -1);
+    }
+
+    @Test
+    public void BoardOfOtherSizeReturnsNegativeOne() throws Exception {
+        assertEquals(book.lookup(new GameBoard(5, 7)), -1);
+    }
+
+    @Test(expected = IOException.class)
+    public void FileThatIsNotABookThrowsIOException() throws Exception {
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        OpeningBook.open(file);
+    }
+
+    @Test
+    public void ComputerPlayerPlaysBookMove() throws Exception {
+        Connect4ComputerPlayer player = new Connect4ComputerPlayer(1, false, new AlphaBetaSearch(100), book);
+        gameBoard.putPiece(5, 0);
+        assertEquals(player.getMove(gameBoard, new ScoreChecker()), 4);
+    }
+}
@@ -0,0 +1,85 @@
+package test;
+
+import core.GameBoard;
+import core.ParallelSearch;
+import core.ScoreChecker;
+import core.TranspositionTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static core.Constants.*;
+import static org.junit.Assert.*;
+
+public class ParallelSearchTest {
+    private ParallelSearch search;
+    private GameBoard gameBoard;
+    private ScoreChecker scoreChecker;
+
+    @Before
+    public void setUp() throws Exception {
+        search = new ParallelSearch(3, 200, new TranspositionTable(4));
+        gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+        scoreChecker = new ScoreChecker();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        search.close();
+        search = null;
+        gameBoard = null;
+        scoreChecker = null;
+    }
+
+    @Test
+    public void ParallelSearchTakesImmediateWin() throws Exception {
+        for(int i = 0; i < 3; i++){
+            gameBoard.putPiece(5, 0);
+            gameBoard.putPiece(i, 1);
+        }
+        assertEquals(search.selectMove(gameBoard, scoreChecker, 0), 5);
+    }
+
+    @Test
+    public void ParallelSearchLeavesBoardUnchanged() throws Exception {
+        gameBoard.putPiece(3, 0);
+        long hashKey = gameBoard.hashKey();
+        search.selectMove(gameBoard, scoreChecker, 1);
+        assertEquals(gameBoard.hashKey(), hashKey);
+        assertEquals(gameBoard.getMoveCount(), 1);
+    }
+
+    @Test
+    public void AllWorkersContributeNodes() throws Exception {
+        search.setMaxDepth(8);
+        search.selectMove(gameBoard, scoreChecker, 0);
+        assertEquals(search.getDepthReached(), 8);
+        assertTrue(search.getNodes() > 0);
+    }
+
+    @Test
+    public void SearchesOnASharedPoolLeaveItRunning() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            TranspositionTable table = new TranspositionTable(1);
+            ParallelSearch first = new ParallelSearch(2, 200, table, pool);
+            ParallelSearch second = new ParallelSearch(2, 200, table, pool);
+            first.setMaxDepth(6);
+            second.setMaxDepth(6);
+            first.selectMove(gameBoard, scoreChecker, 0);
+            first.close();
+            assertFalse(pool.isShutdown());
+            second.selectMove(gameBoard, scoreChecker, 0);
+            assertEquals(second.getDepthReached(), 6);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ZeroThreadsThrowsIllegalArgumentException() throws Exception {
+        new ParallelSearch(0, 100, new TranspositionTable(1));
+    }
+}
@@ -0,0 +1,103 @@
+package test;
+
+import core.AlphaBetaSearch;
+import core.ComputerMoveExecutor;
+import core.Connect4ComputerPlayer;
+import core.GameBoard;
+import core.Ponderer;
+import core.ScoreChecker;
+import core.TranspositionTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static core.Constants.*;
+import static org.junit.Assert.*;
+
+public class PondererTest {
+    private GameBoard gameBoard;
+    private ScoreChecker scoreChecker;
+    private ComputerMoveExecutor executor;
+    private Connect4ComputerPlayer computer;
+    private Ponderer ponderer;
+
+    @Before
+    public void setUp() throws Exception {
+        gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+        scoreChecker = new ScoreChecker();
+        executor = new ComputerMoveExecutor(1, 4, 2000);
+        computer = new Connect4ComputerPlayer(1, false, new AlphaBetaSearch(50, new TranspositionTable(4)));
+        ponderer = new Ponderer(computer, 0, scoreChecker, executor);
+        //the human holds the two leftmost bottom slots, a third makes a threat the computer has to block
+        gameBoard.putPiece(0, 0);
+        gameBoard.putPiece(6, 1);
+        gameBoard.putPiece(1, 0);
+        gameBoard.putPiece(6, 1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ponderer.stop();
+        executor.shutdown();
+        ponderer = null;
+        executor = null;
+        computer = null;
+        gameBoard = null;
+        scoreChecker = null;
+    }
+
+    @Test
+    public void PonderedReplyIsPlayedForHumansMove() throws Exception {
+        assertTrue(ponderer.start(gameBoard));
+        Thread.sleep(1000);
+        assertEquals(ponderer.getReply(2), 3);
+        assertEquals(executor.getPonderHits(), 1);
+    }
+
+    @Test
+    public void MoveArrivingImmediatelyIsAMiss() throws Exception {
+        assertTrue(ponderer.start(gameBoard));
+        assertEquals(ponderer.getReply(2), -1);
+        assertEquals(executor.getPonderMisses(), 1);
+    }
+
+    @Test
+    public void PonderingLeavesBoardUnchanged() throws Exception {
+        long hashKey = gameBoard.hashKey();
+        ponderer.start(gameBoard);
+        Thread.sleep(200);
+        ponderer.stop();
+        assertEquals(gameBoard.hashKey(), hashKey);
+        assertEquals(gameBoard.getMoveCount(), 4);
+    }
+
+    @Test
+    public void NoPonderingWithoutSpareThread() throws Exception {
+        Connect4ComputerPlayer busy = new Connect4ComputerPlayer(1, false, new AlphaBetaSearch(500));
+        Thread request = new Thread(() -> executor.selectMove(busy, new GameBoard(), scoreChecker));
+        request.start();
+        Thread.sleep(100);
+        assertFalse(ponderer.start(gameBoard));
+        request.join();
+    }
+
+    @Test
+    public void RequestWaitingForTheThreadStopsPondering() throws Exception {
+        Connect4ComputerPlayer slow = new Connect4ComputerPlayer(1, false, new AlphaBetaSearch(5000));
+        ponderer = new Ponderer(slow, 0, scoreChecker, executor);
+        assertTrue(ponderer.start(gameBoard));
+        Thread.sleep(100);
+        Connect4ComputerPlayer busy = new Connect4ComputerPlayer(1, false, new AlphaBetaSearch(50));
+        long start = System.nanoTime();
+        executor.selectMove(busy, new GameBoard(NUMROWS, NUMCOLUMNS), scoreChecker);
+        assertTrue((System.nanoTime() - start) / 1000000 < 1000);
+        assertEquals(executor.getSparePreemptions(), 1);
+        assertEquals(ponderer.getReply(2), -1);
+    }
+
+    @Test
+    public void StrategyThatCanNotBeCopiedDoesNotPonder() throws Exception {
+        Connect4ComputerPlayer other = new Connect4ComputerPlayer(1, false, (board, checker, playerID) -> 0);
+        assertFalse(new Ponderer(other, 0, scoreChecker, executor).start(gameBoard));
+    }
+}
@@ -129,4 +129,39 @@ public class ScoreCheckerTest {
     }
 
 
+    @Test
+    public void DiagonalDownWinnerFoundFromAnySlotOfTheFour() throws Exception {
+        GameBoard board = new GameBoard(NUMROWS, NUMCOLUMNS);
+        board.putPiece(3, 0);
+        board.putPiece(2, 1);
+        board.putPiece(2, 0);
+        board.putPiece(1, 1);
+        board.putPiece(1, 1);
+        board.putPiece(1, 0);
+        board.putPiece(0, 1);
+        board.putPiece(0, 1);
+        board.putPiece(0, 1);
+        board.putPiece(0, 0);
+        assertEquals(scoreChecker.hasDiagWinner(board, 2, 0), true);
+        assertEquals(scoreChecker.gameHasWinner(board, 5, 3), true);
+    }
+
+    @Test
+    public void FourElsewhereOnTheBoardIsNotAWinnerThroughTheSlot() throws Exception {
+        horiWinnerBoard.putPiece(6, 0); //player 0 owns (5,6) in the row of the four, but not next to it
+        horiWinnerBoard.putPiece(6, 0); //and (4,6), off every line through the four
+        assertEquals(scoreChecker.hasHorizWinner(horiWinnerBoard, 5, 6), false);
+        assertEquals(scoreChecker.hasHorizWinner(horiWinnerBoard, 4, 6), false);
+        assertEquals(scoreChecker.hasVertWinner(horiWinnerBoard, 4, 6), false);
+        assertEquals(scoreChecker.hasDiagWinner(horiWinnerBoard, 4, 6), false);
+        assertEquals(scoreChecker.hasHorizWinner(horiWinnerBoard, 5, 3), true);
+        assertEquals(scoreChecker.hasVertWinner(vertWinnerBoard, 2, 0), true);
+        assertEquals(scoreChecker.hasDiagWinner(diagWinnerBoard, 2, 3), true);
+    }
+
+    @Test
+    public void EmptySlotHasNoWinner() throws Exception {
+        assertEquals(scoreChecker.gameHasWinner(vertWinnerBoard, 0, 6), false);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,275 @@
+package test;
+
+import core.*;
+import org.junit.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SelectorTransportTest {
+    private Connect4Server server;
+    private Connect4Client c1;
+    private Connect4Client c2;
+    private Thread serverThread;
+
+    @Before
+    public void setUpServer() throws Exception {
+        serverThread = new Thread(() -> {
+            server = new Connect4Server(Connect4Server.Transport.SELECTOR);
+            server.start(server.getServerSocket());
+        });
+        serverThread.start();
+        for (int i = 0; i < 100 && (server == null || server.getServerSocket() == null); i++)
+            Thread.sleep(50);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Thread.sleep(500);
+        server.close();
+        serverThread.join(5000);
+        serverThread = null;
+        c1 = null;
+        c2 = null;
+        server = null;
+    }
+
+    /**
+     * connects without Connect4Client, to send what it never would
+     */
+    private static Socket rawConnect() throws IOException {
+        return new Socket(Constants.HOST, Constants.PORT);
+    }
+
+    @Test
+    public void PlayersBadInputReturnsBadInputFromServer() throws Exception {
+        c1 = new Connect4Client();
+        c1.sendGameType(Constants.PLAYERVSPLAYER);
+        c2 = new Connect4Client();
+        c2.sendGameType(Constants.PLAYERVSPLAYER);
+        c1.getGameStatus(); //players number
+        c2.getGameStatus(); //players number
+        c1.getGameStatus(); //continue
+
+        c1.getGameBoard();
+        Character servResponse = c1.sendMove(-1); //bad input
+        c1.close();
+        c2.close();
+        assertEquals(servResponse, Constants.BADINPUT);
+    }
+
+    @Test
+    public void Player0WinsServerReturnsPlayer0IsWinner() throws Exception {
+        c1 = new Connect4Client(); //player 0
+        c1.sendGameType(Constants.PLAYERVSPLAYER);
+        c2 = new Connect4Client(); //player 1
+        c2.sendGameType(Constants.PLAYERVSPLAYER);
+        c1.getGameStatus(); //players number
+        c2.getGameStatus(); //players number
+        c1.getGameStatus(); //continue
+
+        int finalStatus = 0;
+        GameBoard finalBoard = null;
+        for(int i = 0; i < 4; i++){
+            c1.getGameBoard();
+            c1.sendMove(0);
+            if(i != 3){
+                c2.getGameStatus();
+                c2.getGameBoard();
+                c2.sendMove(1);
+            }
+            finalStatus = c1.getGameStatus();
+        }
+        finalBoard = c1.getGameBoard();
+        c1.close();
+        c2.close();
+        assertEquals(finalStatus, Constants.PLAYER0_WON);
+        assertEquals(finalBoard.getMoveCount(), 7);
+    }
+
+    @Test
+    public void ComputerRepliesOverSelectorTransport() throws Exception {
+        c1 = new Connect4Client(); //player 0
+        c1.requestDifficulty(Difficulty.EASY);
+        c1.sendGameType(Constants.PLAYERVSCOMP);
+        c1.getGameStatus(); //players number
+        c1.getGameStatus(); //continue
+
+        c1.getGameBoard();
+        assertEquals(c1.sendMove(3), Constants.GOODINPUT);
+        assertEquals(c1.getGameStatus(), Constants.CONTINUE);
+        GameBoard board = c1.getGameBoard();
+        c1.close();
+        assertEquals(board.getMoveCount(), 2);
+    }
+
+    @Test
+    public void SessionsLeaveTheRegistryWhenPlayersLeave() throws Exception {
+        c1 = new Connect4Client();
+        c1.sendGameType(Constants.PLAYERVSCOMP);
+        c1.getGameStatus(); //players number
+        c1.getGameStatus(); //continue
+        c1.getGameBoard();
+        assertEquals(server.getSessions().getLive(), 1);
+        c1.close();
+        for (int i = 0; i < 100 && server.getSessions().getLive() > 0; i++)
+            Thread.sleep(50);
+        assertEquals(server.getSessions().getLive(), 0);
+    }
+
+    @Test
+    public void ClosingTheServerEndsPonderingGamesAndForgetsThem() throws Exception {
+        boolean ponder = Constants.PONDER;
+        Constants.PONDER = true;
+        try {
+            c1 = new Connect4Client();
+            c1.sendGameType(Constants.PLAYERVSCOMP);
+            c1.getGameStatus(); //players number
+            c1.getGameStatus(); //continue
+            c1.getGameBoard();
+            assertEquals(server.getSessions().getLive(), 1);
+            server.close();
+            for (int i = 0; i < 100 && server.getSessions().getLive() > 0; i++)
+                Thread.sleep(50);
+            assertEquals(server.getSessions().getLive(), 0);
+            c1.close();
+        } finally {
+            Constants.PONDER = ponder;
+        }
+    }
+
+    @Test
+    public void DeltaModeClientsTrackBoardWithoutResync() throws Exception {
+        c1 = new Connect4Client(); //player 0
+        c1.requestDeltaMode();
+        c1.sendGameType(Constants.PLAYERVSPLAYER);
+        c2 = new Connect4Client(); //player 1
+        c2.requestDeltaMode();
+        c2.sendGameType(Constants.PLAYERVSPLAYER);
+        c1.getGameStatus(); //players number
+        c2.getGameStatus(); //players number
+        c1.getGameStatus(); //continue
+
+        GameBoard c1Board = null;
+        for(int i = 0; i < 3; i++){
+            c1Board = c1.getGameBoard();
+            c1.sendMove(0);
+            c1Board.putPiece(0, 0);
+            c2.getGameStatus();
+            c2.getGameBoard().putPiece(1, 1);
+            c2.sendMove(1);
+            c1.getGameStatus();
+        }
+        c1Board = c1.getGameBoard();
+        c1.close();
+        c2.close();
+        assertEquals(c1.getResyncs(), 0);
+        assertEquals(c2.getResyncs(), 0);
+        assertEquals(c1Board.getMoveCount(), 6);
+    }
+
+    @Test
+    public void UnknownGameTypeIsAnsweredWithBadInput() throws Exception {
+        try (Socket socket = rawConnect()){
+            ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+            ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+            out.writeChar('Z');
+            out.flush();
+            assertEquals(in.readChar(), (char) Constants.BADINPUT);
+            out.writeChar(Constants.PLAYERVSCOMP);
+            out.flush();
+            assertEquals(in.readInt(), 0); //players number
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void ClientSendingAnObjectIsDisconnected() throws Exception {
+        try (Socket socket = rawConnect()){
+            ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream());
+            ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+            out.writeObject("P");
+            out.flush();
+            in.readInt();
+        }
+    }
+
+    @Test
+    public void IdleConnectionsDoNotTakeThreads() throws Exception {
+        int threadsBefore = Thread.activeCount();
+        List<Socket> idle = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++){
+                Socket socket = rawConnect();
+                new ObjectOutputStream(socket.getOutputStream()).flush();
+                idle.add(socket);
+            }
+            Thread.sleep(500);
+            assertTrue(Thread.activeCount() - threadsBefore < 20);
+
+            //the idle players do not hold anyone else up
+            c1 = new Connect4Client();
+            c1.sendGameType(Constants.PLAYERVSPLAYER);
+            c2 = new Connect4Client();
+            c2.sendGameType(Constants.PLAYERVSPLAYER);
+            assertEquals(c1.getGameStatus(), 0);
+            assertEquals(c2.getGameStatus(), 1);
+            c1.close();
+            c2.close();
+        } finally {
+            for (Socket socket : idle)
+                socket.close();
+        }
+    }
+
+    @Test
+    public void PlayerWhoRunsOutOfTimeForfeits() throws Exception {
+        long moveMillis = Constants.MOVEMILLIS;
+        Constants.MOVEMILLIS = 500;
+        try {
+            c1 = new Connect4Client(); //player 0
+            c1.sendGameType(Constants.PLAYERVSPLAYER);
+            c2 = new Connect4Client(); //player 1
+            c2.sendGameType(Constants.PLAYERVSPLAYER);
+            c1.getGameStatus(); //players number
+            c2.getGameStatus(); //players number
+            c1.getGameStatus(); //continue
+            c1.getGameBoard(); //and never moves
+
+            assertEquals(c2.getGameStatus(), Constants.PLAYER1_WON);
+            assertEquals(c2.getGameBoard().getMoveCount(), 0);
+            try {
+                c1.getGameStatus();
+                fail("the player who ran out of time is still connected");
+            } catch (IOException expected) {
+            }
+            c1.close();
+            c2.close();
+        } finally {
+            Constants.MOVEMILLIS = moveMillis;
+        }
+    }
+
+    @Test
+    public void ConnectionThatNeverAsksForAGameIsClosed() throws Exception {
+        long idleMillis = Constants.IDLEMILLIS;
+        Constants.IDLEMILLIS = 300;
+        try (Socket socket = rawConnect()){
+            socket.setSoTimeout(5000);
+            new ObjectOutputStream(socket.getOutputStream()).flush();
+            InputStream in = socket.getInputStream();
+            for (int i = 0; i < 4; i++) //the stream header
+                assertTrue(in.read() >= 0);
+            assertEquals(in.read(), -1);
+        } finally {
+            Constants.IDLEMILLIS = idleMillis;
+        }
+    }
+}
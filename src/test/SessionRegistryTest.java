@@ -0,0 +1,167 @@
+package test;
+
+import core.Connect4Client;
+import core.Connect4Server;
+import core.Constants;
+import core.SessionRegistry;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SessionRegistryTest {
+
+    /**
+     * a session that only counts how often it is aborted
+     */
+    private static class CountingSession implements SessionRegistry.Session {
+        final AtomicInteger aborts = new AtomicInteger();
+
+        public void abort(){
+            aborts.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void SessionsAreLiveUntilRemoved() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        CountingSession first = new CountingSession();
+        CountingSession second = new CountingSession();
+        assertTrue(registry.register(first));
+        assertTrue(registry.register(second));
+        assertEquals(registry.getLive(), 2);
+        registry.remove(first);
+        registry.remove(first); //removing twice does nothing
+        assertEquals(registry.getLive(), 1);
+        assertEquals(registry.getEnded(), 1);
+        registry.remove(second);
+        assertEquals(registry.getLive(), 0);
+        assertEquals(registry.getStarted(), 2);
+    }
+
+    @Test
+    public void DrainingRefusesNewSessions() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        assertTrue(registry.drain(0));
+        assertTrue(registry.isDraining());
+        assertFalse(registry.register(new CountingSession()));
+        assertEquals(registry.getLive(), 0);
+        assertEquals(registry.getRefused(), 1);
+    }
+
+    @Test
+    public void DrainWaitsForLiveSessionsToEnd() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        CountingSession session = new CountingSession();
+        registry.register(session);
+        Thread ender = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ignored) {
+            }
+            registry.remove(session);
+        });
+        ender.start();
+        long start = System.currentTimeMillis();
+        assertTrue(registry.drain(5000));
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(registry.getLive(), 0);
+    }
+
+    @Test
+    public void DrainGivesUpAtTheDeadline() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        registry.register(new CountingSession());
+        long start = System.nanoTime();
+        assertFalse(registry.drain(200));
+        assertTrue(System.nanoTime() - start >= 200_000_000L);
+        assertEquals(registry.getLive(), 1);
+    }
+
+    @Test
+    public void AbortAllAbortsEveryLiveSession() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        CountingSession live = new CountingSession();
+        CountingSession ended = new CountingSession();
+        registry.register(live);
+        registry.register(ended);
+        registry.remove(ended);
+        assertEquals(registry.abortAll(), 1);
+        assertEquals(live.aborts.get(), 1);
+        assertEquals(ended.aborts.get(), 0);
+    }
+
+    /**
+     * starts a server on the blocking transport
+     */
+    private static Connect4Server startServer() throws Exception {
+        Connect4Server[] server = new Connect4Server[1];
+        Thread serverThread = new Thread(() -> {
+            server[0] = new Connect4Server();
+            server[0].start(server[0].getServerSocket());
+        });
+        serverThread.start();
+        for (int i = 0; i < 100 && (server[0] == null || server[0].getServerSocket() == null); i++)
+            Thread.sleep(50);
+        return server[0];
+    }
+
+    /**
+     * starts a player vs computer game and reads up to the first prompt
+     */
+    private static Connect4Client startGame() throws Exception {
+        Connect4Client client = new Connect4Client();
+        client.sendGameType(Constants.PLAYERVSCOMP);
+        client.getGameStatus(); //players number
+        client.getGameStatus(); //continue
+        client.getGameBoard();
+        return client;
+    }
+
+    @Test
+    public void ServerForgetsGamesOnceTheyEnd() throws Exception {
+        Connect4Server server = startServer();
+        try {
+            Connect4Client client = startGame();
+            assertEquals(server.getSessions().getLive(), 1);
+            client.close();
+            for (int i = 0; i < 100 && server.getSessions().getLive() > 0; i++)
+                Thread.sleep(50);
+            assertEquals(server.getSessions().getLive(), 0);
+            assertEquals(server.getSessions().getEnded(), 1);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void DrainingServerTurnsNewGamesAwayAndCloseEndsTheRest() throws Exception {
+        Connect4Server server = startServer();
+        try {
+            Connect4Client playing = startGame();
+            assertFalse(server.drain(200));
+            Connect4Client late = new Connect4Client();
+            late.sendGameType(Constants.PLAYERVSCOMP);
+            try {
+                late.getGameStatus();
+                fail("a draining server started a game");
+            } catch (IOException expected) {
+            }
+            server.close();
+            try {
+                playing.sendMove(3);
+                playing.getGameStatus();
+                fail("a closed server kept playing");
+            } catch (IOException expected) {
+            }
+            for (int i = 0; i < 100 && server.getSessions().getLive() > 0; i++)
+                Thread.sleep(50);
+            assertEquals(server.getSessions().getLive(), 0);
+            assertEquals(server.getSessions().getRefused(), 1);
+        } finally {
+            server.close();
+        }
+    }
+}
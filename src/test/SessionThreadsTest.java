@@ -0,0 +1,62 @@
+package test;
+
+import core.Connect4Client;
+import core.Connect4Server;
+import core.Constants;
+import core.GameBoard;
+import core.SessionThreads;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class SessionThreadsTest {
+
+    @Test
+    public void VirtualThreadsAreMadeOnlyWhereTheJvmHasThem() throws Exception {
+        SessionThreads threads = new SessionThreads("test-", true);
+        assertEquals(threads.isVirtual(), SessionThreads.virtualThreadsAvailable());
+        AtomicBoolean ran = new AtomicBoolean();
+        Thread thread = threads.newThread(() -> ran.set(true));
+        assertTrue(thread.getName().startsWith("test-"));
+        thread.start();
+        thread.join(5000);
+        assertTrue(ran.get());
+    }
+
+    @Test
+    public void PlatformThreadsUnlessVirtualAreAskedFor() throws Exception {
+        SessionThreads threads = new SessionThreads("test-", false);
+        assertFalse(threads.isVirtual());
+        assertEquals(threads.newThread(() -> {}).getName(), "test-1");
+        assertEquals(threads.newThread(() -> {}).getName(), "test-2");
+    }
+
+    @Test
+    public void ServerOnVirtualTransportPlaysAGame() throws Exception {
+        Connect4Server[] server = new Connect4Server[1];
+        Thread serverThread = new Thread(() -> {
+            server[0] = new Connect4Server(Connect4Server.Transport.VIRTUAL);
+            server[0].start(server[0].getServerSocket());
+        });
+        serverThread.start();
+        for (int i = 0; i < 100 && (server[0] == null || server[0].getServerSocket() == null); i++)
+            Thread.sleep(50);
+        try {
+            Connect4Client c1 = new Connect4Client();
+            c1.sendGameType(Constants.PLAYERVSCOMP);
+            c1.getGameStatus(); //players number
+            c1.getGameStatus(); //continue
+            c1.getGameBoard();
+            assertEquals(c1.sendMove(3), Constants.GOODINPUT);
+            assertEquals(c1.getGameStatus(), Constants.CONTINUE);
+            GameBoard board = c1.getGameBoard();
+            c1.close();
+            assertEquals(board.getMoveCount(), 2);
+        } finally {
+            Thread.sleep(500);
+            server[0].close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package test;
+
+import core.GameBoard;
+import core.Solver;
+import core.TranspositionTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static core.Constants.*;
+import static org.junit.Assert.*;
+
+public class SolverTest {
+    //moves played (columns numbered from 1), exact score, milliseconds the solve took when recorded on one core
+    //with a 64 MB table, solving the positions in this order
+    private static final String[] POSITIONS = {
+            "577341322473363215265473621715246157 -3 1",
+            "751153763511711236424332253727725465 1 2",
+            "275446437715422362144337273563765156 0 1",
+            "36525325145353263766631227652741 -2 1",
+            "43342422323225535513744766611465 0 4",
+            "73532644442333366711174774515557 3 1",
+            "32271376533445311764662765 1 7",
+            "76635151223667446716551532 2 4",
+            "33456556613343266447 9 1",
+            "54775545561213652643 3 1",
+            "33237736653676 -2 118",
+            "24677767157217 3 64",
+            "1734113154 2 125",
+            "5244175736 2 398",
+            "7663631747 2 495",
+            "4744766423 -4 698",
+            "444444 1 5800",
+    };
+    //a solve may take this many times its recorded time, plus a second for a slower or busier machine
+    private static final int SLOWDOWN = 4;
+    private static final long SLACKMILLIS = 1000;
+
+    private Solver solver;
+
+    @Before
+    public void setUp() throws Exception {
+        solver = new Solver(new TranspositionTable(64));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        solver = null;
+    }
+
+    private static GameBoard play(String moves){
+        GameBoard gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+        for(char move : moves.toCharArray()){
+            gameBoard.putPiece(move - '1', gameBoard.getMoveCount() % 2);
+            gameBoard.decrementSpot();
+        }
+        return gameBoard;
+    }
+
+    @Test
+    public void SolverMatchesKnownScoresWithinRecordedTimes() throws Exception {
+        for(String position : POSITIONS){
+            String[] fields = position.split(" ");
+            int score = solver.solve(play(fields[0]));
+            assertEquals(fields[0], score, Integer.parseInt(fields[1]));
+            long limit = Long.parseLong(fields[2]) * SLOWDOWN + SLACKMILLIS;
+            assertTrue(fields[0] + " took " + solver.getMillis() + " ms", solver.getMillis() <= limit);
+        }
+    }
+
+    @Test
+    public void ImmediateWinScoresHighest() throws Exception {
+        GameBoard gameBoard = play("1212121");
+        gameBoard.undoPiece(0);
+        assertEquals(solver.solve(gameBoard), (NUMROWS * NUMCOLUMNS + 1 - 6) / 2);
+        assertEquals(Solver.distanceToResult(gameBoard, solver.solve(gameBoard)), 1);
+    }
+
+    @Test
+    public void FinishedGameIsLostForPlayerToMove() throws Exception {
+        GameBoard gameBoard = play("1212121");
+        int score = solver.solve(gameBoard);
+        assertTrue(score < 0);
+        assertEquals(Solver.distanceToResult(gameBoard, score), 0);
+    }
+
+    @Test
+    public void DistanceToResultCountsRemainingPlies() throws Exception {
+        GameBoard emptyBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+        //the first player wins with their last checker, the 41st on the board
+        assertEquals(Solver.distanceToResult(emptyBoard, 1), 41);
+        assertEquals(Solver.distanceToResult(emptyBoard, 0), 42);
+        GameBoard oneMove = play("4");
+        assertEquals(Solver.distanceToResult(oneMove, -1), 40);
+    }
+
+    @Test
+    public void SmallBoardIsDraw() throws Exception {
+        assertEquals(solver.solve(new GameBoard(4, 4)), 0);
+    }
+
+    @Test
+    public void BestMoveTakesWin() throws Exception {
+        GameBoard gameBoard = play("1727374");
+        gameBoard.undoPiece(3);
+        assertEquals(solver.bestMove(gameBoard), 3);
+    }
+
+    @Test
+    public void BestMoveBlocksOpponent() throws Exception {
+        assertEquals(solver.bestMove(play("171757")), 6);
+    }
+
+    @Test
+    public void SolveOutOfTimeGivesUpAndStoresNothing() throws Exception {
+        long start = System.nanoTime();
+        assertEquals(solver.bestMove(play("44"), 100), -1);
+        assertTrue((System.nanoTime() - start) / 1000000 < 100 + SLACKMILLIS);
+        assertTrue(solver.wasAborted());
+        assertEquals(solver.solve(play("33237736653676")), -2);
+        assertFalse(solver.wasAborted());
+    }
+
+    @Test
+    public void StoppedSolveGivesUp() throws Exception {
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            solver.stop();
+        });
+        stopper.start();
+        long start = System.nanoTime();
+        solver.solve(new GameBoard(NUMROWS, NUMCOLUMNS));
+        assertTrue((System.nanoTime() - start) / 1000000 < 100 + SLACKMILLIS);
+        assertTrue(solver.wasAborted());
+        stopper.join();
+    }
+
+    @Test
+    public void SolveLeavesBoardUnchanged() throws Exception {
+        GameBoard gameBoard = play("4444443");
+        long hashKey = gameBoard.hashKey();
+        solver.solve(gameBoard);
+        solver.bestMove(gameBoard);
+        assertEquals(gameBoard.hashKey(), hashKey);
+        assertEquals(gameBoard.getMoveCount(), 7);
+    }
+}
@@ -0,0 +1,124 @@
+package test;
+
+import core.AlphaBetaSearch;
+import core.GameBoard;
+import core.ScoreChecker;
+import core.TranspositionTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static core.Constants.*;
+import static org.junit.Assert.*;
+
+public class TranspositionTableTest {
+    private TranspositionTable table;
+
+    @Before
+    public void setUp() throws Exception {
+        table = new TranspositionTable(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        table = null;
+    }
+
+    @Test
+    public void OneMegabyteTableHoldsSixtyFiveThousandEntries() throws Exception {
+        assertEquals(table.getCapacity(), 65536);
+    }
+
+    @Test
+    public void StoredEntryIsFoundWithAllFields() throws Exception {
+        table.store(0x1234L, -57, 9, TranspositionTable.LOWERBOUND, 3);
+        long entry = table.probe(0x1234L);
+        assertEquals(TranspositionTable.score(entry), -57);
+        assertEquals(TranspositionTable.depth(entry), 9);
+        assertEquals(TranspositionTable.flag(entry), TranspositionTable.LOWERBOUND);
+        assertEquals(TranspositionTable.move(entry), 3);
+    }
+
+    @Test
+    public void DifferentPositionInSameSlotIsAMiss() throws Exception {
+        table.store(0x1234L, 10, 4, TranspositionTable.EXACT, 2);
+        assertEquals(table.probe(0x1234L + table.getCapacity()), 0L);
+    }
+
+    @Test
+    public void EmptyBoardKeyIsAMissUntilStored() throws Exception {
+        assertEquals(table.probe(0L), 0L);
+        table.store(0L, 0, 1, TranspositionTable.EXACT, -1);
+        assertEquals(TranspositionTable.move(table.probe(0L)), -1);
+    }
+
+    @Test
+    public void ShallowerEntryDoesNotReplaceDeeperOne() throws Exception {
+        long other = 0x1234L + table.getCapacity();
+        table.store(0x1234L, 10, 8, TranspositionTable.EXACT, 2);
+        table.store(other, 20, 3, TranspositionTable.EXACT, 5);
+        assertEquals(TranspositionTable.score(table.probe(0x1234L)), 10);
+        assertEquals(table.probe(other), 0L);
+    }
+
+    @Test
+    public void EntryFromEarlierSearchIsReplaced() throws Exception {
+        long other = 0x1234L + table.getCapacity();
+        table.store(0x1234L, 10, 8, TranspositionTable.EXACT, 2);
+        table.newSearch();
+        table.store(other, 20, 3, TranspositionTable.EXACT, 5);
+        assertEquals(TranspositionTable.score(table.probe(other)), 20);
+    }
+
+    @Test
+    public void TableWithGenerationIntervalAgesOncePerInterval() throws Exception {
+        table = new TranspositionTable(1, 200);
+        long other = 0x1234L + table.getCapacity();
+        table.store(0x1234L, 10, 8, TranspositionTable.EXACT, 2);
+        for (int i = 0; i < 100; i++) //other players starting their searches
+            table.newSearch();
+        table.store(other, 20, 3, TranspositionTable.EXACT, 5);
+        assertEquals(TranspositionTable.score(table.probe(0x1234L)), 10);
+        Thread.sleep(250);
+        table.newSearch();
+        table.store(other, 20, 3, TranspositionTable.EXACT, 5);
+        assertEquals(TranspositionTable.score(table.probe(other)), 20);
+    }
+
+    @Test
+    public void HitRateCountsProbes() throws Exception {
+        table.store(0x99L, 1, 1, TranspositionTable.EXACT, 0);
+        table.probe(0x99L);
+        table.probe(0x98L);
+        assertEquals(table.getHitRate(), 0.5, 0.0001);
+    }
+
+    /**
+     * searches a position and then its mirror image with the same table
+     * @return the nodes the search of the mirror image took
+     */
+    private long searchMirrorAfterPosition(boolean foldMirrors){
+        int[] cols = {3, 3, 2, 4, 1};
+        GameBoard gameBoard = new GameBoard(NUMROWS, NUMCOLUMNS);
+        GameBoard mirrored = new GameBoard(NUMROWS, NUMCOLUMNS);
+        for (int i = 0; i < cols.length; i++){
+            gameBoard.putPiece(cols[i], i % 2);
+            mirrored.putPiece(NUMCOLUMNS - 1 - cols[i], i % 2);
+        }
+        AlphaBetaSearch search = new AlphaBetaSearch(60000, table);
+        search.setMaxDepth(9);
+        search.setMirrorFolding(foldMirrors);
+        ScoreChecker scoreChecker = new ScoreChecker();
+        search.selectMove(gameBoard, scoreChecker, 1);
+        search.selectMove(mirrored, scoreChecker, 1);
+        return search.getNodes();
+    }
+
+    @Test
+    public void FoldedTableAnswersMirrorImageOfSearchedPosition() throws Exception {
+        long unfolded = searchMirrorAfterPosition(false);
+        table = new TranspositionTable(1);
+        long folded = searchMirrorAfterPosition(true);
+        assertTrue(folded * 4 < unfolded);
+    }
+}
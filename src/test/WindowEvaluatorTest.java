@@ -0,0 +1,124 @@
+package test;
+
+import core.AlphaBetaSearch;
+import core.Constants;
+import core.GameBoard;
+import core.ScoreChecker;
+import core.WindowEvaluator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class WindowEvaluatorTest {
+    private WindowEvaluator evaluator;
+    private GameBoard gameBoard;
+
+    @Before
+    public void setUp() throws Exception {
+        evaluator = new WindowEvaluator(Constants.NUMROWS, Constants.NUMCOLUMNS, Constants.WINLENGTH);
+        gameBoard = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        evaluator = null;
+        gameBoard = null;
+    }
+
+    @Test
+    public void SixBySevenBoardHasSixtyNineWindows() throws Exception {
+        assertEquals(evaluator.getWindowCount(), 69);
+    }
+
+    @Test
+    public void EmptyBoardScoresZero() throws Exception {
+        assertEquals(evaluator.evaluate(gameBoard, 0), 0);
+        evaluator.reset(gameBoard);
+        assertEquals(evaluator.getScore(0), 0);
+    }
+
+    @Test
+    public void CenterCheckerIsWorthItsSevenWindows() throws Exception {
+        //the bottom slot of the middle column is in 4 horizontal, 1 vertical and 2 diagonal windows
+        gameBoard.putPiece(3, 0);
+        assertEquals(evaluator.evaluate(gameBoard, 0), 7);
+        assertEquals(evaluator.evaluate(gameBoard, 1), -7);
+    }
+
+    @Test
+    public void BlockedWindowIsWorthNothing() throws Exception {
+        gameBoard.putPiece(0, 0);
+        gameBoard.putPiece(0, 0);
+        gameBoard.putPiece(0, 0);
+        int open = evaluator.evaluate(gameBoard, 0);
+        gameBoard.putPiece(0, 1);
+        assertTrue(evaluator.evaluate(gameBoard, 0) < open - 16);
+    }
+
+    @Test
+    public void RunningScoreMatchesEvaluationThroughoutRandomGames() throws Exception {
+        Random rand = new Random(69);
+        for (int game = 0; game < 50; game++){
+            gameBoard = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+            evaluator.reset(gameBoard);
+            int[] rows = new int[Constants.NUMROWS * Constants.NUMCOLUMNS];
+            int moves = rand.nextInt(rows.length + 1);
+            for (int i = 0; i < moves; i++){
+                int col;
+                do {
+                    col = rand.nextInt(Constants.NUMCOLUMNS);
+                } while (gameBoard.colIsFull(col));
+                rows[i] = gameBoard.putPiece(col, i % 2);
+                evaluator.add(rows[i], col, i % 2);
+                assertEquals(evaluator.getScore(i % 2), evaluator.evaluate(gameBoard, i % 2));
+            }
+            for (int i = moves - 1; i >= 0; i--){
+                int col = gameBoard.getMove(i);
+                assertEquals(gameBoard.undoPiece(col), rows[i]);
+                evaluator.remove(rows[i], col, i % 2);
+                assertEquals(evaluator.getScore(0), evaluator.evaluate(gameBoard, 0));
+            }
+            assertEquals(evaluator.getScore(0), 0);
+        }
+    }
+
+    @Test
+    public void ResetPicksUpCheckersAlreadyOnTheBoard() throws Exception {
+        int[] moves = {3, 2, 3, 4, 1, 1, 5};
+        for (int i = 0; i < moves.length; i++)
+            gameBoard.putPiece(moves[i], i % 2);
+        evaluator.reset(gameBoard);
+        assertEquals(evaluator.getScore(1), evaluator.evaluate(gameBoard, 1));
+    }
+
+    @Test
+    public void SearchScoredByWindowsTakesWinAndBlocks() throws Exception {
+        AlphaBetaSearch search = new AlphaBetaSearch(200);
+        search.setEvaluator(evaluator);
+        ScoreChecker scoreChecker = new ScoreChecker();
+        for (int i = 0; i < 3; i++){
+            gameBoard.putPiece(2, 0);
+            gameBoard.putPiece(6, 1);
+        }
+        gameBoard.putPiece(5, 1);
+        assertEquals(search.selectMove(gameBoard, scoreChecker, 0), 2);
+
+        gameBoard = new GameBoard(Constants.NUMROWS, Constants.NUMCOLUMNS);
+        gameBoard.putPiece(1, 1);
+        gameBoard.putPiece(0, 0);
+        gameBoard.putPiece(2, 1);
+        gameBoard.putPiece(0, 0);
+        gameBoard.putPiece(3, 1);
+        gameBoard.putPiece(6, 0);
+        assertEquals(search.selectMove(gameBoard, scoreChecker, 0), 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void BoardTooLargeForABitboardIsRejected() throws Exception {
+        new WindowEvaluator(10, 10, 4);
+    }
+}
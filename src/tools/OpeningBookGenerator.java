@@ -0,0 +1,76 @@
+package tools;
+
+import core.AlphaBetaSearch;
+import core.GameBoard;
+import core.OpeningBook;
+import core.ScoreChecker;
+import core.TranspositionTable;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static core.Constants.*;
+
+/**
+ * Generates the opening book read by OpeningBook: every position of the standard board with at most maxPly
+ * checkers that the game can reach, mirror images folded together, is searched to a fixed depth and stored with
+ * its best column.  The search is deterministic so the same arguments always produce the same file.
+ * Usage: OpeningBookGenerator [file] [maxPly] [depth]
+ * @author Kevin Somers
+ */
+public class OpeningBookGenerator {
+    private static final long UNLIMITEDMILLIS = Long.MAX_VALUE / 2000000;
+
+    private final int maxPly;
+    private final AlphaBetaSearch search;
+    private final ScoreChecker scoreChecker = new ScoreChecker();
+    private final Set<Long> seen = new HashSet<>();
+    private final SortedMap<Long, int[]> book = new TreeMap<>();
+
+    private OpeningBookGenerator(int maxPly, int depth){
+        this.maxPly = maxPly;
+        this.search = new AlphaBetaSearch(UNLIMITEDMILLIS, new TranspositionTable(64));
+        this.search.setMaxDepth(depth);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String file = (args.length > 0) ? args[0] : OPENINGBOOK;
+        int maxPly = (args.length > 1) ? Integer.parseInt(args[1]) : 6;
+        int depth = (args.length > 2) ? Integer.parseInt(args[2]) : 14;
+        OpeningBookGenerator generator = new OpeningBookGenerator(maxPly, depth);
+        long start = System.nanoTime();
+        generator.visit(new GameBoard(NUMROWS, NUMCOLUMNS));
+        OpeningBook.write(Paths.get(file), NUMROWS, NUMCOLUMNS, maxPly, generator.book);
+        System.out.printf("%d positions up to ply %d searched to depth %d in %.1f s, written to %s%n",
+                generator.book.size(), maxPly, depth, (System.nanoTime() - start) / 1e9, file);
+    }
+
+    /**
+     * searches a position and every position reachable from it up to maxPly checkers
+     * @param gameBoard the position, left as it was found
+     */
+    private void visit(GameBoard gameBoard){
+        if (!this.seen.add(OpeningBook.bookKey(gameBoard)))
+            return;
+        int playerID = gameBoard.getMoveCount() % 2;
+        int col = this.search.selectMove(gameBoard, this.scoreChecker, playerID);
+        long key = OpeningBook.bookKey(gameBoard);
+        //the book holds the column for the orientation with the smaller key
+        this.book.put(key, new int[] {gameBoard.canonicalColumn(col), this.search.getScore()});
+        if (gameBoard.getMoveCount() == this.maxPly)
+            return;
+        for (int c = 0; c < gameBoard.getColLength(); c++){
+            int row = gameBoard.putPiece(c, playerID);
+            if (row < 0)
+                continue;
+            gameBoard.decrementSpot();
+            if (!this.scoreChecker.gameHasWinner(gameBoard, row, c))
+                visit(gameBoard);
+            gameBoard.undoPiece(c);
+        }
+    }
+}
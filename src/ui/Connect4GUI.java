@@ -229,6 +229,7 @@ public class Connect4GUI extends Application {
             RadioButton selectedRb = (RadioButton) radioGroup.getSelectedToggle();
             if (selectedRb == rbPvP) {
                 try {
+                    client.requestDeltaMode();
                     client.sendGameType('P');
                 } catch (IOException exc) {
                     Platform.runLater(() -> gameStatusLabel.setText("Unable to send server game type selected, exiting . . ."));
@@ -242,6 +243,7 @@ public class Connect4GUI extends Application {
                 }
             } else if (selectedRb == rbPvC) {
                 try {
+                    client.requestDeltaMode();
                     client.sendGameType('C');
                 } catch (IOException exc) {
                     Platform.runLater(() -> gameStatusLabel.setText("Unable to send server game type selected, exiting . . ."));
@@ -131,6 +131,7 @@ public class Connect4TextConsole {
             sendGameTypeOrExit('P');
             displayGameType();
         } else if(gameType.equalsIgnoreCase("C")){
+            requestDifficulty();
             sendGameTypeOrExit('C');
             displayGameType();
         } else {
@@ -140,8 +141,31 @@ public class Connect4TextConsole {
         }
     }
 
+    /**
+     * Gets user input for how strong the computer should play and asks the server for it.  Anything but a
+     * listed number leaves the choice to the server.
+     */
+    private void requestDifficulty(){
+        promptDifficulty();
+        Difficulty difficulty = null;
+        String choice = scanner.next();
+        if (choice.length() == 1)
+            difficulty = Difficulty.forCode(choice.charAt(0));
+        if (difficulty == null){
+            System.out.println("Invalid difficulty, the server will choose");
+            return;
+        }
+        try{
+            client.requestDifficulty(difficulty);
+        } catch (IOException exc){
+            System.out.println("Unable to send server difficulty selected, exiting . . .");
+            System.exit(1);
+        }
+    }
+
     private void sendGameTypeOrExit(Character gameType){
         try{
+            client.requestDeltaMode();
             client.sendGameType(gameType);
         } catch (IOException exc){
             System.out.println("Unable to send server game type selected, exiting . . .");
@@ -180,6 +204,16 @@ public class Connect4TextConsole {
                 " 'P' for Player vs Player or 'C' for computer");
     }
 
+    /**
+     * prompt for the computer's difficulty
+     */
+    public void promptDifficulty(){
+        StringBuilder tiers = new StringBuilder("How strong should the computer play?");
+        for (Difficulty difficulty : Difficulty.values())
+            tiers.append(" '").append(difficulty.getCode()).append("' for ").append(difficulty.name().toLowerCase());
+        System.out.println(tiers);
+    }
+
     /**
      * Inform player of invalid input when selecting the game type (player vs player or
      * player vs computer)